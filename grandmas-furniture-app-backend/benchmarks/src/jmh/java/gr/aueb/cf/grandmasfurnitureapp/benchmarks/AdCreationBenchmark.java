@@ -0,0 +1,182 @@
+package gr.aueb.cf.grandmasfurnitureapp.benchmarks;
+
+import gr.aueb.cf.grandmasfurnitureapp.GrandmasfurnitureappApplication;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Condition;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdInsertDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdReadOnlyDTO;
+import gr.aueb.cf.grandmasfurnitureapp.mapper.Mapper;
+import gr.aueb.cf.grandmasfurnitureapp.model.Ad;
+import gr.aueb.cf.grandmasfurnitureapp.model.AdImage;
+import gr.aueb.cf.grandmasfurnitureapp.model.Attachment;
+import gr.aueb.cf.grandmasfurnitureapp.model.User;
+import gr.aueb.cf.grandmasfurnitureapp.model.static_data.Category;
+import gr.aueb.cf.grandmasfurnitureapp.model.static_data.City;
+import gr.aueb.cf.grandmasfurnitureapp.repository.AdRepository;
+import gr.aueb.cf.grandmasfurnitureapp.repository.CategoryRepository;
+import gr.aueb.cf.grandmasfurnitureapp.repository.CityRepository;
+import gr.aueb.cf.grandmasfurnitureapp.repository.UserRepository;
+import gr.aueb.cf.grandmasfurnitureapp.service.AdService;
+import gr.aueb.cf.grandmasfurnitureapp.service.AttachmentService;
+import gr.aueb.cf.grandmasfurnitureapp.service.FileService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating an ad that references an already stored image, through {@code AdService.createAd}
+ * and, for comparison, through the previous path, rebuilt here from the repositories: category
+ * and city looked up per ad and each image reference taken with its own UPDATE.
+ *
+ * <p>Boots the application with the {@code benchmark} profile (H2 in MySQL mode) and counts
+ * the prepared statements through the Hibernate statistics. JMH reports them as the
+ * {@code statements} and {@code ads} counters, their ratio is logged after each trial.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AdCreationBenchmark {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdCreationBenchmark.class);
+    private static final String CONTENT_HASH = String.format("%064x", 1);
+
+    private ConfigurableApplicationContext context;
+    private AdService adService;
+    private AttachmentService attachmentService;
+    private AdRepository adRepository;
+    private CategoryRepository categoryRepository;
+    private CityRepository cityRepository;
+    private Mapper mapper;
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private User user;
+    private AdInsertDTO dto;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(GrandmasfurnitureappApplication.class)
+                .profiles("benchmark")
+                .run();
+        adService = context.getBean(AdService.class);
+        attachmentService = context.getBean(AttachmentService.class);
+        adRepository = context.getBean(AdRepository.class);
+        categoryRepository = context.getBean(CategoryRepository.class);
+        cityRepository = context.getBean(CityRepository.class);
+        mapper = context.getBean(Mapper.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        seed(context.getBean(JdbcTemplate.class));
+        user = context.getBean(UserRepository.class).findByUsername("benchmark-user").orElseThrow();
+        dto = new AdInsertDTO("Oak dresser", "Furniture", "Athens", Condition.GOOD,
+                new BigDecimal("120.00"), true, "Well kept oak dresser, pick up only", CONTENT_HASH);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AdReadOnlyDTO createAd(StatementCounter counter) throws Exception {
+        long before = statistics.getPrepareStatementCount();
+        AdReadOnlyDTO created = adService.createAd(user, dto, null, null);
+        counter.count(statistics.getPrepareStatementCount() - before);
+        return created;
+    }
+
+    @Benchmark
+    public AdReadOnlyDTO createAdPreviousPath(StatementCounter counter) throws Exception {
+        long before = statistics.getPrepareStatementCount();
+
+        // Category and city looked up per ad
+        Category category = categoryRepository.findByCategory(dto.getCategoryName()).orElseThrow();
+        City city = cityRepository.findByCityName(dto.getCityName()).orElseThrow();
+        Ad ad = mapper.mapToAdEntity(dto, category, city);
+        ad.setUser(user);
+        Attachment attachment = attachmentService.findByContentHash(dto.getImageHash());
+
+        // One UPDATE per reference, the cover's and the gallery entry's
+        Ad saved = transactionTemplate.execute(status -> {
+            attachmentService.acquire(attachment);
+            ad.setImage(attachment);
+            attachmentService.acquire(attachment);
+            AdImage adImage = new AdImage();
+            adImage.setAd(ad);
+            adImage.setAttachment(attachment);
+            adImage.setPosition(0);
+            ad.getGallery().add(adImage);
+            return adRepository.save(ad);
+        });
+        AdReadOnlyDTO created = mapper.mapToAdReadOnlyDTO(saved);
+
+        counter.count(statistics.getPrepareStatementCount() - before);
+        return created;
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        jdbcTemplate.update("INSERT INTO categories (category, created_at, updated_at) VALUES (?, ?, ?)",
+                "Furniture", now, now);
+        jdbcTemplate.update("INSERT INTO cities (city_name, created_at, updated_at) VALUES (?, ?, ?)",
+                "Athens", now, now);
+        jdbcTemplate.update("INSERT INTO users (username, password, first_name, last_name, email, phone, role, "
+                        + "is_active, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                "benchmark-user", "unused", "Bench", "Mark", "benchmark@benchmark.local", "6900000000", "USER",
+                true, now, now);
+        // No attachment is created during the run, so the explicit ID cannot collide with the sequence
+        jdbcTemplate.update("INSERT INTO attachments (id, filename, saved_name, file_path, content_type, extension, "
+                        + "status, width, height, retry_count, content_hash, reference_count, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                1L, "dresser.jpg", CONTENT_HASH + ".jpg", FileService.BLOBS_PATH + CONTENT_HASH + ".jpg",
+                "image/jpeg", "jpg", "READY", 1600, 1200, 0, CONTENT_HASH, 0, now, now);
+    }
+
+    /**
+     * Prepared statements and created ads of the current iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class StatementCounter {
+
+        public long statements;
+        public long ads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            ads = 0;
+        }
+
+        @TearDown(Level.Trial)
+        public void report() {
+            if (ads > 0) {
+                LOGGER.info("{} statements per ad", String.format("%.2f", (double) statements / ads));
+            }
+        }
+
+        void count(long prepared) {
+            statements += prepared;
+            ads++;
+        }
+    }
+}
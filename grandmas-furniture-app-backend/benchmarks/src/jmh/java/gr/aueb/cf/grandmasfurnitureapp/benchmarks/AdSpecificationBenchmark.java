@@ -0,0 +1,66 @@
+package gr.aueb.cf.grandmasfurnitureapp.benchmarks;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Condition;
+import gr.aueb.cf.grandmasfurnitureapp.core.filters.AdFilters;
+import gr.aueb.cf.grandmasfurnitureapp.core.specifications.AdSpecification;
+import gr.aueb.cf.grandmasfurnitureapp.model.Ad;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Composition of the search specification, as done by {@code AdService} for every search.
+ * Only the composition is measured; building the predicates needs a persistence context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AdSpecificationBenchmark {
+
+    private AdFilters emptyFilters;
+    private AdFilters allFilters;
+
+    @Setup
+    public void setup() {
+        emptyFilters = AdFilters.builder().build();
+        allFilters = AdFilters.builder()
+                .title("dresser")
+                .categoryName("Dressers")
+                .condition(Condition.GOOD)
+                .minPrice(new BigDecimal("50"))
+                .maxPrice(new BigDecimal("300"))
+                .cityName("Athens")
+                .isAvailable(true)
+                .myAds(true)
+                .build();
+    }
+
+    @Benchmark
+    public Specification<Ad> composeWithoutFilters() {
+        return compose(emptyFilters, null);
+    }
+
+    @Benchmark
+    public Specification<Ad> composeWithAllFilters() {
+        return compose(allFilters, 1L);
+    }
+
+    // Mirrors AdService.getSpecsFromFilters
+    private static Specification<Ad> compose(AdFilters filters, Long currentUserId) {
+        return AdSpecification.adTitleLike(filters.getTitle())
+                .and(AdSpecification.adCategoryNameLike(filters.getCategoryName()))
+                .and(AdSpecification.adConditionIs(filters.getCondition()))
+                .and(AdSpecification.adPriceBetween(filters.getMinPrice(), filters.getMaxPrice()))
+                .and(AdSpecification.adCityNameLike(filters.getCityName()))
+                .and(AdSpecification.adIsAvailable(filters.getIsAvailable()))
+                .and(AdSpecification.adIsMyAds(filters.getMyAds(), currentUserId));
+    }
+}
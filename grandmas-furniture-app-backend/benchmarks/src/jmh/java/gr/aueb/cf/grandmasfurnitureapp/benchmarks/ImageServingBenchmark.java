@@ -0,0 +1,107 @@
+package gr.aueb.cf.grandmasfurnitureapp.benchmarks;
+
+import gr.aueb.cf.grandmasfurnitureapp.rest.ImageServingHandler;
+import gr.aueb.cf.grandmasfurnitureapp.service.FileService;
+import gr.aueb.cf.grandmasfurnitureapp.service.ImageTranscodeService;
+import gr.aueb.cf.grandmasfurnitureapp.storage.BlobStorage;
+import gr.aueb.cf.grandmasfurnitureapp.storage.InMemoryBlobStorage;
+import gr.aueb.cf.grandmasfurnitureapp.storage.LocalBlobStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests served by {@code ImageServingHandler}: a full image, a byte range and a
+ * revalidation answered with 304, from the local disk and from a backend without local
+ * files. The response is a mock, so the numbers cover the handler and the storage read,
+ * not the socket; sendfile is not available outside Tomcat, so local files go through
+ * {@code FileChannel.transferTo}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ImageServingBenchmark {
+
+    private static final String KEY = String.format("%064x", 1) + ".jpg";
+
+    @Param({"local", "memory"})
+    public String storage;
+
+    @Param({"262144"})
+    public int size;
+
+    private Path directory;
+    private ImageServingHandler handler;
+    private String etag;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("image-serving-benchmark");
+        byte[] content = new byte[size];
+        new Random(1).nextBytes(content);
+
+        BlobStorage blobStorage = "local".equals(storage)
+                ? new LocalBlobStorage(directory.resolve("blobs").toString())
+                : new InMemoryBlobStorage();
+        blobStorage.put(KEY, Files.write(directory.resolve("upload.jpg"), content));
+
+        handler = new ImageServingHandler(new FileService(blobStorage, new SimpleMeterRegistry()),
+                blobStorage, new ImageTranscodeService(blobStorage));
+        ReflectionTestUtils.setField(handler, "metadataTtlMs", 10_000L);
+        ReflectionTestUtils.setField(handler, "metadataCacheSize", 10_000);
+        ReflectionTestUtils.setField(handler, "sendfileThreshold", 49_152L);
+
+        etag = serve(null, null).getHeader(HttpHeaders.ETAG);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse fullImage() throws IOException {
+        return serve(null, null);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse byteRange() throws IOException {
+        return serve(HttpHeaders.RANGE, "bytes=0-65535");
+    }
+
+    @Benchmark
+    public MockHttpServletResponse notModified() throws IOException {
+        return serve(HttpHeaders.IF_NONE_MATCH, etag);
+    }
+
+    private MockHttpServletResponse serve(String header, String value) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/blobs/" + KEY);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "blobs/" + KEY);
+        if (header != null) {
+            request.addHeader(header, value);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        return response;
+    }
+}
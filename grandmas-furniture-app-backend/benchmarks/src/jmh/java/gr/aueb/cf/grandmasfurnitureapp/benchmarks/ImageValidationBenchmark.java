@@ -0,0 +1,51 @@
+package gr.aueb.cf.grandmasfurnitureapp.benchmarks;
+
+import gr.aueb.cf.grandmasfurnitureapp.service.AttachmentService;
+import gr.aueb.cf.grandmasfurnitureapp.service.FileService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The upload check of {@code AttachmentService.isValidImageFile}, for an accepted
+ * image and for a file rejected by its extension.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ImageValidationBenchmark {
+
+    private AttachmentService attachmentService;
+    private MockMultipartFile image;
+    private MockMultipartFile wrongExtension;
+
+    @Setup
+    public void setup() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Only the extension helper of FileService is used, storage is never reached
+        FileService fileService = new FileService(null, registry);
+        attachmentService = new AttachmentService(null, fileService, null, registry);
+
+        byte[] content = new byte[1024];
+        image = new MockMultipartFile("file", "Dresser-Front.JPG", "image/jpeg", content);
+        wrongExtension = new MockMultipartFile("file", "dresser.bmp", "image/bmp", content);
+    }
+
+    @Benchmark
+    public boolean validImage() {
+        return attachmentService.isValidImageFile(image);
+    }
+
+    @Benchmark
+    public boolean rejectedExtension() {
+        return attachmentService.isValidImageFile(wrongExtension);
+    }
+}
@@ -0,0 +1,58 @@
+package gr.aueb.cf.grandmasfurnitureapp.benchmarks;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Role;
+import gr.aueb.cf.grandmasfurnitureapp.model.User;
+import gr.aueb.cf.grandmasfurnitureapp.security.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing at login and the checks every authenticated request goes through.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secretKey",
+                "5ce98d378ec88ea09ba8bcd511ef23645f04cc8e70b9134b98723a53c275bbc5");
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 900_000L);
+        ReflectionTestUtils.invokeMethod(jwtService, "registerMeters");
+
+        user = new User();
+        user.setUsername("grandma@example.com");
+        user.setRole(Role.USER);
+        token = jwtService.generateToken(user.getUsername(), user.getRole().name());
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(user.getUsername(), user.getRole().name());
+    }
+
+    @Benchmark
+    public String extractSubject() {
+        return jwtService.extractSubject(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token, user);
+    }
+}
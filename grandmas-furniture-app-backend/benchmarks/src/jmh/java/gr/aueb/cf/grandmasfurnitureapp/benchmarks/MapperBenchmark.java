@@ -0,0 +1,105 @@
+package gr.aueb.cf.grandmasfurnitureapp.benchmarks;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.AttachmentStatus;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Condition;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Role;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdReadOnlyDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.UserReadOnlyDTO;
+import gr.aueb.cf.grandmasfurnitureapp.mapper.Mapper;
+import gr.aueb.cf.grandmasfurnitureapp.model.Ad;
+import gr.aueb.cf.grandmasfurnitureapp.model.AdImage;
+import gr.aueb.cf.grandmasfurnitureapp.model.Attachment;
+import gr.aueb.cf.grandmasfurnitureapp.model.User;
+import gr.aueb.cf.grandmasfurnitureapp.model.static_data.Category;
+import gr.aueb.cf.grandmasfurnitureapp.model.static_data.City;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping as done for every row of a search result.
+ * The read mappers do not touch the repositories, so the mapper is built without them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapperBenchmark {
+
+    @Param({"0", "8"})
+    private int galleryImages;
+
+    private Mapper mapper;
+    private Ad ad;
+    private User user;
+
+    @Setup
+    public void setup() {
+        mapper = new Mapper();
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("grandma@example.com");
+        user.setFirstName("Maria");
+        user.setLastName("Papadopoulou");
+        user.setEmail("grandma@example.com");
+        user.setPhone("6900000000");
+        user.setRole(Role.USER);
+
+        ad = new Ad();
+        ad.setId(42L);
+        ad.setTitle("Walnut dresser with mirror");
+        ad.setCategory(new Category(3L, "Dressers"));
+        ad.setCity(new City(1L, "Athens"));
+        ad.setCondition(Condition.GOOD);
+        ad.setPrice(new BigDecimal("180.00"));
+        ad.setIsAvailable(true);
+        ad.setDescription("Solid walnut, late sixties, some marks on the top.");
+        ad.setImage(attachment(0));
+        ad.setUser(user);
+        ad.setCreatedAt(LocalDateTime.now());
+        ad.setUpdatedAt(LocalDateTime.now());
+
+        List<AdImage> gallery = new ArrayList<>();
+        for (int i = 0; i < galleryImages; i++) {
+            AdImage image = new AdImage();
+            image.setAd(ad);
+            image.setAttachment(attachment(i + 1));
+            image.setPosition(i);
+            gallery.add(image);
+        }
+        ad.setGallery(gallery);
+    }
+
+    @Benchmark
+    public AdReadOnlyDTO mapAd() {
+        return mapper.mapToAdReadOnlyDTO(ad);
+    }
+
+    @Benchmark
+    public UserReadOnlyDTO mapUser() {
+        return mapper.mapToUserReadOnlyDTO(user);
+    }
+
+    private static Attachment attachment(int index) {
+        Attachment attachment = new Attachment();
+        attachment.setId((long) index + 1);
+        attachment.setFilePath("uploads/" + index + ".jpg");
+        attachment.setThumbnailPath("uploads/" + index + "-thumb.jpg");
+        attachment.setPlaceholder("data:image/jpeg;base64,/9j/4AAQSkZJRgABAQ");
+        attachment.setWidth(1600);
+        attachment.setHeight(1200);
+        attachment.setStatus(AttachmentStatus.READY);
+        return attachment;
+    }
+}
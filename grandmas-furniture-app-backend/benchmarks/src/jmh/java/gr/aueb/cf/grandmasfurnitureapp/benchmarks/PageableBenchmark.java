@@ -0,0 +1,47 @@
+package gr.aueb.cf.grandmasfurnitureapp.benchmarks;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.filters.AdFilters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GenericFilters.getPageable} with the defaults and with explicit sorting,
+ * which parses the direction from the request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PageableBenchmark {
+
+    private AdFilters defaults;
+    private AdFilters sorted;
+
+    @Setup
+    public void setup() {
+        defaults = AdFilters.builder().build();
+        sorted = AdFilters.builder()
+                .page(3)
+                .pageSize(24)
+                .sortBy("price")
+                .sortDirection("desc")
+                .build();
+    }
+
+    @Benchmark
+    public Pageable defaultPageable() {
+        return defaults.getPageable();
+    }
+
+    @Benchmark
+    public Pageable sortedPageable() {
+        return sorted.getPageable();
+    }
+}
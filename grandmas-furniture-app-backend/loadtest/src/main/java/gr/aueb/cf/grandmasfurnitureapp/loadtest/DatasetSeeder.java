@@ -0,0 +1,212 @@
+package gr.aueb.cf.grandmasfurnitureapp.loadtest;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Condition;
+import gr.aueb.cf.grandmasfurnitureapp.model.AbstractEntity;
+import gr.aueb.cf.grandmasfurnitureapp.service.FileService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the empty database with a synthetic marketplace: categories, cities, users,
+ * and ads with a cover image and gallery images each.
+ *
+ * <p>Rows go in with batched JDBC inserts rather than through the repositories, which
+ * would take hours for a million ads. Ads and images get consecutive IDs from 1, so ad
+ * {@code n} is reachable as {@code /api/ads/n}; their sequences are then moved past the
+ * seeded rows for the ads the test creates. Users, categories and cities are identity
+ * columns of fresh tables and also start at 1. Values come from a seeded {@link Random},
+ * so two runs with the same settings see the same data.</p>
+ */
+final class DatasetSeeder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatasetSeeder.class);
+
+    static final String[] CATEGORIES = {"Chairs", "Tables", "Cabinets", "Sofas", "Desks", "Dressers", "Beds",
+            "Sideboards", "Wardrobes", "Bookcases", "Antique Clocks", "Decorative Items"};
+    static final String[] CITIES = {"Athens", "Kolonaki", "Exarchia", "Plaka", "Monastiraki", "Psyrri", "Gazi",
+            "Metaxourgeio", "Koukaki", "Pangrati", "Kypseli", "Patissia", "Thessaloniki", "Patras", "Heraklion",
+            "Larissa", "Volos", "Ioannina", "Chania", "Kalamata"};
+    static final String[] ITEMS = {"Chair", "Table", "Cabinet", "Sofa", "Desk", "Dresser", "Bed", "Sideboard",
+            "Wardrobe", "Bookcase", "Clock", "Mirror", "Stool", "Bench", "Armchair", "Lamp"};
+    private static final String[] MATERIALS = {"Oak", "Walnut", "Pine", "Mahogany", "Teak", "Beech", "Cherry",
+            "Rattan", "Leather", "Velvet", "Marble", "Brass"};
+    private static final String[] STYLES = {"Vintage", "Antique", "Rustic", "Classic", "Retro", "Painted",
+            "Carved", "Restored"};
+    private static final String[] FIRST_NAMES = {"Maria", "Eleni", "Anna", "Sofia", "Katerina", "Ioanna",
+            "Giannis", "Nikos", "Kostas", "Dimitris", "Petros", "Alexandros"};
+    private static final String[] LAST_NAMES = {"Papadopoulou", "Georgiou", "Dimitriou", "Nikolaou",
+            "Konstantinou", "Ioannou", "Vasileiou", "Christodoulou", "Antoniou", "Athanasiou"};
+    private static final Condition[] CONDITIONS = Condition.values();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadTestSettings settings;
+    private final Random random;
+    private final LocalDateTime now = LocalDateTime.now();
+
+    DatasetSeeder(JdbcTemplate jdbcTemplate, LoadTestSettings settings) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.settings = settings;
+        this.random = new Random(settings.getRandomSeed());
+    }
+
+    /**
+     * Inserts the dataset.
+     *
+     * @param passwordHash Hash of {@code loadtest.password}, shared by all users
+     */
+    void seed(String passwordHash) {
+        long start = System.nanoTime();
+        seedStaticData();
+        seedUsers(passwordHash);
+        seedAds();
+        restartSequences();
+        LOGGER.warn("Seeded {} users and {} ads with {} images each in {} s", settings.getUsers(), settings.getAds(),
+                1 + settings.getGalleryImagesPerAd(), (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    static String username(int userNumber) {
+        return "loadtest-user-" + userNumber;
+    }
+
+    private void seedStaticData() {
+        List<Object[]> categories = new ArrayList<>();
+        for (String category : CATEGORIES) {
+            categories.add(new Object[]{category, timestamp(now), timestamp(now)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO categories (category, created_at, updated_at) VALUES (?, ?, ?)",
+                categories);
+
+        List<Object[]> cities = new ArrayList<>();
+        for (String city : CITIES) {
+            cities.add(new Object[]{city, timestamp(now), timestamp(now)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO cities (city_name, created_at, updated_at) VALUES (?, ?, ?)", cities);
+    }
+
+    private void seedUsers(String passwordHash) {
+        String sql = "INSERT INTO users (username, password, first_name, last_name, email, phone, role, is_active, "
+                + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> batch = new ArrayList<>(settings.getSeedBatchSize());
+        for (int i = 1; i <= settings.getUsers(); i++) {
+            Timestamp createdAt = randomPastTimestamp();
+            batch.add(new Object[]{username(i), passwordHash, pick(FIRST_NAMES), pick(LAST_NAMES),
+                    username(i) + "@loadtest.local", String.format("69%08d", i), "USER", true, createdAt, createdAt});
+            flushIfFull(sql, batch);
+        }
+        flush(sql, batch);
+    }
+
+    private void seedAds() {
+        int imagesPerAd = 1 + settings.getGalleryImagesPerAd();
+        String attachmentSql = "INSERT INTO attachments (id, filename, saved_name, file_path, content_type, extension, "
+                + "status, width, height, thumbnail_path, placeholder, retry_count, content_hash, reference_count, "
+                + "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String adSql = "INSERT INTO ads (id, title, category_id, city_id, \"condition\", price, is_available, description, "
+                + "attachment_id, user_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String gallerySql = "INSERT INTO ad_images (id, ad_id, attachment_id, position, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+
+        int batchSize = settings.getSeedBatchSize();
+        List<Object[]> attachments = new ArrayList<>(batchSize * imagesPerAd);
+        List<Object[]> ads = new ArrayList<>(batchSize);
+        List<Object[]> gallery = new ArrayList<>(batchSize * settings.getGalleryImagesPerAd());
+
+        for (int ad = 1; ad <= settings.getAds(); ad++) {
+            Timestamp createdAt = randomPastTimestamp();
+            long firstAttachment = (long) (ad - 1) * imagesPerAd + 1;
+            for (int image = 0; image < imagesPerAd; image++) {
+                attachments.add(attachmentRow(firstAttachment + image, createdAt));
+            }
+
+            String item = pick(ITEMS);
+            ads.add(new Object[]{
+                    ad,
+                    pick(STYLES) + " " + pick(MATERIALS) + " " + item,
+                    1 + random.nextInt(CATEGORIES.length),
+                    1 + random.nextInt(CITIES.length),
+                    CONDITIONS[random.nextInt(CONDITIONS.length)].name(),
+                    BigDecimal.valueOf(500 + random.nextInt(150_000), 2),
+                    random.nextInt(100) < 85,
+                    "Well kept " + item.toLowerCase() + ", pick up only",
+                    firstAttachment,
+                    1 + random.nextInt(settings.getUsers()),
+                    createdAt,
+                    createdAt});
+
+            for (int position = 0; position < settings.getGalleryImagesPerAd(); position++) {
+                long galleryId = (long) (ad - 1) * settings.getGalleryImagesPerAd() + position + 1;
+                gallery.add(new Object[]{galleryId, ad, firstAttachment + 1 + position, position, createdAt, createdAt});
+            }
+
+            if (ads.size() >= batchSize) {
+                // Attachments before ads before gallery rows, for the foreign keys
+                flush(attachmentSql, attachments);
+                flush(adSql, ads);
+                flush(gallerySql, gallery);
+                if (ad % (batchSize * 50) == 0) {
+                    LOGGER.warn("Seeded {} of {} ads", ad, settings.getAds());
+                }
+            }
+        }
+        flush(attachmentSql, attachments);
+        flush(adSql, ads);
+        flush(gallerySql, gallery);
+    }
+
+    /**
+     * Restarts the ID sequences so Hibernate's pooled blocks start after the seeded rows.
+     */
+    private void restartSequences() {
+        long ads = settings.getAds();
+        restartSequence("ads_seq", ads);
+        restartSequence("attachments_seq", ads * (1 + settings.getGalleryImagesPerAd()));
+        restartSequence("ad_images_seq", ads * settings.getGalleryImagesPerAd());
+    }
+
+    private void restartSequence(String sequence, long maxId) {
+        // The pooled optimizer uses the block of IDs below the value it reads
+        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + (maxId + AbstractEntity.ID_ALLOCATION_SIZE));
+    }
+
+    private Object[] attachmentRow(long id, Timestamp createdAt) {
+        // Unique per attachment, like the SHA-256 of a real upload
+        String contentHash = String.format("%064x", id);
+        String savedName = contentHash + ".jpg";
+        return new Object[]{id, "photo-" + id + ".jpg", savedName, FileService.BLOBS_PATH + savedName, "image/jpeg", "jpg",
+                "READY", 1600, 1200, FileService.BLOBS_PATH + contentHash + "-thumb.jpg", "LEHV6nWB2yk8pyo0adR*.7kCMdnj",
+                0, contentHash, 1, createdAt, createdAt};
+    }
+
+    private void flushIfFull(String sql, List<Object[]> batch) {
+        if (batch.size() >= settings.getSeedBatchSize()) {
+            flush(sql, batch);
+        }
+    }
+
+    private void flush(String sql, List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+            batch.clear();
+        }
+    }
+
+    private Timestamp randomPastTimestamp() {
+        return timestamp(now.minusMinutes(random.nextInt(2 * 365 * 24 * 60)));
+    }
+
+    private static Timestamp timestamp(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime);
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,65 @@
+package gr.aueb.cf.grandmasfurnitureapp.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Latencies of one operation. Each client has its own recorders, so recording
+ * needs no synchronization; they are merged once the run is over.
+ */
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+
+    void recordSuccess(long nanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+    }
+
+    void recordError() {
+        errors++;
+    }
+
+    static LatencyRecorder merge(List<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        int total = recorders.stream().mapToInt(recorder -> recorder.count).sum();
+        merged.latencies = new long[Math.max(1, total)];
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, merged.latencies, merged.count, recorder.count);
+            merged.count += recorder.count;
+            merged.errors += recorder.errors;
+        }
+        Arrays.sort(merged.latencies, 0, merged.count);
+        return merged;
+    }
+
+    int getCount() {
+        return count;
+    }
+
+    long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Nearest-rank percentile of a merged recorder.
+     *
+     * @param percentile e.g. 0.99
+     * @return The latency in milliseconds, 0 without samples
+     */
+    double percentileMs(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * count);
+        return latencies[Math.min(count, Math.max(1, rank)) - 1] / 1_000_000.0;
+    }
+
+    double maxMs() {
+        return count == 0 ? 0 : latencies[count - 1] / 1_000_000.0;
+    }
+}
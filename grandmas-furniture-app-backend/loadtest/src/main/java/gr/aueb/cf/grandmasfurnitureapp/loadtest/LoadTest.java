@@ -0,0 +1,55 @@
+package gr.aueb.cf.grandmasfurnitureapp.loadtest;
+
+import gr.aueb.cf.grandmasfurnitureapp.GrandmasfurnitureappApplication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.util.Map;
+
+/**
+ * End-to-end load test.
+ *
+ * <p>Boots the complete application with the {@code loadtest} profile (H2 in MySQL mode,
+ * in-memory blob storage, no rate limits), seeds the synthetic dataset, drives the traffic
+ * mix through HTTP and exits with status 1 if any latency, throughput or error-rate target
+ * is missed. Settings are in {@code loadtest.properties}.</p>
+ */
+public final class LoadTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadTest.class);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.load();
+
+        boolean passed;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(GrandmasfurnitureappApplication.class)
+                .profiles("loadtest")
+                .run(args)) {
+            // The application's encoder, so logins hash with the same cost as in production
+            String passwordHash = context.getBean(PasswordEncoder.class).encode(settings.getPassword());
+            new DatasetSeeder(new JdbcTemplate(context.getBean(DataSource.class)), settings).seed(passwordHash);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Map<Operation, LatencyRecorder> results = new TrafficDriver(settings, URI.create("http://localhost:" + port)).run();
+
+            LoadTestReport report = new LoadTestReport(settings, results);
+            report.print();
+            report.write();
+            passed = report.passed();
+        } catch (RuntimeException e) {
+            LOGGER.error("Load test aborted", e);
+            passed = false;
+        }
+        System.exit(passed ? 0 : 1);
+    }
+}
@@ -0,0 +1,134 @@
+package gr.aueb.cf.grandmasfurnitureapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks the results of a run against the targets of {@link LoadTestSettings}
+ * and reports them on the console and as JSON.
+ */
+final class LoadTestReport {
+
+    private final LoadTestSettings settings;
+    private final Map<Operation, LatencyRecorder> results;
+    private final List<String> violations = new ArrayList<>();
+    private final long requests;
+    private final long errors;
+    private final double throughputRps;
+
+    LoadTestReport(LoadTestSettings settings, Map<Operation, LatencyRecorder> results) {
+        this.settings = settings;
+        this.results = results;
+
+        long successes = results.values().stream().mapToLong(LatencyRecorder::getCount).sum();
+        this.errors = results.values().stream().mapToLong(LatencyRecorder::getErrors).sum();
+        this.requests = successes + errors;
+        this.throughputRps = successes / (settings.getDuration().toMillis() / 1000.0);
+        evaluate();
+    }
+
+    boolean passed() {
+        return violations.isEmpty();
+    }
+
+    private void evaluate() {
+        results.forEach((operation, recorder) -> {
+            if (settings.getMix().get(operation) == 0) {
+                return;
+            }
+            if (recorder.getCount() == 0) {
+                violations.add(operation.getKey() + ": no successful requests");
+                return;
+            }
+            double p50 = recorder.percentileMs(0.50);
+            double p99 = recorder.percentileMs(0.99);
+            if (p50 > settings.getP50TargetMs(operation)) {
+                violations.add(String.format("%s: p50 %.1f ms over %d ms", operation.getKey(), p50,
+                        settings.getP50TargetMs(operation)));
+            }
+            if (p99 > settings.getP99TargetMs(operation)) {
+                violations.add(String.format("%s: p99 %.1f ms over %d ms", operation.getKey(), p99,
+                        settings.getP99TargetMs(operation)));
+            }
+        });
+        if (throughputRps < settings.getMinThroughputRps()) {
+            violations.add(String.format("throughput %.1f req/s under %.1f req/s", throughputRps,
+                    settings.getMinThroughputRps()));
+        }
+        double errorRate = requests == 0 ? 1 : (double) errors / requests;
+        if (errorRate > settings.getMaxErrorRate()) {
+            violations.add(String.format("error rate %.4f over %.4f", errorRate, settings.getMaxErrorRate()));
+        }
+    }
+
+    void print() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%n%-8s %9s %7s %10s %10s %10s %10s %9s%n",
+                "", "requests", "errors", "p50 ms", "p90 ms", "p99 ms", "max ms", "req/s"));
+        results.forEach((operation, recorder) -> out.append(String.format("%-8s %9d %7d %10.1f %10.1f %10.1f %10.1f %9.1f%n",
+                operation.getKey(), recorder.getCount(), recorder.getErrors(), recorder.percentileMs(0.50),
+                recorder.percentileMs(0.90), recorder.percentileMs(0.99), recorder.maxMs(),
+                recorder.getCount() / (settings.getDuration().toMillis() / 1000.0))));
+        out.append(String.format("%-8s %9d %7d %54.1f%n", "total", requests, errors, throughputRps));
+        if (passed()) {
+            out.append("\nAll targets met\n");
+        } else {
+            out.append("\nTargets missed:\n");
+            violations.forEach(violation -> out.append("  ").append(violation).append('\n'));
+        }
+        System.out.println(out);
+    }
+
+    /**
+     * Writes the report to {@code loadtest.report}, if set.
+     */
+    void write() throws IOException {
+        String path = settings.getReportPath();
+        if (path == null) {
+            return;
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        ObjectNode report = objectMapper.createObjectNode();
+        report.putObject("dataset")
+                .put("users", settings.getUsers())
+                .put("ads", settings.getAds())
+                .put("galleryImagesPerAd", settings.getGalleryImagesPerAd());
+        report.putObject("run")
+                .put("clients", settings.getClients())
+                .put("warmupSeconds", settings.getWarmup().toSeconds())
+                .put("durationSeconds", settings.getDuration().toSeconds());
+
+        ObjectNode operations = report.putObject("operations");
+        results.forEach((operation, recorder) -> operations.putObject(operation.getKey())
+                .put("requests", recorder.getCount())
+                .put("errors", recorder.getErrors())
+                .put("p50Ms", recorder.percentileMs(0.50))
+                .put("p90Ms", recorder.percentileMs(0.90))
+                .put("p99Ms", recorder.percentileMs(0.99))
+                .put("maxMs", recorder.maxMs())
+                .put("targetP50Ms", settings.getP50TargetMs(operation))
+                .put("targetP99Ms", settings.getP99TargetMs(operation)));
+
+        report.put("requests", requests);
+        report.put("errors", errors);
+        report.put("throughputRps", throughputRps);
+        report.put("passed", passed());
+        ArrayNode missed = report.putArray("violations");
+        violations.forEach(missed::add);
+
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        objectMapper.writeValue(file, report);
+    }
+}
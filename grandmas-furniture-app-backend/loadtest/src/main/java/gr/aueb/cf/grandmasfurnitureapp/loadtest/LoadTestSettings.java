@@ -0,0 +1,123 @@
+package gr.aueb.cf.grandmasfurnitureapp.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Settings of a run: {@code loadtest.properties} from the classpath, overridden by
+ * system properties with the same keys.
+ */
+final class LoadTestSettings {
+
+    private final Properties properties;
+
+    private LoadTestSettings(Properties properties) {
+        this.properties = properties;
+    }
+
+    static LoadTestSettings load() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = LoadTestSettings.class.getResourceAsStream("/loadtest.properties")) {
+            if (in == null) {
+                throw new IOException("loadtest.properties is missing from the classpath");
+            }
+            properties.load(in);
+        }
+        System.getProperties().forEach((key, value) -> {
+            if (key.toString().startsWith("loadtest.")) {
+                properties.put(key, value);
+            }
+        });
+        return new LoadTestSettings(properties);
+    }
+
+    int getUsers() {
+        return getInt("loadtest.users");
+    }
+
+    int getAds() {
+        return getInt("loadtest.ads");
+    }
+
+    int getGalleryImagesPerAd() {
+        return getInt("loadtest.gallery-images-per-ad");
+    }
+
+    long getRandomSeed() {
+        return Long.parseLong(get("loadtest.random-seed"));
+    }
+
+    String getPassword() {
+        return get("loadtest.password");
+    }
+
+    int getSeedBatchSize() {
+        return getInt("loadtest.seed-batch-size");
+    }
+
+    int getClients() {
+        return getInt("loadtest.clients");
+    }
+
+    Duration getWarmup() {
+        return Duration.parse(get("loadtest.warmup"));
+    }
+
+    Duration getDuration() {
+        return Duration.parse(get("loadtest.duration"));
+    }
+
+    Duration getRequestTimeout() {
+        return Duration.parse(get("loadtest.request-timeout"));
+    }
+
+    /**
+     * Relative weights of the operations in the traffic mix.
+     */
+    Map<Operation, Integer> getMix() {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            mix.put(operation, getInt("loadtest.mix." + operation.getKey()));
+        }
+        return mix;
+    }
+
+    long getP50TargetMs(Operation operation) {
+        return Long.parseLong(get("loadtest.slo." + operation.getKey() + ".p50-ms"));
+    }
+
+    long getP99TargetMs(Operation operation) {
+        return Long.parseLong(get("loadtest.slo." + operation.getKey() + ".p99-ms"));
+    }
+
+    double getMinThroughputRps() {
+        return Double.parseDouble(get("loadtest.slo.min-throughput-rps"));
+    }
+
+    double getMaxErrorRate() {
+        return Double.parseDouble(get("loadtest.slo.max-error-rate"));
+    }
+
+    /**
+     * Where the JSON report goes, or null to only print it.
+     */
+    String getReportPath() {
+        return properties.getProperty("loadtest.report");
+    }
+
+    private int getInt(String key) {
+        return Integer.parseInt(get(key));
+    }
+
+    private String get(String key) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException("Load test setting " + key + " is not set");
+        }
+        return value.trim();
+    }
+}
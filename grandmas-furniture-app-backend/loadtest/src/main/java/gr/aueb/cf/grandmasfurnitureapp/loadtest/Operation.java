@@ -0,0 +1,22 @@
+package gr.aueb.cf.grandmasfurnitureapp.loadtest;
+
+/**
+ * Kinds of requests the load test sends. The key names the operation in
+ * {@code loadtest.properties} and in the report.
+ */
+enum Operation {
+    SEARCH("search"),
+    DETAIL("detail"),
+    LOGIN("login"),
+    UPLOAD("upload");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,287 @@
+package gr.aueb.cf.grandmasfurnitureapp.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Sends the traffic mix to the running application through its REST endpoints.
+ *
+ * <p>Every client is a virtual thread with its own token, sending one request after the
+ * other (a closed workload). Requests that start during the warmup or end after the
+ * measurement window are not recorded. A request counts as an error if the status is
+ * not the one the endpoint returns on success, or if it fails or times out.</p>
+ */
+final class TrafficDriver {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrafficDriver.class);
+    private static final String[] SORT_COLUMNS = {"id", "price", "createdAt"};
+
+    private final LoadTestSettings settings;
+    private final URI baseUri;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Operation[] weightedOperations;
+
+    TrafficDriver(LoadTestSettings settings, URI baseUri) {
+        this.settings = settings;
+        this.baseUri = baseUri;
+
+        List<Operation> weighted = new ArrayList<>();
+        settings.getMix().forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(operation);
+            }
+        });
+        if (weighted.isEmpty()) {
+            throw new IllegalStateException("The traffic mix has no operations");
+        }
+        this.weightedOperations = weighted.toArray(new Operation[0]);
+    }
+
+    /**
+     * Runs warmup and measurement.
+     *
+     * @return The merged latencies per operation
+     */
+    Map<Operation, LatencyRecorder> run() throws IOException, InterruptedException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(executor)
+                    .connectTimeout(settings.getRequestTimeout())
+                    .build();
+
+            // Logged in one by one, so the start does not look like a login storm
+            List<Client> clients = new ArrayList<>();
+            for (int i = 0; i < settings.getClients(); i++) {
+                int userNumber = 1 + i % settings.getUsers();
+                clients.add(new Client(i, httpClient, login(httpClient, userNumber)));
+            }
+
+            long measureFrom = System.nanoTime() + settings.getWarmup().toNanos();
+            long measureUntil = measureFrom + settings.getDuration().toNanos();
+            LOGGER.warn("Running {} clients for {} warmup and {} measurement", clients.size(),
+                    settings.getWarmup(), settings.getDuration());
+
+            List<Future<?>> running = new ArrayList<>();
+            for (Client client : clients) {
+                running.add(executor.submit(() -> client.run(measureFrom, measureUntil)));
+            }
+            for (Future<?> future : running) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Load test client failed", e.getCause());
+                }
+            }
+
+            Map<Operation, LatencyRecorder> merged = new EnumMap<>(Operation.class);
+            for (Operation operation : Operation.values()) {
+                List<LatencyRecorder> recorders = new ArrayList<>();
+                clients.forEach(client -> recorders.add(client.recorders.get(operation)));
+                merged.put(operation, LatencyRecorder.merge(recorders));
+            }
+            return merged;
+        }
+    }
+
+    private String login(HttpClient httpClient, int userNumber) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(loginRequest(userNumber), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login of " + DatasetSeeder.username(userNumber) + " failed with "
+                    + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private HttpRequest loginRequest(int userNumber) throws IOException {
+        ObjectNode body = objectMapper.createObjectNode()
+                .put("username", DatasetSeeder.username(userNumber))
+                .put("password", settings.getPassword());
+        return HttpRequest.newBuilder(baseUri.resolve("/api/auth/login"))
+                .timeout(settings.getRequestTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    /**
+     * One simulated user.
+     */
+    private final class Client {
+
+        private final int index;
+        private final HttpClient httpClient;
+        private final String token;
+        private final SplittableRandom random;
+        private final Map<Operation, LatencyRecorder> recorders = new EnumMap<>(Operation.class);
+
+        private Client(int index, HttpClient httpClient, String token) {
+            this.index = index;
+            this.httpClient = httpClient;
+            this.token = token;
+            this.random = new SplittableRandom(settings.getRandomSeed() + index);
+            for (Operation operation : Operation.values()) {
+                recorders.put(operation, new LatencyRecorder());
+            }
+        }
+
+        private void run(long measureFrom, long measureUntil) {
+            while (System.nanoTime() < measureUntil) {
+                Operation operation = weightedOperations[random.nextInt(weightedOperations.length)];
+                HttpRequest request;
+                try {
+                    // Built before the clock starts, uploads encode an image here
+                    request = buildRequest(operation);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Could not build a " + operation.getKey() + " request", e);
+                }
+
+                long start = System.nanoTime();
+                boolean success;
+                try {
+                    HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                    success = response.statusCode() == (operation == Operation.UPLOAD ? 201 : 200);
+                } catch (IOException e) {
+                    success = false;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long end = System.nanoTime();
+
+                if (start >= measureFrom && end <= measureUntil) {
+                    if (success) {
+                        recorders.get(operation).recordSuccess(end - start);
+                    } else {
+                        recorders.get(operation).recordError();
+                    }
+                }
+            }
+        }
+
+        private HttpRequest buildRequest(Operation operation) throws IOException {
+            return switch (operation) {
+                case SEARCH -> authorized("/api/ads/search/paginated?" + searchQuery()).GET().build();
+                case DETAIL -> authorized("/api/ads/" + (1 + random.nextInt(settings.getAds()))).GET().build();
+                case LOGIN -> loginRequest(1 + random.nextInt(settings.getUsers()));
+                case UPLOAD -> uploadRequest();
+            };
+        }
+
+        /**
+         * A search as the frontend sends it: one or two filters, mostly the first page.
+         */
+        private String searchQuery() {
+            StringJoiner query = new StringJoiner("&");
+            int filter = random.nextInt(10);
+            if (filter < 4) {
+                query.add("title=" + encode(DatasetSeeder.ITEMS[random.nextInt(DatasetSeeder.ITEMS.length)]));
+            } else if (filter < 7) {
+                query.add("categoryName=" + encode(DatasetSeeder.CATEGORIES[random.nextInt(DatasetSeeder.CATEGORIES.length)]));
+            } else {
+                query.add("cityName=" + encode(DatasetSeeder.CITIES[random.nextInt(DatasetSeeder.CITIES.length)]));
+            }
+            if (random.nextInt(5) == 0) {
+                int minPrice = 10 * random.nextInt(50);
+                query.add("minPrice=" + minPrice).add("maxPrice=" + (minPrice + 200));
+            }
+            if (random.nextBoolean()) {
+                query.add("isAvailable=true");
+            }
+            query.add("page=" + (random.nextInt(5) == 0 ? 1 + random.nextInt(5) : 0));
+            query.add("pageSize=12");
+            query.add("sortBy=" + SORT_COLUMNS[random.nextInt(SORT_COLUMNS.length)]);
+            query.add("sortDirection=" + (random.nextBoolean() ? "asc" : "desc"));
+            return query.toString();
+        }
+
+        private HttpRequest uploadRequest() throws IOException {
+            String boundary = "loadtest-" + UUID.randomUUID();
+            ObjectNode ad = objectMapper.createObjectNode()
+                    .put("title", "Load test " + DatasetSeeder.ITEMS[random.nextInt(DatasetSeeder.ITEMS.length)])
+                    .put("categoryName", DatasetSeeder.CATEGORIES[random.nextInt(DatasetSeeder.CATEGORIES.length)])
+                    .put("cityName", DatasetSeeder.CITIES[random.nextInt(DatasetSeeder.CITIES.length)])
+                    .put("condition", "GOOD")
+                    .put("price", 10 + random.nextInt(500))
+                    .put("isAvailable", true)
+                    .put("description", "Uploaded by load test client " + index);
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            writePart(body, boundary, "ad", null, "application/json", objectMapper.writeValueAsBytes(ad));
+            writePart(body, boundary, "image", "photo.jpg", "image/jpeg", randomJpeg());
+            body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+            return authorized("/api/ads/save")
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                    .build();
+        }
+
+        /**
+         * A photo-sized JPEG with random blocks, so uploads are not deduplicated.
+         */
+        private byte[] randomJpeg() throws IOException {
+            BufferedImage image = new BufferedImage(1280, 960, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = image.createGraphics();
+            try {
+                for (int i = 0; i < 40; i++) {
+                    graphics.setColor(new Color(random.nextInt(0x1000000)));
+                    graphics.fillRect(random.nextInt(1280), random.nextInt(960), 40 + random.nextInt(400),
+                            40 + random.nextInt(300));
+                }
+            } finally {
+                graphics.dispose();
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", out);
+            return out.toByteArray();
+        }
+
+        private void writePart(ByteArrayOutputStream body, String boundary, String name, String filename,
+                               String contentType, byte[] content) throws IOException {
+            String header = "--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"" + name + "\""
+                    + (filename != null ? "; filename=\"" + filename + "\"" : "") + "\r\n"
+                    + "Content-Type: " + contentType + "\r\n\r\n";
+            body.write(header.getBytes(StandardCharsets.UTF_8));
+            body.write(content);
+            body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        private HttpRequest.Builder authorized(String path) {
+            return HttpRequest.newBuilder(baseUri.resolve(path))
+                    .timeout(settings.getRequestTimeout())
+                    .header("Authorization", "Bearer " + token);
+        }
+
+        private String encode(String value) {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8);
+        }
+    }
+}
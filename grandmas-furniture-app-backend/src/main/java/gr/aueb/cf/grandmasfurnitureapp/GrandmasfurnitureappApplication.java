@@ -3,9 +3,11 @@ package gr.aueb.cf.grandmasfurnitureapp;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication // Marks this class as the primary configuration class and enables component scanning
 @EnableJpaAuditing // Enables auditing for JPA entities (e.g., @CreatedDate, @LastModifiedDate)
+@EnableScheduling // Enables background jobs (e.g., retrying pending image uploads)
 public class GrandmasfurnitureappApplication {
 
 
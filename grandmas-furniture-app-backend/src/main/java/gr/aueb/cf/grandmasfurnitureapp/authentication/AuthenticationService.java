@@ -1,37 +1,143 @@
 package gr.aueb.cf.grandmasfurnitureapp.authentication;
 
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotAuthorizedException;
+import gr.aueb.cf.grandmasfurnitureapp.config.RateLimitProperties;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppServiceUnavailableException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppTooManyRequestsException;
 import gr.aueb.cf.grandmasfurnitureapp.dto.AuthenticationRequestDTO;
 import gr.aueb.cf.grandmasfurnitureapp.dto.AuthenticationResponseDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.RefreshTokenRequestDTO;
 import gr.aueb.cf.grandmasfurnitureapp.model.*;
 import gr.aueb.cf.grandmasfurnitureapp.repository.UserRepository;
 import gr.aueb.cf.grandmasfurnitureapp.security.JwtService;
+import gr.aueb.cf.grandmasfurnitureapp.security.PasswordHashingService;
+import gr.aueb.cf.grandmasfurnitureapp.security.RateLimiter;
+import gr.aueb.cf.grandmasfurnitureapp.security.TokenRevocationService;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 
+
+/**
+ * Service for user login, token refresh and logout.
+ * Loads the user once and checks the password on the hashing pool, so request
+ * threads only wait for BCrypt instead of running it. Access tokens are short-lived;
+ * clients renew them with a rotating refresh token instead of logging in again.
+ */
 @Service
 @RequiredArgsConstructor
 public class AuthenticationService {
 
-    private final AuthenticationManager authenticationManager;
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthenticationService.class);
+
     private final JwtService jwtService;
     private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties rateLimitProperties;
+
+
+    /**
+     * Checks the credentials and starts a session.
+     *
+     * @param dto The username and password
+     * @param clientAddress Address of the client, keys the failed-login limit
+     * @return The access and refresh token
+     */
+    public AuthenticationResponseDTO authenticate(AuthenticationRequestDTO dto, String clientAddress)
+            throws AppObjectNotAuthorizedException, AppServiceUnavailableException, AppTooManyRequestsException {
+
+        // Only failed attempts are charged, and per address, so nobody can lock another client out
+        // of an account by failing on purpose. The per-IP route limit stays the flood guard.
+        String failureKey = rateLimitProperties.isEnabled() && dto.getUsername() != null
+                ? "login-failure:" + dto.getUsername().toLowerCase() + ":" + clientAddress
+                : null;
+        if (failureKey != null) {
+            long retryAfter = rateLimiter.retryAfter(failureKey);
+            if (retryAfter > 0) {
+                LOGGER.warn("Failed login limit exceeded for username: {} from {}", dto.getUsername(), clientAddress);
+                throw new AppTooManyRequestsException("Authentication", "Too many failed login attempts", retryAfter);
+            }
+        }
+
+        User user = userRepository.findByUsername(dto.getUsername()).orElse(null);
+        String storedHash = user != null ? user.getPassword() : null;
 
+        // Runs for unknown users too, so response times don't reveal which usernames exist
+        if (dto.getPassword() == null || !passwordHashingService.matches(dto.getPassword(), storedHash)) {
+            if (failureKey != null) {
+                rateLimiter.tryAcquire(failureKey, rateLimitProperties.getLoginUsername());
+            }
+            throw new BadCredentialsException("Invalid username or password");
+        }
 
-    public AuthenticationResponseDTO authenticate(AuthenticationRequestDTO dto)
-            throws AppObjectNotAuthorizedException {
+        if (!user.isEnabled() || !user.isAccountNonLocked() || !user.isAccountNonExpired()) {
+            throw new AppObjectNotAuthorizedException("User", "User not authorized");
+        }
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(dto.getUsername(), dto.getPassword()));
+        if (passwordHashingService.needsRehash(storedHash)) {
+            passwordHashingService.encodeInBackground(dto.getPassword(), newHash -> {
+                if (userRepository.replacePasswordHash(user.getId(), storedHash, newHash) > 0) {
+                    LOGGER.info("Re-encoded password hash of user ID: {} with the current cost", user.getId());
+                }
+            });
+        }
 
-        User user = userRepository.findByUsername(authentication.getName())
-                .orElseThrow(() -> new AppObjectNotAuthorizedException("User", "User not authorized"));
+        return buildResponse(user, refreshTokenService.issue(user));
+    }
+
+    /**
+     * Issues a new access token and replaces the refresh token.
+     *
+     * @param dto containing the current refresh token
+     * @return The new access and refresh token
+     * @throws AppObjectNotAuthorizedException if the refresh token is not valid or the user is disabled
+     */
+    public AuthenticationResponseDTO refresh(RefreshTokenRequestDTO dto) throws AppObjectNotAuthorizedException {
+        RefreshTokenService.RotatedToken rotated = refreshTokenService.rotate(dto.getRefreshToken());
+        User user = rotated.getUser();
+        if (!user.isEnabled() || !user.isAccountNonLocked() || !user.isAccountNonExpired()) {
+            throw new AppObjectNotAuthorizedException("User", "User not authorized");
+        }
+        return buildResponse(user, rotated.getRefreshToken());
+    }
+
+    /**
+     * Revokes the refresh token family and, if given, the access token.
+     *
+     * @param dto containing the refresh token
+     * @param accessToken The current access token, may be null
+     */
+    public void logout(RefreshTokenRequestDTO dto, String accessToken) {
+        refreshTokenService.revoke(dto.getRefreshToken());
+
+        if (accessToken != null) {
+            try {
+                tokenRevocationService.revoke(jwtService.extractTokenId(accessToken),
+                        LocalDateTime.ofInstant(jwtService.extractExpiration(accessToken).toInstant(), ZoneId.systemDefault()));
+            } catch (JwtException | IllegalArgumentException e) {
+                // Expired or invalid, nothing left to revoke
+                LOGGER.debug("Ignoring unusable access token on logout");
+            }
+        }
+    }
 
-        String token = jwtService.generateToken(authentication.getName(), user.getRole().name());
-        return new AuthenticationResponseDTO(user.getFirstName(), user.getLastName(), token, user.getRole().name());
+    private AuthenticationResponseDTO buildResponse(User user, String refreshToken) {
+        return AuthenticationResponseDTO.builder()
+                .firstname(user.getFirstName())
+                .lastname(user.getLastName())
+                .token(jwtService.generateToken(user.getUsername(), user.getRole().name()))
+                .role(user.getRole().name())
+                .refreshToken(refreshToken)
+                .expiresIn(jwtService.getExpirationMs() / 1000)
+                .build();
     }
 }
@@ -1,7 +1,12 @@
 package gr.aueb.cf.grandmasfurnitureapp.authentication;
 
+import gr.aueb.cf.grandmasfurnitureapp.core.logging.AccessLogFilter;
 import gr.aueb.cf.grandmasfurnitureapp.security.JwtService;
+import gr.aueb.cf.grandmasfurnitureapp.security.TokenRevocationService;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -10,6 +15,7 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -33,6 +39,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger LOGGER = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final MeterRegistry meterRegistry;
+
+    private Timer authenticationTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        authenticationTimer = Timer.builder("app.auth.token.authentication")
+                .description("Time to verify a bearer token and load its user")
+                .register(meterRegistry);
+    }
 
     /**
      * Intercepts and processes incoming requests to validate JWT tokens.
@@ -62,19 +79,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // Continue the filter chain if the header is missing or invalid
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             LOGGER.debug("Missing or malformed authorization header");
+            countOutcome("missing");
             filterChain.doFilter(request, response);
             return;
         }
 
         // Extract the JWT token from the Authorization header
         jwt = authHeader.substring(7);
-        LOGGER.info("Extracted JWT: {}", jwt);
-
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             // Extract username from the token
             username = jwtService.extractSubject(jwt);
 
+            // Revoked on logout; checked in memory, without a database round trip
+            if (tokenRevocationService.isRevoked(jwtService.extractTokenId(jwt))) {
+                LOGGER.warn("Rejected revoked token for user: {}", username);
+                countOutcome("revoked");
+                response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                response.setContentType("application/json");
+                response.getWriter().write("{\"code\": \"revoked token\", \"description\": \"Token has been revoked\"}");
+                return;
+            }
+
             // Authenticate if the user is not already authenticated
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
@@ -87,15 +114,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                             userDetails.getAuthorities()
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    LOGGER.info("Populating SecurityContextHolder for user: {}", username);
+                    LOGGER.debug("Populating SecurityContextHolder for user: {}", username);
                     SecurityContextHolder.getContext().setAuthentication(authToken);
+                    MDC.put(AccessLogFilter.MDC_USER, username);
+                    countOutcome("authenticated");
                 } else {
                     LOGGER.warn("Token is not valid {}", request.getRequestURI());
+                    countOutcome("rejected");
                 }
             }
         } catch (ExpiredJwtException e) {
             // Handle expired token exception and respond with 401 Unauthorized
-            LOGGER.warn("WARN: Token is expired ", e);
+            // Routine for short-lived tokens, so no stack trace
+            LOGGER.debug("Token is expired for request {}", request.getRequestURI());
+            countOutcome("expired");
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
             response.setContentType("application/json");
             String jsonBody = "{\"code\": \"expired token\", \"message\": \"" + e.getMessage() + "\"}";
@@ -103,15 +135,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         } catch (Exception e) {
             // Handle general token parsing or validation errors
-            LOGGER.warn("WARN: Something went wrong while parsing JWT ", e);
+            // The exception message may quote parts of the token
+            LOGGER.warn("Could not parse JWT for request {}: {}", request.getRequestURI(), e.getClass().getSimpleName());
+            countOutcome("invalid");
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
             response.setContentType("application/json");
             String jsonBody = "{\"code\": \"invalid token\", \"description\": \"" + e.getMessage() + "\"}";
             response.getWriter().write(jsonBody);
             return;
+        } finally {
+            sample.stop(authenticationTimer);
         }
 
         // Continue the request processing if no issues occur
         filterChain.doFilter(request, response);
     }
+
+    private void countOutcome(String outcome) {
+        meterRegistry.counter("app.auth.tokens", "outcome", outcome).increment();
+    }
 }
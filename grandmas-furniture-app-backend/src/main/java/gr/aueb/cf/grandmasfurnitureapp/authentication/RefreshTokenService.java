@@ -0,0 +1,137 @@
+package gr.aueb.cf.grandmasfurnitureapp.authentication;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotAuthorizedException;
+import gr.aueb.cf.grandmasfurnitureapp.model.RefreshToken;
+import gr.aueb.cf.grandmasfurnitureapp.model.User;
+import gr.aueb.cf.grandmasfurnitureapp.repository.RefreshTokenRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Service for refresh tokens.
+ *
+ * <p>Refresh tokens are random strings; only their SHA-256 hash is stored. Every refresh
+ * uses up the presented token and returns a new one of the same family. Presenting a used
+ * token again means it leaked, so the whole family is revoked and its holder has to log in.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${app.security.refresh-token.ttl-ms:1209600000}")
+    private long refreshTokenTtlMs;
+
+    /**
+     * Starts a new token family, on login.
+     *
+     * @param user The authenticated user
+     * @return The refresh token to hand to the client
+     */
+    public String issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Uses up a refresh token and issues its successor.
+     *
+     * @param rawToken The refresh token presented by the client
+     * @return The token's user and the new refresh token
+     * @throws AppObjectNotAuthorizedException if the token is unknown, expired, revoked or already used
+     */
+    @Transactional(noRollbackFor = AppObjectNotAuthorizedException.class)
+    public RotatedToken rotate(String rawToken) throws AppObjectNotAuthorizedException {
+        RefreshToken token = refreshTokenRepository.findByTokenHash(hash(rawToken))
+                .orElseThrow(() -> new AppObjectNotAuthorizedException("Token", "Invalid refresh token"));
+
+        LocalDateTime now = LocalDateTime.now();
+        if (token.isRevoked() || token.getExpiresAt().isBefore(now)) {
+            throw new AppObjectNotAuthorizedException("Token", "Invalid refresh token");
+        }
+
+        if (refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), now);
+            LOGGER.warn("Refresh token reuse detected for user ID: {}, revoked token family {}",
+                    token.getUser().getId(), token.getFamilyId());
+            throw new AppObjectNotAuthorizedException("Token", "Invalid refresh token");
+        }
+
+        User user = token.getUser();
+        return new RotatedToken(user, issue(user, token.getFamilyId()));
+    }
+
+    /**
+     * Revokes the family of a refresh token, on logout. Unknown tokens are ignored.
+     *
+     * @param rawToken The refresh token presented by the client
+     */
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(hash(rawToken)).ifPresent(token -> {
+            refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now());
+            LOGGER.info("Revoked refresh token family {}", token.getFamilyId());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.refresh-token.cleanup-interval-ms:3600000}")
+    public void purgeExpiredTokens() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            LOGGER.info("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String issue(User user, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(hash(rawToken));
+        token.setFamilyId(familyId);
+        token.setExpiresAt(LocalDateTime.now().plus(Duration.ofMillis(refreshTokenTtlMs)));
+        refreshTokenRepository.save(token);
+        return rawToken;
+    }
+
+    private String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Result of a refresh: the user and the successor token.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RotatedToken {
+        private final User user;
+        private final String refreshToken;
+    }
+}
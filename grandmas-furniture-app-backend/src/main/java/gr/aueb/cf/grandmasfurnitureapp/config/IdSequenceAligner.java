@@ -0,0 +1,62 @@
+package gr.aueb.cf.grandmasfurnitureapp.config;
+
+import gr.aueb.cf.grandmasfurnitureapp.model.AbstractEntity;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Moves the ID sequences of ads, attachments and gallery images past the existing rows.
+ *
+ * <p>These entities used to take their IDs from AUTO_INCREMENT columns. MySQL has no
+ * sequences, so Hibernate keeps each one in a single-row table ({@code ads_seq} etc.),
+ * which it creates starting at 1 on a database that already has rows. Hibernate's pooled
+ * optimizer hands out the {@link AbstractEntity#ID_ALLOCATION_SIZE} IDs below the value
+ * it reads, so the value must be at least the highest ID plus the block size.</p>
+ */
+@Component
+// The EntityManagerFactory creates the sequence tables on startup
+@DependsOn("entityManagerFactory")
+public class IdSequenceAligner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdSequenceAligner.class);
+
+    // Table -> sequence table
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "ads", "ads_seq",
+            "attachments", "attachments_seq",
+            "ad_images", "ad_images_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    void align() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(database)) {
+            // Databases with real sequences are created fresh by Hibernate
+            return;
+        }
+
+        SEQUENCES.forEach((table, sequence) -> {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+            if (maxId == null) {
+                return;
+            }
+            long floor = maxId + AbstractEntity.ID_ALLOCATION_SIZE;
+            if (jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", floor, floor) > 0) {
+                LOGGER.info("Moved ID sequence {} past the existing {} rows to {}", sequence, table, floor);
+            }
+        });
+    }
+}
@@ -0,0 +1,66 @@
+package gr.aueb.cf.grandmasfurnitureapp.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limits, bound from {@code app.rate-limit.*}.
+ * Each route is a token bucket of {@code capacity} requests, refilled by
+ * {@code refill-tokens} every {@code refill-period}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Upper bound of tracked buckets, and so of the limiter's memory
+    private int maxBuckets = 100_000;
+
+    // Number of locks the buckets are spread over
+    private int stripes = 64;
+
+    // How often buckets that have refilled completely are dropped
+    private Duration cleanupInterval = Duration.ofMinutes(1);
+
+    private List<Route> routes = new ArrayList<>();
+
+    // Failed logins per username and client address, on top of the per-IP route limit
+    private Limit loginUsername = new Limit(5, 5, Duration.ofMinutes(5));
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private int capacity;
+        private int refillTokens;
+        private Duration refillPeriod;
+    }
+
+    @Getter
+    @Setter
+    public static class Route extends Limit {
+        private String name;
+        // HTTP method, null for any
+        private String method;
+        // Ant-style pattern matched against the servlet path
+        private String path;
+        private KeyType key = KeyType.IP;
+    }
+
+    public enum KeyType {
+        // Client address
+        IP,
+        // Authenticated username, the client address for anonymous requests
+        USER
+    }
+}
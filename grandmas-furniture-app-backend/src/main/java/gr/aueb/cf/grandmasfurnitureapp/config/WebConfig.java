@@ -1,22 +1,37 @@
 package gr.aueb.cf.grandmasfurnitureapp.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.aueb.cf.grandmasfurnitureapp.core.timing.TimingJackson2HttpMessageConverter;
+import gr.aueb.cf.grandmasfurnitureapp.rest.ImageServingHandler;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
 
 /**
  * Configuration for serving uploaded ad images and CORS.
- * Maps /uploads/** URLs to files in src/main/resources/uploads/
+ * Maps /uploads/** URLs to files in src/main/resources/uploads/ through
+ * {@link ImageServingHandler}.
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:src/main/resources/uploads/")
-                .addResourceLocations("classpath:/uploads/");
+    @Bean
+    public SimpleUrlHandlerMapping imageHandlerMapping(ImageServingHandler imageServingHandler) {
+        // Ahead of the default resource handling, which would otherwise claim /**
+        return new SimpleUrlHandlerMapping(Map.of("/uploads/**", imageServingHandler), 0);
+    }
+
+    /**
+     * Replaces Boot's JSON converter with one that reports serialization time in Server-Timing.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimingJackson2HttpMessageConverter(objectMapper);
     }
 
     @Override
@@ -28,8 +43,10 @@ public class WebConfig implements WebMvcConfigurer {
                         "http://localhost:4200",
                         "http://localhost:8081"
                 )
-                .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
+                .allowedMethods("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS")
                 .allowedHeaders("*")
+                .exposedHeaders("Location", "Tus-Resumable", "Upload-Offset", "Upload-Length", "Upload-Content-Hash",
+                        "X-Request-Id", "Server-Timing", "ETag")
                 .allowCredentials(true)
                 .maxAge(3600);
     }
@@ -3,6 +3,8 @@ package gr.aueb.cf.grandmasfurnitureapp.core;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.*;
 import gr.aueb.cf.grandmasfurnitureapp.dto.ResponseMessageDTO;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -40,6 +42,25 @@ public class ErrorHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(new ResponseMessageDTO(e.getCode(), e.getMessage()), HttpStatus.CONFLICT);
     }
 
+    @ExceptionHandler({AppObjectConflictException.class})
+    public ResponseEntity<ResponseMessageDTO> handleConstraintViolationException(AppObjectConflictException e) {
+        return new ResponseEntity<>(new ResponseMessageDTO(e.getCode(), e.getMessage()), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler({AppPreconditionFailedException.class})
+    public ResponseEntity<ResponseMessageDTO> handleConstraintViolationException(AppPreconditionFailedException e) {
+        return new ResponseEntity<>(new ResponseMessageDTO(e.getCode(), e.getMessage()), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // Another transaction updated the same row between our read and our write
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ResponseMessageDTO> handleOptimisticLockingFailureException(OptimisticLockingFailureException e) {
+        return new ResponseEntity<>(
+            new ResponseMessageDTO("concurrentModification", "The resource was changed by another request, fetch it again"),
+            HttpStatus.PRECONDITION_FAILED
+        );
+    }
+
     @ExceptionHandler({AppObjectInvalidArgumentException.class})
     public ResponseEntity<ResponseMessageDTO> handleConstraintViolationException(AppObjectInvalidArgumentException e) {
         return new ResponseEntity<>(new ResponseMessageDTO(e.getCode(), e.getMessage()), HttpStatus.BAD_REQUEST);
@@ -55,6 +76,20 @@ public class ErrorHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(new ResponseMessageDTO(e.getCode(), e.getMessage()), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler({AppServiceUnavailableException.class})
+    public ResponseEntity<ResponseMessageDTO> handleConstraintViolationException(AppServiceUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ResponseMessageDTO(e.getCode(), e.getMessage()));
+    }
+
+    @ExceptionHandler({AppTooManyRequestsException.class})
+    public ResponseEntity<ResponseMessageDTO> handleConstraintViolationException(AppTooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ResponseMessageDTO(e.getCode(), e.getMessage()));
+    }
+
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<ResponseMessageDTO> handleBadCredentialsException(BadCredentialsException e) {
         return new ResponseEntity<>(
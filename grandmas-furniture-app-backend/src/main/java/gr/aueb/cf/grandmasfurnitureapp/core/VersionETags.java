@@ -0,0 +1,78 @@
+package gr.aueb.cf.grandmasfurnitureapp.core;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppPreconditionFailedException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Converts between entity versions and the ETag / If-Match headers of the REST API.
+ *
+ * <p>The ETag of a user is its {@code @Version} as a strong tag, e.g. {@code "3"}. The ETag
+ * of an ad adds a digest of the response body, e.g. {@code "3-9f2c1ab04d7e6a31"}, because
+ * the body also changes when image processing finishes or the owner is edited, neither of
+ * which bumps the ad's version. Clients send the tag back in If-Match; an update then only
+ * applies to the version the client saw, and fails with 412 instead of overwriting a newer
+ * change.</p>
+ */
+public final class VersionETags {
+
+    private VersionETags() {
+
+    }
+
+    /**
+     * Formats a version as a strong ETag.
+     *
+     * @param version The entity version
+     * @return The quoted tag
+     */
+    public static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Formats a version and a digest of the representation as a strong ETag.
+     *
+     * @param version The entity version
+     * @param representation The serialized response body
+     * @return The quoted tag
+     */
+    public static String of(long version, byte[] representation) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(representation);
+            return "\"" + version + "-" + HexFormat.of().formatHex(digest, 0, 8) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Reads the version an If-Match header expects.
+     *
+     * @param ifMatch The header value, may be null
+     * @param resource Name of the resource, used for the error code
+     * @return The expected version, or null if the header is absent or {@code *}
+     * @throws AppPreconditionFailedException if the header is not a single strong tag of this API,
+     *         which can never match
+     */
+    public static Long expectedVersion(String ifMatch, String resource) throws AppPreconditionFailedException {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String value = tag.substring(1, tag.length() - 1);
+            int digestStart = value.indexOf('-');
+            try {
+                // Only the version decides, the digest part may differ after image processing
+                return Long.parseLong(digestStart > 0 ? value.substring(0, digestStart) : value);
+            } catch (NumberFormatException e) {
+                // Falls through, not one of our tags
+            }
+        }
+        throw new AppPreconditionFailedException(resource, "If-Match " + tag + " does not match the current version");
+    }
+}
@@ -0,0 +1,11 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.enums;
+
+/**
+ * Processing states of an uploaded attachment.
+ */
+public enum AttachmentStatus {
+    PENDING,
+    PROCESSING,
+    READY,
+    FAILED
+}
@@ -0,0 +1,42 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.enums;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Input formats of the bulk ad import.
+ */
+public enum ImportFormat {
+    // Header row with the AdInsertDTO field names, then one ad per row
+    CSV("text/csv"),
+    // One AdInsertDTO JSON object per line
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    ImportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Picks the format for a request's content type, ignoring parameters such as the charset.
+     *
+     * @param contentType The Content-Type header
+     * @return The format, or null if none matches
+     */
+    public static ImportFormat fromContentType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        MediaType requested = MediaType.parseMediaType(contentType);
+        for (ImportFormat format : values()) {
+            if (MediaType.parseMediaType(format.mediaType).equalsTypeAndSubtype(requested)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,9 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.exceptions;
+
+public class AppObjectConflictException extends AppGenericException {
+    private static final String DEFAULT_CODE = "Conflict";
+
+    public AppObjectConflictException(String code, String message) {
+        super(code + DEFAULT_CODE, message);
+    }
+}
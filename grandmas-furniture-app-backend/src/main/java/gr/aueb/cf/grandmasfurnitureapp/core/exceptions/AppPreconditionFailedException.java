@@ -0,0 +1,9 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.exceptions;
+
+public class AppPreconditionFailedException extends AppGenericException {
+    private static final String DEFAULT_CODE = "PreconditionFailed";
+
+    public AppPreconditionFailedException(String code, String message) {
+        super(code + DEFAULT_CODE, message);
+    }
+}
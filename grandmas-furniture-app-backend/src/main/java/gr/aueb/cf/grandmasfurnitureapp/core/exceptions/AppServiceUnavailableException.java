@@ -0,0 +1,9 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.exceptions;
+
+public class AppServiceUnavailableException extends AppGenericException {
+    private static final String DEFAULT_CODE = "ServiceUnavailable";
+
+    public AppServiceUnavailableException(String code, String message) {
+        super(code + DEFAULT_CODE, message);
+    }
+}
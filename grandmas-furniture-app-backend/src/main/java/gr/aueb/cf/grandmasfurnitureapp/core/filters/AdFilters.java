@@ -6,6 +6,7 @@ import lombok.*;
 import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.util.StringJoiner;
 
 /**
  * Filter criteria for ad search operations.
@@ -95,4 +96,22 @@ public class AdFilters extends GenericFilters {
         }
         return super.getSortDirection();
     }
+
+    @Override
+    public String describeFilters() {
+        StringJoiner shape = new StringJoiner(",");
+        if (title != null && !title.isBlank()) shape.add("title");
+        if (description != null && !description.isBlank()) shape.add("description");
+        if (categoryId != null || (categoryName != null && !categoryName.isBlank())) shape.add("category");
+        if (condition != null) shape.add("condition");
+        if (minPrice != null || maxPrice != null) {
+            shape.add("price:" + (minPrice != null ? "min" : "") + (minPrice != null && maxPrice != null ? "-" : "")
+                    + (maxPrice != null ? "max" : ""));
+        }
+        if (cityId != null || (cityName != null && !cityName.isBlank())) shape.add("city");
+        if (userId != null) shape.add("user");
+        if (isAvailable != null) shape.add("available=" + isAvailable);
+        if (Boolean.TRUE.equals(myAds)) shape.add("myAds");
+        return shape.length() > 0 ? shape.toString() : "none";
+    }
 }
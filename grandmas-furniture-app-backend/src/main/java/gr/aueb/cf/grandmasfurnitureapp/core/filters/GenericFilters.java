@@ -49,5 +49,32 @@ public abstract class GenericFilters {
     public Pageable getPageable() {
         return PageRequest.of(getPage(), getPageSize(), getSort());
     }
+
+    /**
+     * Describes which filters are set, without their values, so searches that produce
+     * the same query plan are grouped in the slow-query log.
+     *
+     * @return The filter part of the shape, e.g. {@code title,price:min-max}
+     */
+    public abstract String describeFilters();
+
+    /**
+     * Describes the filters together with sorting and paging.
+     *
+     * @return e.g. {@code title,price:min-max;sort=price:ASC;size=10;page=first}
+     */
+    public String describeShape() {
+        return describeFilters() + ";" + describePaging();
+    }
+
+    /**
+     * Describes sorting and paging. Pages from the tenth on are reported as deep,
+     * since their offsets scan many more rows.
+     */
+    protected String describePaging() {
+        return "sort=" + getSortBy() + ":" + getSortDirection()
+                + ";size=" + getPageSize()
+                + ";page=" + (getPage() == 0 ? "first" : getPage() < 10 ? "near" : "deep");
+    }
 }
 
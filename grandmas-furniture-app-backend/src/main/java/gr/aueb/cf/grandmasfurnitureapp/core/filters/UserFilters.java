@@ -5,6 +5,8 @@ import org.springframework.data.domain.Pageable;
 import jakarta.annotation.Nullable;
 import lombok.*;
 
+import java.util.StringJoiner;
+
 /**
  * Filter criteria for user search operations.
  * Contains optional filters for user attributes and status.
@@ -38,4 +40,16 @@ public class UserFilters extends GenericFilters {
     @Nullable
     private Boolean isActive;
 
+    @Override
+    public String describeFilters() {
+        StringJoiner shape = new StringJoiner(",");
+        if (username != null && !username.isBlank()) shape.add("username");
+        if (firstName != null && !firstName.isBlank()) shape.add("firstName");
+        if (lastName != null && !lastName.isBlank()) shape.add("lastName");
+        if (email != null && !email.isBlank()) shape.add("email");
+        if (phone != null && !phone.isBlank()) shape.add("phone");
+        if (role != null) shape.add("role");
+        if (isActive != null) shape.add("active=" + isActive);
+        return shape.length() > 0 ? shape.toString() : "none";
+    }
 }
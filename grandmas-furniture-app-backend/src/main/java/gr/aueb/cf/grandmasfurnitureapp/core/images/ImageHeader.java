@@ -0,0 +1,20 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.images;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.ImageFormat;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Format and pixel dimensions of an image, as declared in its header.
+ */
+@Getter
+@AllArgsConstructor
+public class ImageHeader {
+    private final ImageFormat format;
+    private final int width;
+    private final int height;
+
+    public long getPixels() {
+        return (long) width * height;
+    }
+}
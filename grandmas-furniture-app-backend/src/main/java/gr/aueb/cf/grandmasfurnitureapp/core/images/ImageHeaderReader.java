@@ -0,0 +1,147 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.images;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.ImageFormat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads image dimensions from file headers without decoding any pixels.
+ * Only a few small header blocks are read; JPEG segments in front of the frame
+ * header are skipped by seeking, so the cost does not grow with the file size.
+ */
+public final class ImageHeaderReader {
+
+    // Upper bound on JPEG segments before the frame header, guards against crafted files
+    private static final int MAX_JPEG_SEGMENTS = 1024;
+
+    private ImageHeaderReader() {
+    }
+
+    /**
+     * Reads the dimensions of an image file of a known format.
+     *
+     * @param path The image file
+     * @param format The format sniffed from its magic bytes
+     * @return The header, or null if it is truncated or malformed
+     */
+    public static ImageHeader read(Path path, ImageFormat format) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            switch (format) {
+                case PNG:
+                    return readPng(channel);
+                case GIF:
+                    return readGif(channel);
+                case WEBP:
+                    return readWebp(channel);
+                case JPEG:
+                    return readJpeg(channel);
+                default:
+                    return null;
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static ImageHeader readPng(FileChannel channel) throws IOException {
+        // Signature (8), IHDR length (4) and type (4), then width and height
+        ByteBuffer ihdr = readAt(channel, 12, 12);
+        if (ihdr.getInt(0) != 0x49484452) { // "IHDR"
+            return null;
+        }
+        return header(ImageFormat.PNG, ihdr.getInt(4), ihdr.getInt(8));
+    }
+
+    private static ImageHeader readGif(FileChannel channel) throws IOException {
+        ByteBuffer screen = readAt(channel, 6, 4).order(ByteOrder.LITTLE_ENDIAN);
+        return header(ImageFormat.GIF, screen.getShort(0) & 0xFFFF, screen.getShort(2) & 0xFFFF);
+    }
+
+    private static ImageHeader readWebp(FileChannel channel) throws IOException {
+        // RIFF header (12), first chunk type at 12, chunk data from 20
+        ByteBuffer chunk = readAt(channel, 12, 18).order(ByteOrder.LITTLE_ENDIAN);
+        String type = new String(new byte[]{chunk.get(0), chunk.get(1), chunk.get(2), chunk.get(3)},
+                StandardCharsets.US_ASCII);
+
+        switch (type) {
+            case "VP8 ":
+                // Lossy: frame tag (3) and start code (3), then 14 bit width and height
+                return header(ImageFormat.WEBP, chunk.getShort(14) & 0x3FFF, chunk.getShort(16) & 0x3FFF);
+            case "VP8L": {
+                // Lossless: signature byte, then width-1 and height-1 packed in 14 bits each
+                int bits = chunk.getInt(9);
+                return header(ImageFormat.WEBP, (bits & 0x3FFF) + 1, ((bits >> 14) & 0x3FFF) + 1);
+            }
+            case "VP8X":
+                // Extended: flags (4), then 24 bit canvas width-1 and height-1
+                return header(ImageFormat.WEBP, uint24(chunk, 12) + 1, uint24(chunk, 15) + 1);
+            default:
+                return null;
+        }
+    }
+
+    private static ImageHeader readJpeg(FileChannel channel) throws IOException {
+        long position = 2; // after SOI
+        for (int segment = 0; segment < MAX_JPEG_SEGMENTS; segment++) {
+            ByteBuffer marker = readAt(channel, position, 2);
+            if ((marker.get(0) & 0xFF) != 0xFF) {
+                return null;
+            }
+            int type = marker.get(1) & 0xFF;
+            if (type == 0xFF) {
+                position++; // fill byte
+                continue;
+            }
+            position += 2;
+
+            if (type == 0x01 || (type >= 0xD0 && type <= 0xD8)) {
+                continue; // markers without a payload
+            }
+            if (type == 0xD9 || type == 0xDA) {
+                return null; // end of image or scan data before any frame header
+            }
+
+            int length = readAt(channel, position, 2).getShort(0) & 0xFFFF;
+            if (length < 2) {
+                return null;
+            }
+            if (isStartOfFrame(type)) {
+                // Length (2), precision (1), height (2), width (2)
+                ByteBuffer frame = readAt(channel, position + 3, 4);
+                return header(ImageFormat.JPEG, frame.getShort(2) & 0xFFFF, frame.getShort(0) & 0xFFFF);
+            }
+            position += length;
+        }
+        return null;
+    }
+
+    private static boolean isStartOfFrame(int type) {
+        // SOF0-SOF15, except DHT (C4), JPG (C8) and DAC (CC) which share the range
+        return type >= 0xC0 && type <= 0xCF && type != 0xC4 && type != 0xC8 && type != 0xCC;
+    }
+
+    private static ImageHeader header(ImageFormat format, int width, int height) {
+        return width > 0 && height > 0 ? new ImageHeader(format, width, height) : null;
+    }
+
+    private static int uint24(ByteBuffer buffer, int index) {
+        return (buffer.get(index) & 0xFF) | (buffer.get(index + 1) & 0xFF) << 8 | (buffer.get(index + 2) & 0xFF) << 16;
+    }
+
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        return buffer.flip();
+    }
+}
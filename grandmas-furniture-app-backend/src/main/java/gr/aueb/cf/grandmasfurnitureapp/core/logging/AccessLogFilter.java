@@ -0,0 +1,84 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Tags every request with an ID and writes one access log event when it completes.
+ *
+ * <p>The ID is taken from the {@code X-Request-Id} header when a proxy already assigned one,
+ * otherwise generated. It is echoed in the response and kept in the MDC as {@code requestId},
+ * so every log event written while handling the request carries it. Runs first, ahead of
+ * the security filters, so rejected requests are logged too.</p>
+ *
+ * <p>Events go to the {@code access.api} logger, or {@code access.static} for images under
+ * /uploads/, which can be sampled separately. Only the path is logged, never the query
+ * string or headers. Server errors are logged at WARN, everything else at INFO.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String MDC_REQUEST_ID = "requestId";
+    public static final String MDC_USER = "user";
+
+    private static final Logger API_LOG = LoggerFactory.getLogger("access.api");
+    private static final Logger STATIC_LOG = LoggerFactory.getLogger("access.static");
+
+    // Incoming IDs end up in every log line, so only short plain tokens are accepted
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        MDC.put(MDC_REQUEST_ID, requestId);
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            log(request, status, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            MDC.remove(MDC_REQUEST_ID);
+            MDC.remove(MDC_USER);
+        }
+    }
+
+    private void log(HttpServletRequest request, int status, long durationMs) {
+        String path = request.getRequestURI();
+        Logger logger = path.startsWith("/uploads/") ? STATIC_LOG : API_LOG;
+        LoggingEventBuilder event = status >= 500 ? logger.atWarn() : logger.atInfo();
+        event.addKeyValue("method", request.getMethod())
+                .addKeyValue("path", path)
+                .addKeyValue("status", status)
+                .addKeyValue("durationMs", durationMs)
+                .addKeyValue("client", request.getRemoteAddr())
+                .log("{} {} {} {}ms", request.getMethod(), path, status, durationMs);
+    }
+}
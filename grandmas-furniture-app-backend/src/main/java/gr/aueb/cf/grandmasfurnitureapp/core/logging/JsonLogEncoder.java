@@ -0,0 +1,113 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.IThrowableProxy;
+import ch.qos.logback.classic.spi.ThrowableProxyUtil;
+import ch.qos.logback.core.encoder.EncoderBase;
+import org.slf4j.event.KeyValuePair;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes each event as one line of JSON, for log shippers.
+ *
+ * <p>Fields are {@code @timestamp}, {@code level}, {@code logger}, {@code thread},
+ * {@code message}, every MDC entry (such as {@code requestId}), the key/value pairs
+ * added through SLF4J's fluent API and {@code stack_trace}. Message and stack trace
+ * are passed through {@link SecretMasker}; MDC and key/value pairs are written as given,
+ * so they must not carry credentials.</p>
+ */
+public class JsonLogEncoder extends EncoderBase<ILoggingEvent> {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    @Override
+    public byte[] headerBytes() {
+        return EMPTY;
+    }
+
+    @Override
+    public byte[] encode(ILoggingEvent event) {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append('{');
+        field(sb, "@timestamp", Instant.ofEpochMilli(event.getTimeStamp()).toString());
+        sb.append(',');
+        field(sb, "level", event.getLevel().toString());
+        sb.append(',');
+        field(sb, "logger", event.getLoggerName());
+        sb.append(',');
+        field(sb, "thread", event.getThreadName());
+        sb.append(',');
+        field(sb, "message", SecretMasker.mask(event.getFormattedMessage()));
+
+        Map<String, String> mdc = event.getMDCPropertyMap();
+        if (mdc != null) {
+            for (Map.Entry<String, String> entry : mdc.entrySet()) {
+                sb.append(',');
+                field(sb, entry.getKey(), entry.getValue());
+            }
+        }
+
+        List<KeyValuePair> keyValuePairs = event.getKeyValuePairs();
+        if (keyValuePairs != null) {
+            for (KeyValuePair pair : keyValuePairs) {
+                sb.append(',');
+                if (pair.value instanceof Number || pair.value instanceof Boolean) {
+                    quote(sb, pair.key);
+                    sb.append(':').append(pair.value);
+                } else {
+                    field(sb, pair.key, pair.value != null ? pair.value.toString() : null);
+                }
+            }
+        }
+
+        IThrowableProxy throwable = event.getThrowableProxy();
+        if (throwable != null) {
+            sb.append(',');
+            field(sb, "stack_trace", SecretMasker.mask(ThrowableProxyUtil.asString(throwable)));
+        }
+
+        sb.append('}').append('\n');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public byte[] footerBytes() {
+        return EMPTY;
+    }
+
+    private static void field(StringBuilder sb, String name, String value) {
+        quote(sb, name);
+        sb.append(':');
+        if (value == null) {
+            sb.append("null");
+        } else {
+            quote(sb, value);
+        }
+    }
+
+    private static void quote(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+}
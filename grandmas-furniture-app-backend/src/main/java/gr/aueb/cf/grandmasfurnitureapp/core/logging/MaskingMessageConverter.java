@@ -0,0 +1,16 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.logging;
+
+import ch.qos.logback.classic.pattern.MessageConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Pattern converter for the formatted message with credentials masked.
+ * Registered as {@code %maskedMsg} in logback-spring.xml.
+ */
+public class MaskingMessageConverter extends MessageConverter {
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return SecretMasker.mask(super.convert(event));
+    }
+}
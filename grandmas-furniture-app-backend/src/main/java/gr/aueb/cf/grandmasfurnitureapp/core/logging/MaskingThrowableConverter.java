@@ -0,0 +1,16 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.logging;
+
+import ch.qos.logback.classic.pattern.ExtendedThrowableProxyConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Pattern converter for stack traces with credentials masked, since exception messages
+ * often quote the input that failed. Registered as {@code %maskedEx} in logback-spring.xml.
+ */
+public class MaskingThrowableConverter extends ExtendedThrowableProxyConverter {
+
+    @Override
+    public String convert(ILoggingEvent event) {
+        return SecretMasker.mask(super.convert(event));
+    }
+}
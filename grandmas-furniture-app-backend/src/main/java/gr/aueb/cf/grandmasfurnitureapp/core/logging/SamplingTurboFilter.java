@@ -0,0 +1,65 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one in {@code rate} events of a logger and its children, for hot paths whose
+ * every event would cost more than it tells. Events at or above {@code alwaysLevel}
+ * (WARN by default) are never dropped.
+ *
+ * <pre>
+ * &lt;turboFilter class="gr.aueb.cf.grandmasfurnitureapp.core.logging.SamplingTurboFilter"&gt;
+ *     &lt;loggerName&gt;access.static&lt;/loggerName&gt;
+ *     &lt;rate&gt;20&lt;/rate&gt;
+ * &lt;/turboFilter&gt;
+ * </pre>
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final AtomicLong counter = new AtomicLong();
+
+    private String loggerName;
+    private int rate = 1;
+    private Level alwaysLevel = Level.WARN;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        // A null format is an isXxxEnabled() check, which must not use up a sample
+        if (!isStarted() || rate <= 1 || format == null || level == null || level.isGreaterOrEqual(alwaysLevel)) {
+            return FilterReply.NEUTRAL;
+        }
+        String name = logger.getName();
+        if (!name.startsWith(loggerName)
+                || (name.length() > loggerName.length() && name.charAt(loggerName.length()) != '.')) {
+            return FilterReply.NEUTRAL;
+        }
+        return counter.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    @Override
+    public void start() {
+        if (loggerName == null || loggerName.isEmpty()) {
+            addError("No loggerName set for the sampling filter " + getName());
+            return;
+        }
+        super.start();
+    }
+
+    public void setLoggerName(String loggerName) {
+        this.loggerName = loggerName;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    public void setAlwaysLevel(String alwaysLevel) {
+        this.alwaysLevel = Level.toLevel(alwaysLevel, Level.WARN);
+    }
+}
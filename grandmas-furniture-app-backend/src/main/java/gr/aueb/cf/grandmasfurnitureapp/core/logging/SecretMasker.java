@@ -0,0 +1,87 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.logging;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Redacts credentials from text before it is written to a log.
+ *
+ * <p>Log statements should not pass secrets in the first place; this is the safety net
+ * for what slips through, e.g. exception messages of libraries that echo their input.
+ * It recognises JWTs, bearer authorization values, BCrypt hashes and values of
+ * password, secret and token fields in key=value or JSON form.</p>
+ */
+public final class SecretMasker {
+
+    static final String MASK = "****";
+
+    private static final Pattern JWT = Pattern.compile(
+            "eyJ[A-Za-z0-9_-]{5,}\\.[A-Za-z0-9_-]{5,}\\.[A-Za-z0-9_-]*");
+
+    private static final Pattern BEARER = Pattern.compile("(?i)(bearer\\s+)[A-Za-z0-9._~+/=-]+");
+
+    private static final Pattern BCRYPT = Pattern.compile("\\$2[abxy]?\\$\\d{2}\\$[./A-Za-z0-9]{53}");
+
+    private static final Pattern SECRET_FIELD = Pattern.compile(
+            "(?i)(\"?[a-z_]*(?:password|secret|token)\"?\\s*[=:]\\s*\"?)([^\"\\s,;&)}\\]]+)");
+
+    private SecretMasker() {
+
+    }
+
+    /**
+     * Replaces credentials in a text with {@value #MASK}.
+     *
+     * @param text The text to mask, may be null
+     * @return The masked text, or the same instance if nothing had to be masked
+     */
+    public static String mask(String text) {
+        if (text == null || text.isEmpty() || !mightContainSecret(text)) {
+            return text;
+        }
+
+        String masked = JWT.matcher(text).replaceAll(MASK);
+        masked = BCRYPT.matcher(masked).replaceAll(MASK);
+        masked = BEARER.matcher(masked).replaceAll("$1" + MASK);
+
+        Matcher matcher = SECRET_FIELD.matcher(masked);
+        StringBuilder sb = null;
+        int last = 0;
+        while (matcher.find()) {
+            if (MASK.equals(matcher.group(2))) {
+                continue;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(masked.length());
+            }
+            sb.append(masked, last, matcher.start(2)).append(MASK);
+            last = matcher.end(2);
+        }
+        if (sb == null) {
+            return masked;
+        }
+        return sb.append(masked, last, masked.length()).toString();
+    }
+
+    /**
+     * Cheap pre-check, so the regular expressions only run on the few messages that need them.
+     */
+    private static boolean mightContainSecret(String text) {
+        return text.contains("eyJ")
+                || text.contains("$2")
+                || containsIgnoreCase(text, "bearer")
+                || containsIgnoreCase(text, "password")
+                || containsIgnoreCase(text, "secret")
+                || containsIgnoreCase(text, "token");
+    }
+
+    private static boolean containsIgnoreCase(String text, String word) {
+        int length = word.length();
+        for (int i = text.length() - length; i >= 0; i--) {
+            if (text.regionMatches(true, i, word, 0, length)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
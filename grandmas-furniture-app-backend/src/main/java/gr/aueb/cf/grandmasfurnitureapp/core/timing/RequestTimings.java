@@ -0,0 +1,167 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.timing;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+/**
+ * Time spent per layer while handling the current request, reported as a Server-Timing header.
+ *
+ * <p>Capture is bound to the request thread by {@link ServerTimingFilter}. Layers measure
+ * themselves with {@link #start()} and {@link #stop(Phase, long)}; when the current request
+ * is not captured, {@code start()} is a single thread-local read and {@code stop()} returns
+ * immediately. Work on other threads, such as background image processing, is not counted.</p>
+ *
+ * <p>Phases may overlap: mapping triggers lazy loading, so its time includes the queries that
+ * loading runs.</p>
+ */
+public final class RequestTimings {
+
+    private static final long NOT_CAPTURED = Long.MIN_VALUE;
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startedAt = System.nanoTime();
+    private final long[] nanos = new long[Phase.values().length];
+    private final int[] counts = new int[Phase.values().length];
+    private boolean countQuery;
+
+    private RequestTimings() {
+
+    }
+
+    /**
+     * Starts capturing for the current thread.
+     *
+     * @return The new capture
+     */
+    static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    /**
+     * Stops capturing for the current thread.
+     */
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Marks the start of a measured section.
+     *
+     * @return Token to pass to {@link #stop(Phase, long)}
+     */
+    public static long start() {
+        return CURRENT.get() != null ? System.nanoTime() : NOT_CAPTURED;
+    }
+
+    /**
+     * Adds the time since {@code start} to a phase.
+     *
+     * @param phase The phase the section belongs to
+     * @param start Token returned by {@link #start()}
+     */
+    public static void stop(Phase phase, long start) {
+        if (start == NOT_CAPTURED) {
+            return;
+        }
+        add(phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Tells whether the current request is captured.
+     */
+    public static boolean isCapturing() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Notes the SQL of the statement about to be executed, so count queries of paged
+     * searches are reported apart from the queries that fetch the page.
+     *
+     * @param sql The statement
+     */
+    static void statementPrepared(String sql) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.countQuery = sql.regionMatches(true, 0, "select count(", 0, 13);
+        }
+    }
+
+    /**
+     * Adds the execution time of a statement, as a count or a regular query.
+     *
+     * @param elapsedNanos Execution time of the statement
+     */
+    static void addStatement(long elapsedNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.addTime(timings.countQuery ? Phase.DB_COUNT : Phase.DB_QUERY, elapsedNanos);
+        }
+    }
+
+    /**
+     * Adds time measured elsewhere to a phase of the current capture, if any.
+     *
+     * @param phase The phase the time belongs to
+     * @param elapsedNanos The time
+     */
+    static void add(Phase phase, long elapsedNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.addTime(phase, elapsedNanos);
+        }
+    }
+
+    private void addTime(Phase phase, long elapsedNanos) {
+        nanos[phase.ordinal()] += elapsedNanos;
+        counts[phase.ordinal()]++;
+    }
+
+    /**
+     * Formats the phases seen so far and the total as a Server-Timing header value.
+     */
+    String toHeaderValue() {
+        StringBuilder sb = new StringBuilder(160);
+        for (Phase phase : Phase.values()) {
+            int count = counts[phase.ordinal()];
+            if (count > 0) {
+                append(sb, phase.getMetric(), nanos[phase.ordinal()], phase.getDescription() + " (" + count + ")");
+            }
+        }
+        append(sb, "total", System.nanoTime() - startedAt, null);
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, String metric, long nanos, String description) {
+        if (sb.length() > 0) {
+            sb.append(", ");
+        }
+        sb.append(metric).append(";dur=").append(String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0));
+        if (description != null) {
+            sb.append(";desc=\"").append(description).append('"');
+        }
+    }
+
+    /**
+     * Layers that report their time.
+     */
+    @Getter
+    public enum Phase {
+        DB_CONNECTION("db-conn", "Connection acquisition"),
+        DB_QUERY("db", "SQL statements"),
+        DB_COUNT("db-count", "SQL count queries"),
+        MAPPING("map", "DTO mapping"),
+        STORAGE("storage", "Blob storage"),
+        SERIALIZATION("ser", "JSON serialization");
+
+        private final String metric;
+        private final String description;
+
+        Phase(String metric, String description) {
+            this.metric = metric;
+            this.description = description;
+        }
+    }
+}
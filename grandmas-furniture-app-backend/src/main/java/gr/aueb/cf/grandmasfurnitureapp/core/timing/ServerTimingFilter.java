@@ -0,0 +1,122 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Captures {@link RequestTimings} for a request and returns them in a Server-Timing header.
+ *
+ * <p>With {@code app.server-timing.always} every request is captured, otherwise only
+ * requests that send {@code X-Server-Timing: true}. Headers cannot change once the body
+ * has started, so the header is added when the response first writes its body, which
+ * includes JSON serialization, or at the end for responses without one.</p>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+    public static final String REQUEST_HEADER = "X-Server-Timing";
+
+    @Value("${app.server-timing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.server-timing.always:false}")
+    private boolean always;
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        if (!enabled || !(always || "true".equalsIgnoreCase(request.getHeader(REQUEST_HEADER)))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ServerTimingResponse timedResponse = new ServerTimingResponse(response, RequestTimings.begin());
+        try {
+            filterChain.doFilter(request, timedResponse);
+            timedResponse.addServerTiming();
+        } finally {
+            RequestTimings.end();
+        }
+    }
+
+    /**
+     * Adds the header right before the body starts.
+     */
+    private static class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final RequestTimings timings;
+        private boolean added;
+
+        private ServerTimingResponse(HttpServletResponse response, RequestTimings timings) {
+            super(response);
+            this.timings = timings;
+        }
+
+        private void addServerTiming() {
+            if (!added && !isCommitted()) {
+                setHeader(SERVER_TIMING_HEADER, timings.toHeaderValue());
+            }
+            added = true;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addServerTiming();
+            super.sendRedirect(location);
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            added = false;
+        }
+    }
+}
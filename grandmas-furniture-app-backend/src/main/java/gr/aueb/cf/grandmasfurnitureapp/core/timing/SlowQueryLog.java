@@ -0,0 +1,276 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.timing;
+
+import gr.aueb.cf.grandmasfurnitureapp.dto.SlowQueryReadOnlyDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.SlowQueryShapeReadOnlyDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records SQL statements that run longer than {@code app.slow-query.threshold-ms}.
+ *
+ * <p>Searches build their queries from filters at runtime, so the SQL alone does not say
+ * which user action caused it. Services therefore run searches inside a {@link Scope}
+ * that carries the filter shape, i.e. which filters were set but not their values, and
+ * the number of rows found. Slow statements are kept with the endpoint and shape in a
+ * ring buffer of {@code app.slow-query.capacity} entries, overwriting the oldest.</p>
+ *
+ * <p>Statement times come from {@link TimingSessionEventListener}, which Hibernate creates
+ * per session and which therefore reaches this bean through a static reference.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class SlowQueryLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLog.class);
+    private static final int MAX_ENDPOINTS_PER_SHAPE = 5;
+    private static final Scope NO_SCOPE = new Scope(null, null, null, null);
+
+    private static final ThreadLocal<Scope> CURRENT_SCOPE = new ThreadLocal<>();
+    private static final ThreadLocal<String> LAST_SQL = new ThreadLocal<>();
+    private static volatile SlowQueryLog instance;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.slow-query.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.slow-query.threshold-ms:200}")
+    private long thresholdMs;
+
+    @Value("${app.slow-query.capacity:500}")
+    private int capacity;
+
+    @Value("${app.slow-query.max-sql-length:2000}")
+    private int maxSqlLength;
+
+    private long thresholdNanos;
+    private SlowQueryReadOnlyDTO[] entries;
+    private int next;
+    private final Object lock = new Object();
+    private Counter slowStatements;
+
+    @PostConstruct
+    void init() {
+        thresholdNanos = thresholdMs * 1_000_000L;
+        entries = new SlowQueryReadOnlyDTO[Math.max(1, capacity)];
+        slowStatements = Counter.builder("app.db.slow-statements")
+                .description("SQL statements over the slow-query threshold")
+                .register(meterRegistry);
+        if (enabled) {
+            instance = this;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (instance == this) {
+            instance = null;
+        }
+    }
+
+    /**
+     * Opens a scope for the statements of one search. Use with try-with-resources.
+     *
+     * @param shape Normalized filters of the search, see {@code describeShape()} of the filter classes
+     * @return The scope, which records rows and publishes its slow statements on close
+     */
+    public Scope open(String shape) {
+        if (instance != this) {
+            return NO_SCOPE;
+        }
+        Scope scope = new Scope(this, shape, currentEndpoint(), CURRENT_SCOPE.get());
+        CURRENT_SCOPE.set(scope);
+        return scope;
+    }
+
+    /**
+     * Returns the most recent slow statements, newest first.
+     *
+     * @param limit Maximum number of entries
+     * @return The entries
+     */
+    public List<SlowQueryReadOnlyDTO> getRecent(int limit) {
+        List<SlowQueryReadOnlyDTO> recent = new ArrayList<>();
+        synchronized (lock) {
+            for (int i = 1; i <= entries.length && recent.size() < limit; i++) {
+                SlowQueryReadOnlyDTO entry = entries[Math.floorMod(next - i, entries.length)];
+                if (entry == null) {
+                    break;
+                }
+                recent.add(entry);
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * Aggregates the buffered slow statements by shape, most total time first.
+     *
+     * @return One entry per shape, or per endpoint for statements outside a search
+     */
+    public List<SlowQueryShapeReadOnlyDTO> getShapes() {
+        Map<String, SlowQueryShapeReadOnlyDTO> shapes = new LinkedHashMap<>();
+        for (SlowQueryReadOnlyDTO entry : getRecent(entries.length)) {
+            String key = entry.getShape() != null ? "shape:" + entry.getShape() : "endpoint:" + entry.getEndpoint();
+            SlowQueryShapeReadOnlyDTO shape = shapes.computeIfAbsent(key, k -> new SlowQueryShapeReadOnlyDTO(
+                    entry.getShape(), new ArrayList<>(), 0, 0, 0, 0, entry.getRecordedAt(), entry.getSql()));
+            shape.setCount(shape.getCount() + 1);
+            shape.setTotalMs(shape.getTotalMs() + entry.getDurationMs());
+            shape.setMaxMs(Math.max(shape.getMaxMs(), entry.getDurationMs()));
+            if (!shape.getEndpoints().contains(entry.getEndpoint())
+                    && shape.getEndpoints().size() < MAX_ENDPOINTS_PER_SHAPE) {
+                shape.getEndpoints().add(entry.getEndpoint());
+            }
+        }
+
+        List<SlowQueryShapeReadOnlyDTO> result = new ArrayList<>(shapes.values());
+        result.forEach(shape -> shape.setAverageMs(shape.getTotalMs() / shape.getCount()));
+        result.sort(Comparator.comparingDouble(SlowQueryShapeReadOnlyDTO::getTotalMs).reversed());
+        return result;
+    }
+
+    /**
+     * Empties the buffer.
+     */
+    public void clear() {
+        synchronized (lock) {
+            Arrays.fill(entries, null);
+            next = 0;
+        }
+    }
+
+    /**
+     * Remembers the SQL of the statement about to run on this thread.
+     */
+    static void statementPrepared(String sql) {
+        if (instance != null) {
+            LAST_SQL.set(sql);
+        }
+    }
+
+    /**
+     * Checks a finished statement against the threshold.
+     *
+     * @param elapsedNanos Execution time of the statement
+     */
+    static void statementExecuted(long elapsedNanos) {
+        SlowQueryLog log = instance;
+        if (log != null && elapsedNanos >= log.thresholdNanos) {
+            log.record(elapsedNanos);
+        }
+    }
+
+    private void record(long elapsedNanos) {
+        String sql = LAST_SQL.get();
+        if (sql != null && sql.length() > maxSqlLength) {
+            sql = sql.substring(0, maxSqlLength) + "...";
+        }
+        double durationMs = elapsedNanos / 1_000_000.0;
+        slowStatements.increment();
+
+        Scope scope = CURRENT_SCOPE.get();
+        if (scope != null && scope.log == this) {
+            LOGGER.warn("Slow statement ({} ms) for {} with filters [{}]", Math.round(durationMs), scope.endpoint, scope.shape);
+            scope.statements.add(new PendingStatement(LocalDateTime.now(), sql, durationMs));
+        } else {
+            String endpoint = currentEndpoint();
+            LOGGER.warn("Slow statement ({} ms) for {}", Math.round(durationMs), endpoint);
+            publish(new SlowQueryReadOnlyDTO(LocalDateTime.now(), endpoint, null, sql, durationMs, null, null));
+        }
+    }
+
+    private void publish(SlowQueryReadOnlyDTO entry) {
+        synchronized (lock) {
+            entries[next] = entry;
+            next = (next + 1) % entries.length;
+        }
+    }
+
+    /**
+     * Names the endpoint by its mapping pattern, so requests for different IDs group together.
+     */
+    private static String currentEndpoint() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+        }
+        // Background work, e.g. image workers; drop the thread number
+        return "thread " + Thread.currentThread().getName().replaceAll("-\\d+$", "");
+    }
+
+    /**
+     * The statements of one search, published with its row counts when it closes.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final SlowQueryLog log;
+        private final String shape;
+        private final String endpoint;
+        private final Scope previous;
+        private final List<PendingStatement> statements = new ArrayList<>(0);
+        private Long rows;
+        private Long totalRows;
+
+        private Scope(SlowQueryLog log, String shape, String endpoint, Scope previous) {
+            this.log = log;
+            this.shape = shape;
+            this.endpoint = endpoint;
+            this.previous = previous;
+        }
+
+        /**
+         * Sets the rows the search returned.
+         *
+         * @param rows Rows of the result, or of the page for paged searches
+         * @param totalRows Rows matching the filters for paged searches, otherwise null
+         */
+        public void setRows(long rows, Long totalRows) {
+            this.rows = rows;
+            this.totalRows = totalRows;
+        }
+
+        @Override
+        public void close() {
+            if (log == null) {
+                return;
+            }
+            if (previous != null) {
+                CURRENT_SCOPE.set(previous);
+            } else {
+                CURRENT_SCOPE.remove();
+            }
+            for (PendingStatement statement : statements) {
+                log.publish(new SlowQueryReadOnlyDTO(statement.recordedAt, endpoint, shape, statement.sql,
+                        statement.durationMs, rows, totalRows));
+            }
+        }
+    }
+
+    @AllArgsConstructor
+    private static class PendingStatement {
+        private final LocalDateTime recordedAt;
+        private final String sql;
+        private final double durationMs;
+    }
+}
@@ -0,0 +1,49 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.timing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * JSON converter that reports serialization time to {@link RequestTimings}.
+ *
+ * <p>For captured requests the body is serialized into a buffer first, so the time excludes
+ * the network and is known before the body, and with it the Server-Timing header, is sent.
+ * Other requests are written straight to the response as usual.</p>
+ */
+public class TimingJackson2HttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (!RequestTimings.isCapturing()) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+
+        long start = RequestTimings.start();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096);
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return buffer;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        RequestTimings.stop(RequestTimings.Phase.SERIALIZATION, start);
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,49 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.timing;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Reports JDBC time of Hibernate sessions to {@link RequestTimings} and statement
+ * times to the {@link SlowQueryLog}. Hibernate creates one instance per session,
+ * registered through {@code hibernate.session.events.auto}.
+ */
+public class TimingSessionEventListener implements SessionEventListener {
+
+    private long connectionStart;
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcConnectionAcquisitionStart() {
+        connectionStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcConnectionAcquisitionEnd() {
+        RequestTimings.add(RequestTimings.Phase.DB_CONNECTION, System.nanoTime() - connectionStart);
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        long elapsed = System.nanoTime() - statementStart;
+        RequestTimings.addStatement(elapsed);
+        SlowQueryLog.statementExecuted(elapsed);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        long elapsed = System.nanoTime() - batchStart;
+        RequestTimings.add(RequestTimings.Phase.DB_QUERY, elapsed);
+        SlowQueryLog.statementExecuted(elapsed);
+    }
+}
@@ -0,0 +1,18 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.timing;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Tells {@link RequestTimings} and the {@link SlowQueryLog} which statement runs next.
+ * Leaves the SQL unchanged.
+ * Registered through {@code hibernate.session_factory.statement_inspector}.
+ */
+public class TimingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestTimings.statementPrepared(sql);
+        SlowQueryLog.statementPrepared(sql);
+        return sql;
+    }
+}
@@ -0,0 +1,26 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO for marking several of the user's ads available or unavailable at once.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AdBulkAvailabilityDTO {
+
+    @NotEmpty(message = "At least one ad ID is required.")
+    private List<@NotNull Long> ids;
+
+    @NotNull(message = "Availability is required.")
+    private Boolean isAvailable;
+}
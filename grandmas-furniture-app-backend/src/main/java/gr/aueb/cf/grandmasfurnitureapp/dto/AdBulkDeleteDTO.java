@@ -0,0 +1,23 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO for deleting several of the user's ads at once.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AdBulkDeleteDTO {
+
+    @NotEmpty(message = "At least one ad ID is required.")
+    private List<@NotNull Long> ids;
+}
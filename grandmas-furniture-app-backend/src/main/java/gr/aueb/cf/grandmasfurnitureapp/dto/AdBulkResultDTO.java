@@ -0,0 +1,23 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk availability change or delete.
+ * IDs that do not exist or belong to another user are skipped, the others are applied together.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AdBulkResultDTO {
+    private int requested;
+    private int affected;
+    private List<Long> skippedIds = new ArrayList<>();
+}
@@ -0,0 +1,24 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for one image of an ad's gallery.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AdImageReadOnlyDTO {
+
+    private int position;
+    private String imagePath;
+    private String thumbnailPath;
+    private String placeholder;
+    private Integer width;
+    private Integer height;
+    private String imageStatus;
+}
@@ -0,0 +1,21 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for a row the bulk import rejected.
+ * Rows are numbered from 1, not counting the CSV header.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AdImportErrorDTO {
+    private long row;
+    // The offending field, null if the row as a whole failed
+    private String field;
+    private String message;
+}
@@ -0,0 +1,27 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk import.
+ * Rows that failed are listed in errors, up to a limit; all other rows were imported.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AdImportResultDTO {
+    private long rows;
+    private long imported;
+    private long failed;
+    // IDs of the created ads, in input order
+    private List<Long> createdIds = new ArrayList<>();
+    private List<AdImportErrorDTO> errors = new ArrayList<>();
+    private boolean errorsTruncated;
+}
@@ -4,6 +4,7 @@ package gr.aueb.cf.grandmasfurnitureapp.dto;
 import gr.aueb.cf.grandmasfurnitureapp.core.enums.Condition;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -44,4 +45,8 @@ public class AdInsertDTO {
     @NotBlank(message = "Description cannot be empty.")  // Also checks for empty strings
     @Size(min = 2, max = 100, message = "Description must be between 2 and 100 characters.")
     private String description;
+
+    // Optional SHA-256 of an already stored image, used instead of uploading it again
+    @Pattern(regexp = "^[a-fA-F0-9]{64}$", message = "Image hash must be a SHA-256 hex string.")
+    private String imageHash;
 }
@@ -8,6 +8,7 @@ import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * DTO for ad data retrieval operations.
@@ -28,6 +29,16 @@ public class AdReadOnlyDTO {
     private Boolean isAvailable;
     private String description;
     private String imagePath;
+    private String imageStatus;
+    private String thumbnailPath;
+
+    // BlurHash and dimensions of the cover image, so clients can draw a placeholder of the right shape
+    private String imagePlaceholder;
+    private Integer imageWidth;
+    private Integer imageHeight;
+
+    // Full gallery, only filled when a single ad is fetched
+    private List<AdImageReadOnlyDTO> images;
 
     // Only the Ad's audit fields - no duplicates
     private LocalDateTime createdAt;
@@ -37,4 +48,7 @@ public class AdReadOnlyDTO {
     private String userFirstName;
     private String userLastName;
     private String userPhone;
+
+    // Part of the ETag header, which is sent back as If-Match when updating
+    private Long version;
 }
\ No newline at end of file
@@ -2,17 +2,19 @@ package gr.aueb.cf.grandmasfurnitureapp.dto;
 
 
 import gr.aueb.cf.grandmasfurnitureapp.core.enums.Condition;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 
 /**
  * DTO for ad update operations.
- * Contains partial ad data for updating existing advertisements.
+ * Contains partial ad data for updating existing advertisements: fields left out (null)
+ * keep their value, fields that are present are validated like in {@link AdInsertDTO}.
  */
 @AllArgsConstructor
 @NoArgsConstructor
@@ -20,15 +22,23 @@ import java.math.BigDecimal;
 @Setter
 public class AdUpdateDTO {
 
-    private BigDecimal price;
+    @Pattern(regexp = ".*\\S.*", message = "Title cannot be empty.")
+    @Size(min = 2, max = 30, message = "Title must be between 2 and 30 characters.")
+    private String title;
 
-    private Condition condition;
+    @Pattern(regexp = ".*\\S.*", message = "Category name cannot be empty.")
+    private String categoryName;
 
-    private long cityId;
+    @Pattern(regexp = ".*\\S.*", message = "City name cannot be empty.")
+    private String cityName;
 
-    private String description;
+    private Condition condition;
 
-    private boolean isAvailable;
+    private BigDecimal price;
 
-}
+    private Boolean isAvailable;
 
+    @Pattern(regexp = ".*\\S.*", message = "Description cannot be empty.")
+    @Size(min = 2, max = 100, message = "Description must be between 2 and 100 characters.")
+    private String description;
+}
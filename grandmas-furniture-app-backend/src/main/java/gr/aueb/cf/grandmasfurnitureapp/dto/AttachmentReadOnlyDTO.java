@@ -0,0 +1,21 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for attachment data retrieval operations.
+ * Lets clients check whether image content is already stored before uploading it.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class AttachmentReadOnlyDTO {
+    private String contentHash;
+    private String contentType;
+    private String filePath;
+    private String status;
+}
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * DTO for authentication request data.
@@ -22,5 +23,6 @@ public class AuthenticationRequestDTO {
     private String username;
     @NotNull
     @Schema(example = "Cosmote1@", description = "Password for authentication")
+    @ToString.Exclude
     private String password;
 }
@@ -4,10 +4,12 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 /**
  * DTO for authentication response data.
- * Contains user information and JWT token for successful login.
+ * Contains user information, a short-lived JWT access token and the refresh token
+ * that renews it, for successful login and refresh.
  */
 @Data
 @Builder
@@ -16,6 +18,11 @@ import lombok.NoArgsConstructor;
 public class AuthenticationResponseDTO {
     private String firstname;
     private String lastname;
+    @ToString.Exclude
     private String token;
     private String role;
+    @ToString.Exclude
+    private String refreshToken;
+    // Lifetime of the access token in seconds
+    private long expiresIn;
 }
\ No newline at end of file
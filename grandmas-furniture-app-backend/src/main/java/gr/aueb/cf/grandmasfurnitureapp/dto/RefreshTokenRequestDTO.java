@@ -0,0 +1,25 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * DTO for refresh and logout requests.
+ * Contains the refresh token returned by the last login or refresh.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RefreshTokenRequestDTO {
+
+    @NotBlank
+    @Schema(description = "Refresh token from the last login or refresh")
+    @ToString.Exclude
+    private String refreshToken;
+}
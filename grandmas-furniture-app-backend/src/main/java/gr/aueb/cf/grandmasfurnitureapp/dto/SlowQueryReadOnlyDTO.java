@@ -0,0 +1,27 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a statement recorded by the slow-query log.
+ * The shape names the search filters that were set, without their values;
+ * row counts are those of the search the statement belonged to, when known.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class SlowQueryReadOnlyDTO {
+    private LocalDateTime recordedAt;
+    private String endpoint;
+    private String shape;
+    private String sql;
+    private double durationMs;
+    private Long rows;
+    private Long totalRows;
+}
@@ -0,0 +1,28 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for slow statements aggregated by search shape.
+ * Statements outside a search are grouped by endpoint and have no shape.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class SlowQueryShapeReadOnlyDTO {
+    private String shape;
+    private List<String> endpoints;
+    private long count;
+    private double totalMs;
+    private double averageMs;
+    private double maxMs;
+    private LocalDateTime lastSeen;
+    private String sampleSql;
+}
@@ -0,0 +1,21 @@
+package gr.aueb.cf.grandmasfurnitureapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO for the state of a resumable upload.
+ * The content hash is set once the upload is complete and can be sent as {@code imageHash}.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class UploadSessionReadOnlyDTO {
+    private String id;
+    private long uploadLength;
+    private long uploadOffset;
+    private String contentHash;
+}
@@ -22,4 +22,7 @@ public class UserReadOnlyDTO {
     private String phone;
     private String role;
     private Boolean isActive;
+
+    // Send back as If-Match when updating the role
+    private Long version;
 }
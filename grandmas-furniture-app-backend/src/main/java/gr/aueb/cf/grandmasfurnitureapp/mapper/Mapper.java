@@ -1,17 +1,19 @@
 package gr.aueb.cf.grandmasfurnitureapp.mapper;
 
-import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotFoundException;
+import gr.aueb.cf.grandmasfurnitureapp.core.timing.RequestTimings;
 import gr.aueb.cf.grandmasfurnitureapp.dto.*;
 import gr.aueb.cf.grandmasfurnitureapp.model.Ad;
+import gr.aueb.cf.grandmasfurnitureapp.model.AdImage;
+import gr.aueb.cf.grandmasfurnitureapp.model.Attachment;
+import gr.aueb.cf.grandmasfurnitureapp.model.UploadSession;
 import gr.aueb.cf.grandmasfurnitureapp.model.User;
 import gr.aueb.cf.grandmasfurnitureapp.model.static_data.Category;
 import gr.aueb.cf.grandmasfurnitureapp.model.static_data.City;
-import gr.aueb.cf.grandmasfurnitureapp.repository.CategoryRepository;
-import gr.aueb.cf.grandmasfurnitureapp.repository.CityRepository;
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Component;
 
+import java.util.stream.Collectors;
+
 /**
  * Mapper component for converting between DTOs and entities.
  * Handles bidirectional mapping between API DTOs and JPA entities.
@@ -23,31 +25,28 @@ import org.springframework.stereotype.Component;
  *   <li>Static data mapping (Category, City)</li>
  * </ul></p>
  * 
- * <p>The mapper also handles entity lookups for related objects (Category, City)
- * when creating new entities from DTOs.</p>
+ * <p>Related objects (Category, City) are resolved by the calling service, so the
+ * mapper runs no lookups of its own.</p>
  * 
  * @author Giannis Gotzaridis
  * @since 1.0
  */
 @Component
-@RequiredArgsConstructor
 public class Mapper {
 
-    private final PasswordEncoder passwordEncoder;
-    private final CategoryRepository categoryRepository;
-    private final CityRepository cityRepository;
-
     /**
      * Maps an Ad entity to its read-only DTO representation.
      * 
      * <p>This method converts a JPA Ad entity to a DTO suitable for API responses.
      * It includes all ad details, related category and city information, user details,
-     * and audit fields.</p>
+     * and audit fields. The gallery is only mapped when it has already been loaded,
+     * so listings never trigger a query per ad for it.</p>
      * 
      * @param ad The Ad entity to convert
      * @return AdReadOnlyDTO containing all ad information for API responses
      */
     public AdReadOnlyDTO mapToAdReadOnlyDTO(Ad ad) {
+        long start = RequestTimings.start();
         AdReadOnlyDTO adReadOnlyDTO = new AdReadOnlyDTO();
 
         adReadOnlyDTO.setId(ad.getId());
@@ -74,10 +73,25 @@ public class Mapper {
         adReadOnlyDTO.setIsAvailable(ad.getIsAvailable());
         adReadOnlyDTO.setDescription(ad.getDescription());
         adReadOnlyDTO.setImagePath(ad.getImage() != null ? ad.getImage().getFilePath() : null);
+        adReadOnlyDTO.setImageStatus(ad.getImage() != null && ad.getImage().getStatus() != null
+                ? ad.getImage().getStatus().name() : null);
+        adReadOnlyDTO.setThumbnailPath(ad.getImage() != null ? ad.getImage().getThumbnailPath() : null);
+        if (ad.getImage() != null) {
+            adReadOnlyDTO.setImagePlaceholder(ad.getImage().getPlaceholder());
+            adReadOnlyDTO.setImageWidth(ad.getImage().getWidth());
+            adReadOnlyDTO.setImageHeight(ad.getImage().getHeight());
+        }
+
+        if (Hibernate.isInitialized(ad.getGallery())) {
+            adReadOnlyDTO.setImages(ad.getGallery().stream()
+                    .map(this::mapToAdImageReadOnlyDTO)
+                    .collect(Collectors.toList()));
+        }
 
         // Only Ad's audit fields - no duplicates
         adReadOnlyDTO.setCreatedAt(ad.getCreatedAt());
         adReadOnlyDTO.setUpdatedAt(ad.getUpdatedAt());
+        adReadOnlyDTO.setVersion(ad.getVersion());
 
         // Add user info if needed
         if (ad.getUser() != null) {
@@ -86,41 +100,23 @@ public class Mapper {
             adReadOnlyDTO.setUserPhone(ad.getUser().getPhone());
         }
 
+        RequestTimings.stop(RequestTimings.Phase.MAPPING, start);
         return adReadOnlyDTO;
     }
 
     /**
-     * Maps an AdInsertDTO to an Ad entity for creation.
-     * 
-     * <p>This method converts a DTO from an API request to a JPA entity for persistence.
-     * It performs lookups for related entities (Category, City) by name and sets
-     * all the basic ad properties.</p>
-     * 
-     * <p>Note: The returned entity is not persisted and needs to be saved separately.
-     * The user relationship should be set by the calling service.</p>
-     * 
+     * Maps an AdInsertDTO to an Ad entity, with category and city already resolved.
+     *
      * @param dto The DTO containing ad creation data
+     * @param category The ad's category
+     * @param city The ad's city
      * @return Ad entity ready for persistence
-     * @throws AppObjectNotFoundException if Category or City lookup fails
      */
-    public Ad mapToAdEntity(AdInsertDTO dto) throws AppObjectNotFoundException {
+    public Ad mapToAdEntity(AdInsertDTO dto, Category category, City city) {
         Ad ad = new Ad();
         ad.setTitle(dto.getTitle());
-
-        // Look up category by name
-        if (dto.getCategoryName() != null) {
-            Category category = categoryRepository.findByCategory(dto.getCategoryName())
-                    .orElseThrow(() -> new AppObjectNotFoundException("Category", "Category not found: " + dto.getCategoryName()));
-            ad.setCategory(category);
-        }
-
-        // Look up city by name
-        if (dto.getCityName() != null) {
-            City city = cityRepository.findByCityName(dto.getCityName())
-                    .orElseThrow(() -> new AppObjectNotFoundException("City", "City not found: " + dto.getCityName()));
-            ad.setCity(city);
-        }
-
+        ad.setCategory(category);
+        ad.setCity(city);
         ad.setCondition(dto.getCondition());
         ad.setPrice(dto.getPrice());
         ad.setIsAvailable(dto.getIsAvailable());
@@ -133,17 +129,19 @@ public class Mapper {
      * Maps a UserInsertDTO to a User entity for creation.
      * 
      * <p>This method converts a DTO from user registration to a JPA entity.
-     * It encrypts the password using BCrypt and sets default values for new users.</p>
+     * The password is hashed beforehand on the password hashing pool; this method
+     * sets the hash and default values for new users.</p>
      * 
      * @param dto The DTO containing user registration data
+     * @param encodedPassword BCrypt hash of the DTO's password
      * @return User entity ready for persistence with encrypted password
      */
-    public User mapToUserEntity(UserInsertDTO dto) {
+    public User mapToUserEntity(UserInsertDTO dto, String encodedPassword) {
         User user = new User();
         user.setUsername(dto.getUsername());
         user.setFirstName(dto.getFirstName());
         user.setLastName(dto.getLastName());
-        user.setPassword(passwordEncoder.encode(dto.getPassword()));
+        user.setPassword(encodedPassword);
         user.setEmail(dto.getEmail());
         user.setPhone(dto.getPhone());
         user.setRole(dto.getRole());
@@ -162,6 +160,7 @@ public class Mapper {
      * @return UserReadOnlyDTO containing user information for API responses
      */
     public UserReadOnlyDTO mapToUserReadOnlyDTO(User user) {
+        long start = RequestTimings.start();
         UserReadOnlyDTO userReadOnlyDTO = new UserReadOnlyDTO();
 
         userReadOnlyDTO.setId(user.getId());
@@ -172,7 +171,9 @@ public class Mapper {
         userReadOnlyDTO.setPhone(user.getPhone());
         userReadOnlyDTO.setRole(user.getRole() != null ? user.getRole().name() : null);
         userReadOnlyDTO.setIsActive(user.getIsActive());
+        userReadOnlyDTO.setVersion(user.getVersion());
 
+        RequestTimings.stop(RequestTimings.Phase.MAPPING, start);
         return userReadOnlyDTO;
     }
 
@@ -205,4 +206,52 @@ public class Mapper {
         dto.setCityName(city.getCityName());
         return dto;
     }
+
+    /**
+     * Maps a gallery image to its read-only DTO representation.
+     *
+     * @param adImage The gallery image to convert
+     * @return AdImageReadOnlyDTO containing the image paths and processing state
+     */
+    public AdImageReadOnlyDTO mapToAdImageReadOnlyDTO(AdImage adImage) {
+        Attachment attachment = adImage.getAttachment();
+        AdImageReadOnlyDTO dto = new AdImageReadOnlyDTO();
+        dto.setPosition(adImage.getPosition());
+        dto.setImagePath(attachment.getFilePath());
+        dto.setThumbnailPath(attachment.getThumbnailPath());
+        dto.setPlaceholder(attachment.getPlaceholder());
+        dto.setWidth(attachment.getWidth());
+        dto.setHeight(attachment.getHeight());
+        dto.setImageStatus(attachment.getStatus() != null ? attachment.getStatus().name() : null);
+        return dto;
+    }
+
+    /**
+     * Maps a resumable upload session to its read-only DTO representation.
+     *
+     * @param session The upload session to convert
+     * @return UploadSessionReadOnlyDTO containing the upload progress
+     */
+    public UploadSessionReadOnlyDTO mapToUploadSessionReadOnlyDTO(UploadSession session) {
+        UploadSessionReadOnlyDTO dto = new UploadSessionReadOnlyDTO();
+        dto.setId(session.getId());
+        dto.setUploadLength(session.getUploadLength());
+        dto.setUploadOffset(session.getUploadOffset());
+        return dto;
+    }
+
+    /**
+     * Maps an Attachment entity to its read-only DTO representation.
+     *
+     * @param attachment The Attachment entity to convert
+     * @return AttachmentReadOnlyDTO containing the content hash and storage state
+     */
+    public AttachmentReadOnlyDTO mapToAttachmentReadOnlyDTO(Attachment attachment) {
+        AttachmentReadOnlyDTO dto = new AttachmentReadOnlyDTO();
+        dto.setContentHash(attachment.getContentHash());
+        dto.setContentType(attachment.getContentType());
+        dto.setFilePath(attachment.getFilePath());
+        dto.setStatus(attachment.getStatus() != null ? attachment.getStatus().name() : null);
+        return dto;
+    }
 }
\ No newline at end of file
@@ -25,6 +25,12 @@ import java.time.LocalDateTime;
 @EntityListeners(AuditingEntityListener.class)
 public class AbstractEntity {
 
+    /**
+     * IDs reserved per round trip by entities with pooled sequences. Unlike IDENTITY
+     * columns these let Hibernate batch inserts, since IDs are known before the insert.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @CreatedDate
     @Column( name= "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -9,23 +9,34 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Ad entity representing furniture advertisements.
  * Contains ad details, pricing, and relationships to categories, cities, and users.
+ * Updates only write the changed columns, so small edits such as a new price stay cheap.
+ * Ads of a deleted user are hidden from all queries until the purge removes them.
  */
 @Entity
+@DynamicUpdate
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 @Table(name = "ads")
+@SQLRestriction("deleted_at IS NULL")
 public class Ad extends AbstractEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ads_seq")
+    @SequenceGenerator(name = "ads_seq", sequenceName = "ads_seq", allocationSize = ID_ALLOCATION_SIZE)
     private long id;
 
     @Column(nullable = false)
@@ -51,11 +62,26 @@ public class Ad extends AbstractEntity {
 
     private String description;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    // Cover image, the first image of the gallery
+    @ManyToOne
     @JoinColumn(name = "attachment_id")
     private Attachment image;
 
+    @OneToMany(mappedBy = "ad", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("position ASC")
+    private List<AdImage> gallery = new ArrayList<>();
+
     @ManyToOne(optional = false)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
+
+    // Incremented on every update and sent as the ETag, see AdService.updateAd
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // Set together with the owner's deletedAt, see UserService.deleteUser
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 }
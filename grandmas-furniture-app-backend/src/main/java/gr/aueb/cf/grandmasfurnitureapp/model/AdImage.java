@@ -0,0 +1,36 @@
+package gr.aueb.cf.grandmasfurnitureapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One image of an ad's gallery.
+ * Each gallery entry holds its own reference on the attachment.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Table(name = "ad_images", indexes = @Index(name = "idx_ad_images_ad", columnList = "ad_id, position"))
+public class AdImage extends AbstractEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ad_images_seq")
+    @SequenceGenerator(name = "ad_images_seq", sequenceName = "ad_images_seq", allocationSize = ID_ALLOCATION_SIZE)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "ad_id", nullable = false)
+    private Ad ad;
+
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "attachment_id", nullable = false)
+    private Attachment attachment;
+
+    @Column(nullable = false)
+    private int position;
+}
@@ -1,14 +1,17 @@
 package gr.aueb.cf.grandmasfurnitureapp.model;
 
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.AttachmentStatus;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * Attachment entity for file storage metadata.
- * Manages file information and relationships to ads.
+ * Each attachment is a content-addressable blob that may be shared by several ads,
+ * tracked through its reference count.
  */
 @Entity
 @AllArgsConstructor
@@ -19,7 +22,8 @@ import lombok.Setter;
 public class Attachment extends AbstractEntity{
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "attachments_seq")
+    @SequenceGenerator(name = "attachments_seq", sequenceName = "attachments_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "filename")
@@ -36,6 +40,32 @@ public class Attachment extends AbstractEntity{
     
     private String extension;
 
-    @OneToOne(mappedBy = "image")
-    private Ad ad;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private AttachmentStatus status;
+
+    private Integer width;
+
+    private Integer height;
+
+    @Column(name = "thumbnail_path")
+    private String thumbnailPath;
+
+    // BlurHash of the image, shown by clients until the image itself has loaded
+    @Column(name = "placeholder", length = 64)
+    private String placeholder;
+
+    @Column(name = "staged_path")
+    private String stagedPath;
+
+    @ColumnDefault("0")
+    @Column(name = "retry_count", nullable = false)
+    private int retryCount;
+
+    @Column(name = "content_hash", unique = true, length = 64)
+    private String contentHash;
+
+    @ColumnDefault("0")
+    @Column(name = "reference_count", nullable = false)
+    private int referenceCount;
 }
@@ -0,0 +1,31 @@
+package gr.aueb.cf.grandmasfurnitureapp.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Progress marker of a background maintenance job that works in batches.
+ * Lets the job resume where it stopped after a restart.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Table(name = "maintenance_checkpoints")
+public class MaintenanceCheckpoint extends AbstractEntity {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    // Last key processed by the job, null at the start of a pass
+    @Column(name = "last_key")
+    private String lastKey;
+}
@@ -0,0 +1,48 @@
+package gr.aueb.cf.grandmasfurnitureapp.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a resumable image upload.
+ * Chunks are written to a temporary file; the offset is the number of bytes received so far.
+ */
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Table(name = "upload_sessions")
+public class UploadSession extends AbstractEntity {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    private String filename;
+
+    @Column(name = "upload_length", nullable = false)
+    private long uploadLength;
+
+    @Column(name = "upload_offset", nullable = false)
+    private long uploadOffset;
+
+    // SHA-256 announced by the client, verified once all bytes arrived
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "temp_path", nullable = false, length = 500)
+    private String tempPath;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -8,24 +8,27 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import jakarta.persistence.*;
 import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLRestriction;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
 
 /**
  * User entity representing application users.
  * Implements UserDetails for Spring Security integration.
+ * Deleted users stay in the table until their ads are purged, hidden from all entity queries.
  */
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
-@Table(name = "users")
-
+@Table(name = "users", indexes = @Index(name = "idx_users_deleted_at", columnList = "deleted_at"))
+@SQLRestriction("deleted_at IS NULL")
 public class User extends  AbstractEntity implements UserDetails {
 
     @Id
@@ -57,6 +60,16 @@ public class User extends  AbstractEntity implements UserDetails {
     @Column(name = "is_active")
     private Boolean isActive = true;
 
+    // Incremented on every update and sent as the ETag, see UserService.updateUserRole
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    // Set by UserService.deleteUser, the rest is removed later by UserPurgeService
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
 //    @Override
 //    public Collection<? extends GrantedAuthority> getAuthorities() {
 //        return List.of(
@@ -1,22 +1,116 @@
 package gr.aueb.cf.grandmasfurnitureapp.repository;
 
 import gr.aueb.cf.grandmasfurnitureapp.model.Ad;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.EntityGraph.EntityGraphType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository for Ad entity operations.
  * Provides CRUD operations and custom queries for furniture advertisements.
+ * Listing queries join the cover image so it is loaded in the same query;
+ * the gallery is only loaded for a single ad. Bulk operations work on ID sets
+ * with set-based statements and bypass the persistence context.
  */
 public interface AdRepository extends JpaRepository<Ad, Long>, JpaSpecificationExecutor<Ad> {
 
     Optional<Ad> findByCityCityName(String cityName);
     Optional<Ad> findByPrice(BigDecimal price);
+
+    @EntityGraph(attributePaths = "image", type = EntityGraphType.LOAD)
     List<Ad> findByIsAvailableTrue();
+
+    @EntityGraph(attributePaths = "image", type = EntityGraphType.LOAD)
     List<Ad> findByUserId(Long userId);
 
+    @EntityGraph(attributePaths = {"image", "gallery", "gallery.attachment"}, type = EntityGraphType.LOAD)
+    Optional<Ad> findWithGalleryById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = "image", type = EntityGraphType.LOAD)
+    Page<Ad> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "image", type = EntityGraphType.LOAD)
+    List<Ad> findAll(Specification<Ad> spec);
+
+    @Override
+    @EntityGraph(attributePaths = "image", type = EntityGraphType.LOAD)
+    Page<Ad> findAll(Specification<Ad> spec, Pageable pageable);
+
+    /**
+     * Keeps the IDs of ads that belong to a user.
+     */
+    @Query("SELECT a.id FROM Ad a WHERE a.id IN :ids AND a.user.id = :userId")
+    List<Long> findIdsByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    @Query("SELECT a.image.id FROM Ad a WHERE a.id IN :ids")
+    List<Long> findImageIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // One entry per gallery image, an attachment used twice appears twice
+    @Query("SELECT i.attachment.id FROM AdImage i WHERE i.ad.id IN :ids")
+    List<Long> findGalleryAttachmentIdsByAdIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Ad a SET a.isAvailable = :available, a.version = a.version + 1, a.updatedAt = :now " +
+            "WHERE a.id IN :ids")
+    int updateAvailability(@Param("ids") Collection<Long> ids,
+                           @Param("available") Boolean available,
+                           @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AdImage i WHERE i.ad.id IN :ids")
+    int deleteGalleryByAdIdIn(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Ad a WHERE a.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Hides all ads of a user, see {@link gr.aueb.cf.grandmasfurnitureapp.model.Ad#getDeletedAt()}.
+     *
+     * @return number of hidden ads
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Ad a SET a.deletedAt = :now, a.updatedAt = :now WHERE a.user.id = :userId AND a.deletedAt IS NULL")
+    int markDeletedByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    // The purge works on hidden ads, which JPQL does not see, so its queries are native
+
+    @Query(value = "SELECT id FROM ads WHERE user_id = :userId ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Long> findPurgeBatch(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Query(value = "SELECT attachment_id FROM ads WHERE id IN :ids AND attachment_id IS NOT NULL", nativeQuery = true)
+    List<Long> findPurgeImageIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT attachment_id FROM ad_images WHERE ad_id IN :ids", nativeQuery = true)
+    List<Long> findPurgeGalleryAttachmentIds(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM ad_images WHERE ad_id IN :ids", nativeQuery = true)
+    int purgeGallery(@Param("ids") Collection<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM ads WHERE id IN :ids", nativeQuery = true)
+    int purgeByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,10 +1,19 @@
 package gr.aueb.cf.grandmasfurnitureapp.repository;
 
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.AttachmentStatus;
 import gr.aueb.cf.grandmasfurnitureapp.model.Attachment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -14,5 +23,124 @@ import java.util.Optional;
 @Repository
 public interface AttachmentRepository extends JpaRepository<Attachment, Long>, JpaSpecificationExecutor<Attachment> {
 
-    Optional<Attachment> findByAdId(Long id);
+    Optional<Attachment> findByContentHash(String contentHash);
+
+    List<Attachment> findByContentHashIn(Collection<String> contentHashes);
+
+    List<Attachment> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<Attachment> findTop50ByStatusAndUpdatedAtBeforeOrderByIdAsc(AttachmentStatus status, LocalDateTime before);
+
+    List<Attachment> findTop50ByReferenceCountAndContentHashIsNotNullAndUpdatedAtBeforeOrderByIdAsc(
+            int referenceCount, LocalDateTime before);
+
+    /**
+     * Atomically moves an attachment from one status to another.
+     * Used by the image workers to claim a job so it is never processed twice.
+     *
+     * @return number of updated rows (1 if the transition happened, 0 otherwise)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.status = :to, a.updatedAt = :now WHERE a.id = :id AND a.status = :from")
+    int transitionStatus(@Param("id") Long id,
+                         @Param("from") AttachmentStatus from,
+                         @Param("to") AttachmentStatus to,
+                         @Param("now") LocalDateTime now);
+
+    /**
+     * Stores the result of a finished image job. Only the columns owned by the worker are
+     * written, so references taken while the job ran are kept.
+     *
+     * @return number of updated rows, 0 if the job is no longer claimed by this worker
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.filePath = :filePath, a.thumbnailPath = :thumbnailPath, " +
+            "a.placeholder = :placeholder, a.stagedPath = NULL, a.status = :ready, a.updatedAt = :now " +
+            "WHERE a.id = :id AND a.status = :processing")
+    int markReady(@Param("id") Long id,
+                  @Param("filePath") String filePath,
+                  @Param("thumbnailPath") String thumbnailPath,
+                  @Param("placeholder") String placeholder,
+                  @Param("ready") AttachmentStatus ready,
+                  @Param("processing") AttachmentStatus processing,
+                  @Param("now") LocalDateTime now);
+
+    /**
+     * Counts a failed attempt of an image job and moves it to the given status, PENDING
+     * to retry it or FAILED once the attempts are used up, without a staged file then.
+     *
+     * @return number of updated rows, 0 if the job is no longer claimed by this worker
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.retryCount = a.retryCount + 1, a.status = :to, a.stagedPath = :stagedPath, " +
+            "a.updatedAt = :now WHERE a.id = :id AND a.status = :processing")
+    int markAttemptFailed(@Param("id") Long id,
+                          @Param("to") AttachmentStatus to,
+                          @Param("stagedPath") String stagedPath,
+                          @Param("processing") AttachmentStatus processing,
+                          @Param("now") LocalDateTime now);
+
+    /**
+     * Restarts the grace period of an attachment that is about to be referenced,
+     * see {@code AttachmentService.purgeUnreferencedAttachments}.
+     *
+     * @return number of updated rows, 0 if the attachment was purged in the meantime
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.updatedAt = :now WHERE a.id = :id")
+    int touch(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.referenceCount = a.referenceCount + 1, a.updatedAt = :now WHERE a.id = :id")
+    int incrementReferenceCount(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Adds the same number of references to several attachments in one statement.
+     *
+     * @return number of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.referenceCount = a.referenceCount + :by, a.updatedAt = :now WHERE a.id IN :ids")
+    int incrementReferenceCounts(@Param("ids") Collection<Long> ids,
+                                 @Param("by") int by,
+                                 @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.referenceCount = a.referenceCount - 1, a.updatedAt = :now " +
+            "WHERE a.id = :id AND a.referenceCount > 0")
+    int decrementReferenceCount(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Removes the same number of references from several attachments in one statement.
+     *
+     * @return number of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Attachment a SET a.referenceCount = a.referenceCount - :by, a.updatedAt = :now " +
+            "WHERE a.id IN :ids AND a.referenceCount >= :by")
+    int decrementReferenceCounts(@Param("ids") Collection<Long> ids,
+                                 @Param("by") int by,
+                                 @Param("now") LocalDateTime now);
+
+    // Attachments stored before deduplication, owned by a single ad
+    List<Attachment> findByIdInAndContentHashIsNull(Collection<Long> ids);
+
+    /**
+     * Deletes an attachment only if nothing references it anymore and it was not
+     * touched since the cutoff.
+     *
+     * @return number of deleted rows
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Attachment a WHERE a.id = :id AND a.referenceCount = 0 AND a.updatedAt < :before")
+    int deleteIfUnreferenced(@Param("id") Long id, @Param("before") LocalDateTime before);
 }
@@ -0,0 +1,12 @@
+package gr.aueb.cf.grandmasfurnitureapp.repository;
+
+import gr.aueb.cf.grandmasfurnitureapp.model.MaintenanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for the progress markers of background maintenance jobs.
+ */
+@Repository
+public interface MaintenanceCheckpointRepository extends JpaRepository<MaintenanceCheckpoint, String> {
+}
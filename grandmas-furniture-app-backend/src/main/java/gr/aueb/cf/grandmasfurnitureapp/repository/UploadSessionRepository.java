@@ -0,0 +1,40 @@
+package gr.aueb.cf.grandmasfurnitureapp.repository;
+
+import gr.aueb.cf.grandmasfurnitureapp.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for resumable upload sessions.
+ */
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+
+    long countByUserId(Long userId);
+
+    List<UploadSession> findByUserId(Long userId);
+
+    List<UploadSession> findTop50ByExpiresAtBeforeOrderByExpiresAtAsc(LocalDateTime now);
+
+    /**
+     * Moves the offset forward only if no other request did so in the meantime.
+     *
+     * @return number of updated rows (1 if the offset was advanced, 0 otherwise)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.uploadOffset = :newOffset, s.expiresAt = :expiresAt, s.updatedAt = :now " +
+            "WHERE s.id = :id AND s.uploadOffset = :expectedOffset")
+    int advanceOffset(@Param("id") String id,
+                      @Param("expectedOffset") long expectedOffset,
+                      @Param("newOffset") long newOffset,
+                      @Param("expiresAt") LocalDateTime expiresAt,
+                      @Param("now") LocalDateTime now);
+}
@@ -3,7 +3,12 @@ package gr.aueb.cf.grandmasfurnitureapp.repository;
 import gr.aueb.cf.grandmasfurnitureapp.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -15,4 +20,43 @@ public interface UserRepository extends JpaRepository<User ,Long>, JpaSpecificat
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
 
+    // Native, so that deleted users count too, they keep their username and email until purged
+    @Query(value = "SELECT COUNT(*) FROM users WHERE username = :username", nativeQuery = true)
+    long countByUsernameIncludingDeleted(@Param("username") String username);
+
+    @Query(value = "SELECT COUNT(*) FROM users WHERE email = :email", nativeQuery = true)
+    long countByEmailIncludingDeleted(@Param("email") String email);
+
+    /**
+     * Replaces a password hash unless it was changed since it was read.
+     *
+     * @return number of updated rows, 0 if the hash no longer matches
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
+    /**
+     * Marks a user as deleted, which hides it from all entity queries. Clears the persistence
+     * context, so a user loaded before is not kept with its old version.
+     *
+     * @return number of updated rows, 0 if the user was deleted already
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.deletedAt = :now, u.version = u.version + 1, u.updatedAt = :now " +
+            "WHERE u.id = :id AND u.deletedAt IS NULL")
+    int markDeleted(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Native, deleted users are invisible to JPQL
+    @Query(value = "SELECT id FROM users WHERE deleted_at IS NOT NULL ORDER BY deleted_at, id LIMIT 1",
+            nativeQuery = true)
+    Optional<Long> findNextDeletedId();
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM users WHERE id = :id AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purgeDeleted(@Param("id") Long id);
+
 }
@@ -1,16 +1,27 @@
 package gr.aueb.cf.grandmasfurnitureapp.rest;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.aueb.cf.grandmasfurnitureapp.core.VersionETags;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.ImportFormat;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectInvalidArgumentException;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotFoundException;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotAuthorizedException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppPreconditionFailedException;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppServerException;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.ValidationException;
 import gr.aueb.cf.grandmasfurnitureapp.core.filters.AdFilters;
 import gr.aueb.cf.grandmasfurnitureapp.core.filters.Paginated;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdBulkAvailabilityDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdBulkDeleteDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdBulkResultDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdImportResultDTO;
 import gr.aueb.cf.grandmasfurnitureapp.dto.AdInsertDTO;
 import gr.aueb.cf.grandmasfurnitureapp.dto.AdReadOnlyDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdUpdateDTO;
 import gr.aueb.cf.grandmasfurnitureapp.dto.ResponseMessageDTO;
 import gr.aueb.cf.grandmasfurnitureapp.model.User;
+import gr.aueb.cf.grandmasfurnitureapp.service.AdImportService;
 import gr.aueb.cf.grandmasfurnitureapp.service.AdService;
 import io.jsonwebtoken.io.IOException;
 import io.swagger.v3.oas.annotations.Operation;
@@ -27,14 +38,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
 import gr.aueb.cf.grandmasfurnitureapp.core.enums.Condition;
@@ -53,10 +67,12 @@ public class AdRestController {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AdRestController.class);
     private final AdService adService;
+    private final AdImportService adImportService;
+    private final ObjectMapper objectMapper;
 
     /**
-     * Creates a new ad with optional image.
-     * Accepts multipart form data with ad JSON and image file.
+     * Creates a new ad with optional images.
+     * Accepts multipart form data with ad JSON, a cover image and further gallery images.
      */
 
     @Operation(summary = "Create new ad with image")
@@ -84,7 +100,11 @@ public class AdRestController {
 
             @Parameter(description = "Image file (optional)")
             @RequestPart(value = "image", required = false)
-            MultipartFile image
+            MultipartFile image,
+
+            @Parameter(description = "Further gallery images, in display order (optional)")
+            @RequestPart(value = "images", required = false)
+            List<MultipartFile> images
     )
             throws AppObjectNotFoundException,
             ValidationException,
@@ -98,7 +118,7 @@ public class AdRestController {
         }
 
         try {
-            AdReadOnlyDTO createdAd = adService.createAd(user, adInsertDTO, image);
+            AdReadOnlyDTO createdAd = adService.createAd(user, adInsertDTO, image, images);
             LOGGER.info("Ad created successfully with ID: {}", createdAd.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(createdAd);
         } catch (IOException e) {
@@ -112,7 +132,31 @@ public class AdRestController {
 
 
     /**
-     * Updates an existing ad with optional image replacement.
+     * Creates many ads at once from CSV or NDJSON, one ad per row with the fields of the
+     * single-ad JSON. Images are referenced by the content hash of an earlier upload.
+     * Rejected rows are reported in the response; all other rows are imported.
+     */
+    @Operation(summary = "Import ads in bulk from CSV or NDJSON")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import finished, see the errors for rejected rows"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "415", description = "Unsupported Media Type"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping(path = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<AdImportResultDTO> importAds(
+            @AuthenticationPrincipal User user,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            @Parameter(description = "Rows, read as they arrive") InputStream body)
+            throws AppServerException {
+
+        ImportFormat format = ImportFormat.fromContentType(contentType);
+        return ResponseEntity.ok(adImportService.importAds(user, body, format));
+    }
+
+    /**
+     * Updates an existing ad with optional image gallery replacement.
+     * With If-Match set to the ETag of the ad, the update only applies to that version.
      */
     @PutMapping(value = "/{id}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @Operation(summary = "Update ad")
@@ -121,16 +165,22 @@ public class AdRestController {
             @ApiResponse(responseCode = "400", description = "Invalid input data"),
             @ApiResponse(responseCode = "404", description = "Ad not found"),
             @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "412", description = "Ad was changed since the version in If-Match"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<AdReadOnlyDTO> updateAd(
             @Parameter(description = "Ad ID") @PathVariable Long id,
+            @Parameter(description = "ETag of the ad as last fetched (optional)")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Parameter(description = "Updated ad data as JSON")
             @RequestPart("ad") @Valid AdInsertDTO adDto,
             @Parameter(description = "New image file (optional)")
             @RequestPart(value = "image", required = false) MultipartFile image,
+            @Parameter(description = "New gallery images, replacing the current gallery (optional)")
+            @RequestPart(value = "images", required = false) List<MultipartFile> images,
             BindingResult bindingResult)
-            throws AppObjectNotFoundException, ValidationException, AppObjectInvalidArgumentException {
+            throws AppObjectNotFoundException, ValidationException, AppObjectInvalidArgumentException,
+            AppPreconditionFailedException {
 
         LOGGER.info("Updating ad ID: {}", id);
 
@@ -138,10 +188,47 @@ public class AdRestController {
             throw new ValidationException(bindingResult);
         }
 
-        AdReadOnlyDTO updatedAd = adService.updateAd(id, adDto, image);
+        Long expectedVersion = VersionETags.expectedVersion(ifMatch, "Ad");
+        AdReadOnlyDTO updatedAd = adService.updateAd(id, adDto, image, images, expectedVersion);
         LOGGER.info("Ad updated successfully: {}", id);
 
-        return ResponseEntity.ok(updatedAd);
+        return ResponseEntity.ok().eTag(eTagOf(updatedAd)).body(updatedAd);
+    }
+
+    /**
+     * Changes some fields of an ad, given as plain JSON. Fields left out keep their value
+     * and only the changed columns are written. If-Match works as for the full update.
+     * Only the owner of the ad or an admin may change it.
+     */
+    @PatchMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Partially update ad")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ad updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "404", description = "Ad or its new category or city not found"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized, or not the owner of the ad"),
+            @ApiResponse(responseCode = "412", description = "Ad was changed since the version in If-Match"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    public ResponseEntity<AdReadOnlyDTO> patchAd(
+            @AuthenticationPrincipal User user,
+            @Parameter(description = "Ad ID") @PathVariable Long id,
+            @Parameter(description = "ETag of the ad as last fetched (optional)")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Valid @RequestBody AdUpdateDTO adUpdateDTO,
+            BindingResult bindingResult)
+            throws AppObjectNotFoundException, AppObjectNotAuthorizedException, ValidationException,
+            AppPreconditionFailedException {
+
+        if (bindingResult.hasErrors()) {
+            throw new ValidationException(bindingResult);
+        }
+
+        Long expectedVersion = VersionETags.expectedVersion(ifMatch, "Ad");
+        AdReadOnlyDTO patchedAd = adService.patchAd(user, id, adUpdateDTO, expectedVersion);
+        LOGGER.info("Ad patched successfully: {}", id);
+
+        return ResponseEntity.ok().eTag(eTagOf(patchedAd)).body(patchedAd);
     }
 
     /**
@@ -174,21 +261,86 @@ public class AdRestController {
     }
 
     /**
-     * Gets a single ad by ID.
+     * Marks several of the user's ads available or unavailable in one transaction.
+     * IDs that do not exist or belong to another user are skipped and listed in the response.
+     */
+    @Operation(summary = "Change availability of many ads")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Availability changed, see skippedIds for ads left unchanged"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data or too many IDs"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/bulk/availability")
+    public ResponseEntity<AdBulkResultDTO> updateAvailability(
+            @AuthenticationPrincipal User user,
+            @Valid @RequestBody AdBulkAvailabilityDTO dto,
+            BindingResult bindingResult)
+            throws ValidationException, AppObjectInvalidArgumentException {
+
+        if (bindingResult.hasErrors()) {
+            throw new ValidationException(bindingResult);
+        }
+        return ResponseEntity.ok(adService.updateAvailability(user, dto));
+    }
+
+    /**
+     * Deletes several of the user's ads in one transaction. Their image files are removed in the background.
+     * IDs that do not exist or belong to another user are skipped and listed in the response.
+     */
+    @Operation(summary = "Delete many ads")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Ads deleted, see skippedIds for ads left in place"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data or too many IDs"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")
+    })
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<AdBulkResultDTO> deleteAds(
+            @AuthenticationPrincipal User user,
+            @Valid @RequestBody AdBulkDeleteDTO dto,
+            BindingResult bindingResult)
+            throws ValidationException, AppObjectInvalidArgumentException {
+
+        if (bindingResult.hasErrors()) {
+            throw new ValidationException(bindingResult);
+        }
+        return ResponseEntity.ok(adService.deleteAds(user, dto));
+    }
+
+    /**
+     * Gets a single ad by ID. The ETag carries the ad's version, for If-Match on updates,
+     * and a digest of the body, for If-None-Match on later reads.
      */
     @GetMapping("/{id}")
     @Operation(summary = "Get ad by ID")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Ad retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Ad unchanged since the ETag in If-None-Match"),
             @ApiResponse(responseCode = "404", description = "Ad not found"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
     public ResponseEntity<AdReadOnlyDTO> getAdById(
-            @Parameter(description = "Ad ID") @PathVariable Long id)
+            @Parameter(description = "Ad ID") @PathVariable Long id,
+            WebRequest webRequest)
             throws AppObjectNotFoundException {
 
         AdReadOnlyDTO ad = adService.getAdById(id);
-        return ResponseEntity.ok(ad);
+        String eTag = eTagOf(ad);
+        if (webRequest.checkNotModified(eTag)) {
+            // 304 with the ETag header already set
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(ad);
+    }
+
+    // Image status, thumbnails and the owner's details change without a new ad version
+    private String eTagOf(AdReadOnlyDTO ad) {
+        try {
+            return VersionETags.of(ad.getVersion(), objectMapper.writeValueAsBytes(ad));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Ad " + ad.getId() + " could not be serialized", e);
+        }
     }
 
     /**
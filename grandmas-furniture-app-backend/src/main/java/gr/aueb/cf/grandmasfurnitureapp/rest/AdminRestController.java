@@ -0,0 +1,80 @@
+package gr.aueb.cf.grandmasfurnitureapp.rest;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.timing.SlowQueryLog;
+import gr.aueb.cf.grandmasfurnitureapp.dto.SlowQueryReadOnlyDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.SlowQueryShapeReadOnlyDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for operational views, ADMIN only.
+ * Serves the in-app slow-query log, which ties slow SQL back to the endpoint
+ * and search filters that caused it.
+ */
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "Bearer Authentication")
+@Tag(name = "Admin", description = "Operational views")
+public class AdminRestController {
+
+    private final SlowQueryLog slowQueryLog;
+
+    /**
+     * Lists the most recent slow statements.
+     */
+    @GetMapping("/slow-queries")
+    @Operation(summary = "Get recent slow statements, newest first")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Slow statements retrieved successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required")
+    })
+    public ResponseEntity<List<SlowQueryReadOnlyDTO>> getSlowQueries(
+            @Parameter(description = "Maximum number of entries") @RequestParam(defaultValue = "100") int limit) {
+
+        return ResponseEntity.ok(slowQueryLog.getRecent(Math.max(0, limit)));
+    }
+
+    /**
+     * Aggregates the recorded slow statements by search shape.
+     */
+    @GetMapping("/slow-queries/shapes")
+    @Operation(summary = "Get slow statements aggregated by search shape, most total time first")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Aggregation retrieved successfully"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required")
+    })
+    public ResponseEntity<List<SlowQueryShapeReadOnlyDTO>> getSlowQueryShapes() {
+        return ResponseEntity.ok(slowQueryLog.getShapes());
+    }
+
+    /**
+     * Empties the slow-query log, e.g. after deploying an index.
+     */
+    @DeleteMapping("/slow-queries")
+    @Operation(summary = "Clear the slow-query log")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Slow-query log cleared"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required")
+    })
+    public ResponseEntity<Void> clearSlowQueries() {
+        slowQueryLog.clear();
+        return ResponseEntity.noContent().build();
+    }
+}
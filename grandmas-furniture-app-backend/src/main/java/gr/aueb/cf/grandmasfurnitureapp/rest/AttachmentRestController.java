@@ -0,0 +1,51 @@
+package gr.aueb.cf.grandmasfurnitureapp.rest;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotFoundException;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AttachmentReadOnlyDTO;
+import gr.aueb.cf.grandmasfurnitureapp.mapper.Mapper;
+import gr.aueb.cf.grandmasfurnitureapp.service.AttachmentService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for the image upload handshake.
+ * Clients send the SHA-256 of an image first and skip the upload when the
+ * content is already stored, referencing it through {@code imageHash} instead.
+ */
+@RestController
+@RequestMapping("/api/attachments")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "Bearer Authentication")
+@Tag(name = "Attachments", description = "Image upload handshake")
+public class AttachmentRestController {
+
+    private final AttachmentService attachmentService;
+    private final Mapper mapper;
+
+    /**
+     * Looks up stored image content by its hash.
+     */
+    @GetMapping("/{contentHash:[a-fA-F0-9]{64}}")
+    @Operation(summary = "Check if image content is already stored")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Content is stored, upload can be skipped"),
+            @ApiResponse(responseCode = "404", description = "Content is not stored, upload the image"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<AttachmentReadOnlyDTO> getByContentHash(
+            @Parameter(description = "Hex encoded SHA-256 of the image") @PathVariable String contentHash)
+            throws AppObjectNotFoundException {
+
+        return ResponseEntity.ok(mapper.mapToAttachmentReadOnlyDTO(attachmentService.findByContentHash(contentHash)));
+    }
+}
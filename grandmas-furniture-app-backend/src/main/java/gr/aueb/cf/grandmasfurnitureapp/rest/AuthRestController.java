@@ -4,6 +4,7 @@ import gr.aueb.cf.grandmasfurnitureapp.authentication.AuthenticationService;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.*;
 import gr.aueb.cf.grandmasfurnitureapp.dto.AuthenticationRequestDTO;
 import gr.aueb.cf.grandmasfurnitureapp.dto.AuthenticationResponseDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.RefreshTokenRequestDTO;
 import gr.aueb.cf.grandmasfurnitureapp.dto.UserInsertDTO;
 import gr.aueb.cf.grandmasfurnitureapp.dto.UserReadOnlyDTO;
 import gr.aueb.cf.grandmasfurnitureapp.service.UserService;
@@ -13,10 +14,12 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -42,8 +45,11 @@ public class AuthRestController {
      * Authenticates user credentials for successful login and returns JWT token.
      *
      * @param authenticationRequestDTO containing username and password
+     * @param request the HTTP request, for the client address
      * @return  ResponseEntity containing the generated JWT and its expiration details
      * @throws AppObjectNotAuthorizedException if the provided credentials are invalid
+     * @throws AppServiceUnavailableException if too many logins are being processed
+     * @throws AppTooManyRequestsException if this client failed too often to log in as this user
      */
     @PostMapping("/login")
     @Operation(summary = "User login")
@@ -51,15 +57,77 @@ public class AuthRestController {
             @ApiResponse(responseCode = "200", description = "Authentication successful"),
             @ApiResponse(responseCode = "401", description = "Invalid credentials"),
             @ApiResponse(responseCode = "400", description = "Invalid request data"),
+            @ApiResponse(responseCode = "429", description = "Rate limit exceeded, retry after the Retry-After delay"),
+            @ApiResponse(responseCode = "503", description = "Too many concurrent logins, retry after the Retry-After delay"),
             @ApiResponse(responseCode = "500", description = "Internal server error")
     })
-    public ResponseEntity<AuthenticationResponseDTO> authenticate(@RequestBody AuthenticationRequestDTO authenticationRequestDTO)
-            throws AppObjectNotAuthorizedException {
-        AuthenticationResponseDTO authenticationResponseDTO = authenticationService.authenticate(authenticationRequestDTO);
+    public ResponseEntity<AuthenticationResponseDTO> authenticate(@RequestBody AuthenticationRequestDTO authenticationRequestDTO,
+                                                                  HttpServletRequest request)
+            throws AppObjectNotAuthorizedException, AppServiceUnavailableException, AppTooManyRequestsException {
+        AuthenticationResponseDTO authenticationResponseDTO =
+                authenticationService.authenticate(authenticationRequestDTO, request.getRemoteAddr());
         return new ResponseEntity<>(authenticationResponseDTO, HttpStatus.OK);
     }
 
 
+    /**
+     * Renews the access token. The refresh token is replaced and must not be used again.
+     *
+     * @param refreshTokenRequestDTO containing the current refresh token
+     * @return ResponseEntity containing a new access token and refresh token
+     * @throws AppObjectNotAuthorizedException if the refresh token is invalid, expired or already used
+     * @throws ValidationException if the request data are invalid
+     */
+    @PostMapping("/refresh")
+    @Operation(summary = "Refresh the access token")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "New access and refresh token"),
+            @ApiResponse(responseCode = "401", description = "Invalid, expired or reused refresh token"),
+            @ApiResponse(responseCode = "400", description = "Invalid request data")
+    })
+    public ResponseEntity<AuthenticationResponseDTO> refresh(
+            @Valid @RequestBody RefreshTokenRequestDTO refreshTokenRequestDTO,
+            BindingResult bindingResult)
+            throws AppObjectNotAuthorizedException, ValidationException {
+
+        if (bindingResult.hasErrors()) {
+            throw new ValidationException(bindingResult);
+        }
+        return new ResponseEntity<>(authenticationService.refresh(refreshTokenRequestDTO), HttpStatus.OK);
+    }
+
+
+    /**
+     * Logs out: revokes the refresh token and the access token sent in the Authorization header.
+     *
+     * @param refreshTokenRequestDTO containing the refresh token
+     * @param bindingResult holds validation errors, if any.
+     * @param authorization Optional Authorization header with the current access token
+     * @return ResponseEntity with no content
+     * @throws ValidationException if the request data are invalid
+     */
+    @PostMapping("/logout")
+    @Operation(summary = "User logout")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Tokens revoked"),
+            @ApiResponse(responseCode = "400", description = "Invalid request data")
+    })
+    public ResponseEntity<Void> logout(
+            @Valid @RequestBody RefreshTokenRequestDTO refreshTokenRequestDTO,
+            BindingResult bindingResult,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization)
+            throws ValidationException {
+
+        if (bindingResult.hasErrors()) {
+            throw new ValidationException(bindingResult);
+        }
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7) : null;
+        authenticationService.logout(refreshTokenRequestDTO, accessToken);
+        return ResponseEntity.noContent().build();
+    }
+
+
     /**
      * Registers a new user
      *
@@ -68,6 +136,7 @@ public class AuthRestController {
      * @return ResponseEntity containing the created {@link UserReadOnlyDTO} and Location header
      * @throws AppObjectAlreadyExists if a user with the same username or email exists
      * @throws ValidationException if the request data are invalid
+     * @throws AppServiceUnavailableException if the password hashing pool is saturated
      */
     @PostMapping("/register")
     @Operation(summary = "User registration")
@@ -80,9 +149,9 @@ public class AuthRestController {
     public ResponseEntity<UserReadOnlyDTO> registerUser(
             @Valid @RequestBody UserInsertDTO userInsertDTO,
             BindingResult bindingResult)
-            throws AppObjectAlreadyExists , ValidationException {
+            throws AppObjectAlreadyExists, AppServiceUnavailableException, ValidationException {
 
-        LOGGER.info("Register User Request: {}", userInsertDTO);
+        LOGGER.info("Register user request for username: {}", userInsertDTO.getUsername());
 
         if (bindingResult.hasErrors()) {
             LOGGER.error("Registering errors: {}", bindingResult.getAllErrors());
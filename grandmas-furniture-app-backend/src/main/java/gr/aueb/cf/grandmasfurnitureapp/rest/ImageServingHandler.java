@@ -0,0 +1,420 @@
+package gr.aueb.cf.grandmasfurnitureapp.rest;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.timing.RequestTimings;
+import gr.aueb.cf.grandmasfurnitureapp.service.FileService;
+import gr.aueb.cf.grandmasfurnitureapp.service.ImageTranscodeService;
+import gr.aueb.cf.grandmasfurnitureapp.service.ImageTranscodeService.TargetFormat;
+import gr.aueb.cf.grandmasfurnitureapp.storage.BlobInfo;
+import gr.aueb.cf.grandmasfurnitureapp.storage.BlobStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves uploaded ad images under /uploads/**.
+ * Blobs under /uploads/blobs/ come from the configured {@link BlobStorage}, anything
+ * else from the legacy uploads directory. For files on a local disk, large responses are
+ * handed to Tomcat's sendfile so the kernel copies the file straight to the socket;
+ * smaller ones go through {@link FileChannel#transferTo}. Remote blobs are streamed.
+ * JPEG and PNG blobs are sent as AVIF or WebP to clients that name those formats in
+ * their Accept header, see {@link ImageTranscodeService}.
+ * Supports single byte ranges and conditional requests, and caches file metadata
+ * for a short time so hot images don't cost a stat call per request.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageServingHandler implements HttpRequestHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageServingHandler.class);
+
+    // Request attributes of Tomcat's sendfile support (org.apache.catalina.Globals)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Blobs are content-addressed, so their bytes never change under the same URL
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String DEFAULT_CACHE_CONTROL = "public, max-age=3600";
+    private static final String BLOBS_PREFIX = "blobs/";
+    private static final String VARIANT_RETRY = ImageServingHandler.class.getName() + ".variantRetry";
+
+    private final FileService fileService;
+    private final BlobStorage blobStorage;
+    private final ImageTranscodeService imageTranscodeService;
+
+    @Value("${app.images.serving.metadata-ttl-ms:10000}")
+    private long metadataTtlMs;
+
+    @Value("${app.images.serving.metadata-cache-size:10000}")
+    private int metadataCacheSize;
+
+    @Value("${app.images.serving.sendfile-threshold:49152}")
+    private long sendfileThreshold;
+
+    private final Map<String, FileMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    @Override
+    public void handleRequest(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        boolean head = HttpMethod.HEAD.matches(request.getMethod());
+        if (!head && !HttpMethod.GET.matches(request.getMethod())) {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD");
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        String relativePath = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        long storageStart = RequestTimings.start();
+        FileMetadata metadata = lookup(relativePath);
+        RequestTimings.stop(RequestTimings.Phase.STORAGE, storageStart);
+        if (metadata == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String cacheKey = relativePath;
+        if (isTranscodable(metadata)) {
+            // Set on every answer for this URL, shared caches must key the body by Accept
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            TargetFormat format = negotiate(request);
+            if (format != null) {
+                cacheKey = relativePath + "#" + format.getExtension();
+                long variantStart = RequestTimings.start();
+                metadata = lookupVariant(cacheKey, metadata, format);
+                RequestTimings.stop(RequestTimings.Phase.STORAGE, variantStart);
+            }
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, metadata.immutable ? IMMUTABLE_CACHE_CONTROL : DEFAULT_CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Handles If-None-Match, If-Modified-Since, If-Match and If-Unmodified-Since (304 / 412)
+        if (new ServletWebRequest(request, response).checkNotModified(metadata.etag, metadata.lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = metadata.size - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, metadata)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                sendRangeNotSatisfiable(response, metadata);
+                return;
+            }
+
+            // Multipart byte ranges are not worth it for images, answer those with the full body
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                start = range.getRangeStart(metadata.size);
+                if (start >= metadata.size) {
+                    sendRangeNotSatisfiable(response, metadata);
+                    return;
+                }
+                end = range.getRangeEnd(metadata.size);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + metadata.size);
+            }
+        }
+
+        long length = end - start + 1;
+        response.setContentType(metadata.contentType);
+        response.setContentLengthLong(length);
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        if (head || length == 0) {
+            return;
+        }
+
+        if (metadata.path != null && length >= sendfileThreshold
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the file after the handler returns, end offset is exclusive
+            request.setAttribute(SENDFILE_FILENAME, metadata.path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try {
+            if (metadata.path != null) {
+                transfer(metadata.path, start, length, response);
+            } else {
+                try (InputStream in = blobStorage.open(metadata.blobKey, start, length)) {
+                    in.transferTo(response.getOutputStream());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted or evicted after its metadata was cached
+            metadataCache.remove(cacheKey);
+            if (!response.isCommitted()) {
+                response.reset();
+                if (!cacheKey.equals(relativePath) && request.getAttribute(VARIANT_RETRY) == null) {
+                    // Only the variant is gone, answer again from fresh metadata
+                    request.setAttribute(VARIANT_RETRY, Boolean.TRUE);
+                    handleRequest(request, response);
+                } else {
+                    response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolves a path below /uploads/, using cached metadata while it is fresh.
+     *
+     * @param relativePath Path below /uploads/
+     * @return The file's metadata, or null if it does not exist or escapes the uploads root
+     */
+    private FileMetadata lookup(String relativePath) throws IOException {
+        if (relativePath == null || relativePath.isBlank()) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        FileMetadata cached = metadataCache.get(relativePath);
+        if (cached != null && cached.expiresAt > now) {
+            return cached;
+        }
+
+        String blobKey = null;
+        Path path;
+        if (relativePath.startsWith(BLOBS_PREFIX)) {
+            blobKey = relativePath.substring(BLOBS_PREFIX.length());
+            if (!BlobStorage.isValidKey(blobKey)) {
+                return null;
+            }
+            path = blobStorage.localPath(blobKey).orElse(null);
+        } else {
+            Path root = fileService.getUploadsRoot();
+            path = root.resolve(relativePath).normalize();
+            if (!path.startsWith(root)) {
+                LOGGER.warn("Rejected image path outside uploads root: {}", relativePath);
+                return null;
+            }
+        }
+
+        long size;
+        long lastModified;
+        if (path != null) {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                metadataCache.remove(relativePath);
+                return null;
+            }
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            size = attributes.size();
+            lastModified = attributes.lastModifiedTime().toMillis();
+        } else {
+            BlobInfo info = blobStorage.stat(blobKey).orElse(null);
+            if (info == null) {
+                metadataCache.remove(relativePath);
+                return null;
+            }
+            size = info.getSize();
+            lastModified = info.getLastModified();
+        }
+
+        FileMetadata metadata = new FileMetadata(
+                path,
+                blobKey,
+                size,
+                lastModified,
+                "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"",
+                // Blobs on remote backends have no local path, their key carries the extension
+                MediaTypeFactory.getMediaType(blobKey != null ? blobKey : path.getFileName().toString())
+                        .orElse(MediaType.APPLICATION_OCTET_STREAM).toString(),
+                blobKey != null,
+                now + metadataTtlMs);
+
+        cache(relativePath, metadata, now);
+        return metadata;
+    }
+
+    /**
+     * Resolves the transcoded variant of a blob. Falls back to the original while the
+     * variant is being rendered elsewhere or is not worth serving; that answer is cached too,
+     * so a busy transcoder is asked again only after the metadata TTL.
+     *
+     * @param cacheKey Metadata cache key of the variant
+     * @param original Metadata of the original blob
+     * @param format The negotiated format
+     * @return Metadata of the variant, or of the original
+     */
+    private FileMetadata lookupVariant(String cacheKey, FileMetadata original, TargetFormat format) throws IOException {
+        long now = System.currentTimeMillis();
+        FileMetadata cached = metadataCache.get(cacheKey);
+        if (cached != null && cached.expiresAt > now) {
+            return cached;
+        }
+
+        FileMetadata metadata = original;
+        Path variant = imageTranscodeService.getVariant(original.blobKey, format).orElse(null);
+        long size = variant != null ? sizeOf(variant) : -1;
+        if (size >= 0) {
+            // Validators follow the original, the variant's own timestamp is the cache's LRU clock
+            metadata = new FileMetadata(
+                    variant,
+                    original.blobKey,
+                    size,
+                    original.lastModified,
+                    "\"" + Long.toHexString(size) + "-" + Long.toHexString(original.lastModified)
+                            + "-" + format.getExtension() + "\"",
+                    format.getContentType(),
+                    true,
+                    now + metadataTtlMs);
+        }
+
+        cache(cacheKey, metadata, now);
+        return metadata;
+    }
+
+    private long sizeOf(Path path) throws IOException {
+        try {
+            return Files.size(path);
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+    }
+
+    private void cache(String cacheKey, FileMetadata metadata, long now) {
+        if (metadataCache.size() >= metadataCacheSize) {
+            metadataCache.values().removeIf(entry -> entry.expiresAt <= now);
+            if (metadataCache.size() >= metadataCacheSize) {
+                metadataCache.clear();
+            }
+        }
+        metadataCache.put(cacheKey, metadata);
+    }
+
+    /**
+     * Only blobs are transcoded: their content never changes, so a variant never goes stale.
+     * GIFs may be animated and WebP is already compact, so those are served as uploaded.
+     */
+    private boolean isTranscodable(FileMetadata metadata) {
+        return metadata.blobKey != null
+                && !imageTranscodeService.getAvailableFormats().isEmpty()
+                && (MediaType.IMAGE_JPEG_VALUE.equals(metadata.contentType)
+                || MediaType.IMAGE_PNG_VALUE.equals(metadata.contentType));
+    }
+
+    /**
+     * Picks the preferred format the client explicitly accepts.
+     * Wildcards don't count, browsers send image/* without being able to decode every format.
+     *
+     * @return The format, or null to serve the original
+     */
+    private TargetFormat negotiate(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return null;
+        }
+
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+
+        for (TargetFormat format : imageTranscodeService.getAvailableFormats()) {
+            MediaType target = MediaType.parseMediaType(format.getContentType());
+            for (MediaType mediaType : accepted) {
+                if (!mediaType.isWildcardSubtype() && mediaType.equalsTypeAndSubtype(target)
+                        && mediaType.getQualityValue() > 0) {
+                    return format;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks the If-Range precondition; a stale validator means the full body is sent.
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, FileMetadata metadata) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // Weak validators never match for ranges
+            return ifRange.equals(metadata.etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == metadata.lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void sendRangeNotSatisfiable(HttpServletResponse response, FileMetadata metadata) throws IOException {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + metadata.size);
+        response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+
+    private void transfer(Path path, long start, long length, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Cached result of a stat call on an image file.
+     * Path is null for blobs that do not live on a local disk.
+     */
+    @AllArgsConstructor
+    private static class FileMetadata {
+        private final Path path;
+        private final String blobKey;
+        private final long size;
+        private final long lastModified;
+        private final String etag;
+        private final String contentType;
+        private final boolean immutable;
+        private final long expiresAt;
+    }
+}
@@ -0,0 +1,146 @@
+package gr.aueb.cf.grandmasfurnitureapp.rest;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectConflictException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectInvalidArgumentException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotFoundException;
+import gr.aueb.cf.grandmasfurnitureapp.dto.UploadSessionReadOnlyDTO;
+import gr.aueb.cf.grandmasfurnitureapp.model.User;
+import gr.aueb.cf.grandmasfurnitureapp.service.ResumableUploadService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * REST controller for resumable image uploads (tus 1.0 core protocol).
+ * Complements the multipart upload of {@code /api/ads/save} for clients on unreliable
+ * connections: after a dropped connection they ask for the offset and continue from there.
+ * A completed upload is referenced in the ad JSON through {@code imageHash}.
+ */
+@RestController
+@RequestMapping("/api/uploads")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "Bearer Authentication")
+@Tag(name = "Uploads", description = "Resumable image uploads")
+public class UploadRestController {
+
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_METADATA = "Upload-Metadata";
+    private static final String UPLOAD_CONTENT_HASH = "Upload-Content-Hash";
+    private static final String OFFSET_OCTET_STREAM = "application/offset+octet-stream";
+
+    private final ResumableUploadService resumableUploadService;
+
+    /**
+     * Opens an upload session.
+     */
+    @PostMapping
+    @Operation(summary = "Create a resumable upload")
+    @ApiResponses({
+            @ApiResponse(responseCode = "201", description = "Upload created, Location points at it"),
+            @ApiResponse(responseCode = "400", description = "Invalid length or metadata"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> createUpload(
+            @AuthenticationPrincipal User user,
+            @Parameter(description = "Total size of the file in bytes") @RequestHeader(UPLOAD_LENGTH) long uploadLength,
+            @Parameter(description = "Base64 encoded 'filename' and 'sha256' pairs")
+            @RequestHeader(value = UPLOAD_METADATA, required = false) String metadata)
+            throws AppObjectInvalidArgumentException {
+
+        UploadSessionReadOnlyDTO session = resumableUploadService.createSession(user, uploadLength, metadata);
+        return ResponseEntity.created(URI.create("/api/uploads/" + session.getId()))
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(session.getUploadOffset()))
+                .build();
+    }
+
+    /**
+     * Reports how many bytes of an upload were received.
+     */
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    @Operation(summary = "Get the offset of a resumable upload")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Upload-Offset holds the bytes received so far"),
+            @ApiResponse(responseCode = "404", description = "Upload not found or expired"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> getUploadOffset(
+            @AuthenticationPrincipal User user,
+            @Parameter(description = "Upload ID") @PathVariable String id)
+            throws AppObjectNotFoundException {
+
+        UploadSessionReadOnlyDTO session = resumableUploadService.getSession(user, id);
+        return ResponseEntity.ok()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(session.getUploadOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.getUploadLength()))
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .build();
+    }
+
+    /**
+     * Appends a chunk to an upload.
+     */
+    @PatchMapping(value = "/{id}", consumes = OFFSET_OCTET_STREAM)
+    @Operation(summary = "Append a chunk to a resumable upload",
+            description = "Upload-Content-Hash is returned once the last chunk is received")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Chunk stored, Upload-Offset holds the new offset"),
+            @ApiResponse(responseCode = "400", description = "Chunk too long, or completed file is not a valid image"),
+            @ApiResponse(responseCode = "404", description = "Upload not found or expired"),
+            @ApiResponse(responseCode = "409", description = "Upload-Offset does not match the received bytes"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> appendChunk(
+            @AuthenticationPrincipal User user,
+            @Parameter(description = "Upload ID") @PathVariable String id,
+            @Parameter(description = "Offset of the first byte of the chunk") @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request)
+            throws AppObjectNotFoundException, AppObjectConflictException, AppObjectInvalidArgumentException, IOException {
+
+        UploadSessionReadOnlyDTO session = resumableUploadService.appendChunk(user, id, offset, request.getInputStream());
+
+        ResponseEntity.HeadersBuilder<?> response = ResponseEntity.status(HttpStatus.NO_CONTENT)
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(session.getUploadOffset()));
+        if (session.getContentHash() != null) {
+            response.header(UPLOAD_CONTENT_HASH, session.getContentHash());
+        }
+        return response.build();
+    }
+
+    /**
+     * Cancels an upload.
+     */
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Cancel a resumable upload")
+    @ApiResponses({
+            @ApiResponse(responseCode = "204", description = "Upload cancelled"),
+            @ApiResponse(responseCode = "404", description = "Upload not found or expired"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized")
+    })
+    public ResponseEntity<Void> terminateUpload(
+            @AuthenticationPrincipal User user,
+            @Parameter(description = "Upload ID") @PathVariable String id)
+            throws AppObjectNotFoundException {
+
+        resumableUploadService.terminate(user, id);
+        return ResponseEntity.noContent().header(TUS_RESUMABLE, TUS_VERSION).build();
+    }
+}
@@ -1,6 +1,8 @@
 package gr.aueb.cf.grandmasfurnitureapp.rest;
 
+import gr.aueb.cf.grandmasfurnitureapp.core.VersionETags;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotFoundException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppPreconditionFailedException;
 import gr.aueb.cf.grandmasfurnitureapp.dto.UserReadOnlyDTO;
 import gr.aueb.cf.grandmasfurnitureapp.service.UserService;
 import gr.aueb.cf.grandmasfurnitureapp.dto.UserRoleUpdateDTO;
@@ -14,6 +16,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -95,7 +98,7 @@ public class UserRestController {
      * @throws AppObjectNotFoundException if no user exists with the provided username
      */
     @DeleteMapping("/{username}")
-    @Operation(summary = "Deletes a user", description = "Deletes user by username (Admin only)")
+    @Operation(summary = "Deletes a user", description = "Deletes user by username with all their ads; the data is purged in the background (Admin only)")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "User deleted successfully",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
@@ -123,9 +126,11 @@ public class UserRestController {
      * Updates a user's role.
      *
      * @param userId the ID of the user to update
+     * @param ifMatch the user's version as an ETag, optional
      * @param roleUpdateDTO the new role information
-     * @return ResponseEntity with 200 OK if update is successful
+     * @return ResponseEntity with 200 OK and the new ETag if update is successful
      * @throws AppObjectNotFoundException if no user exists with the provided ID
+     * @throws AppPreconditionFailedException if the user was changed since the version in If-Match
      */
     @PutMapping("/{userId}/role")
     @Operation(summary = "Update user role", description = "Updates user role by ID (Admin only)")
@@ -145,14 +150,21 @@ public class UserRestController {
             @ApiResponse(responseCode = "403", description = "Forbidden - Admin access required",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                             schema = @Schema(example = "{\"code\": \"userNotAuthorized\", \"description\": \"Admin access required\"}"))),
+            @ApiResponse(responseCode = "412", description = "User was changed since the version in If-Match",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                            schema = @Schema(example = "{\"code\": \"UserPreconditionFailed\", \"description\": \"User with id was changed, fetch it again\"}"))),
             @ApiResponse(responseCode = "500", description = "Internal server error",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE))
     })
     public ResponseEntity<Void> updateUserRole(
             @Parameter(description = "ID of the user to update") @PathVariable Long userId,
-            @Parameter(description = "Role update information") @RequestBody UserRoleUpdateDTO roleUpdateDTO) throws AppObjectNotFoundException {
-        userService.updateUserRole(userId, roleUpdateDTO.getRole());
+            @Parameter(description = "Version of the user as an ETag (optional)")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "Role update information") @RequestBody UserRoleUpdateDTO roleUpdateDTO)
+            throws AppObjectNotFoundException, AppPreconditionFailedException {
+        Long expectedVersion = VersionETags.expectedVersion(ifMatch, "User");
+        long version = userService.updateUserRole(userId, roleUpdateDTO.getRole(), expectedVersion);
         LOGGER.info("User with ID {} role updated to {}", userId, roleUpdateDTO.getRole());
-        return new ResponseEntity<>(HttpStatus.OK);
+        return ResponseEntity.ok().eTag(VersionETags.of(version)).build();
     }
 }
@@ -0,0 +1,55 @@
+package gr.aueb.cf.grandmasfurnitureapp.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.Arrays;
+
+/**
+ * Picks the BCrypt cost for this machine.
+ * Each cost step doubles the work, so one measurement at the minimum cost is enough
+ * to find the highest cost that stays within the latency target.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+    private static final int SAMPLES = 3;
+
+    private BCryptCostCalibrator() {
+    }
+
+    /**
+     * Measures BCrypt on this machine and returns the cost for the target latency.
+     *
+     * @param minCost Lowest acceptable cost, returned even if it is slower than the target
+     * @param maxCost Highest cost to use
+     * @param targetMs Time one hash should take, in milliseconds
+     * @return The cost, between minCost and maxCost
+     */
+    public static int calibrate(int minCost, int maxCost, long targetMs) {
+        String salt = BCrypt.gensalt(minCost);
+        // Warm-up, the first run includes class loading and JIT
+        BCrypt.hashpw("calibration", salt);
+
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        double medianMs = samples[SAMPLES / 2] / 1_000_000.0;
+
+        int cost = minCost;
+        double estimateMs = medianMs;
+        while (cost < maxCost && estimateMs * 2 <= targetMs) {
+            cost++;
+            estimateMs *= 2;
+        }
+
+        LOGGER.info("BCrypt cost {} takes about {} ms per hash (cost {} measured {} ms, target {} ms)",
+                cost, Math.round(estimateMs), minCost, Math.round(medianMs), targetMs);
+        return cost;
+    }
+}
@@ -5,6 +5,11 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -14,6 +19,7 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HexFormat;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
@@ -21,25 +27,40 @@ import java.util.function.Function;
  * Handles token generation, validation, and claim extraction for authentication.
  */
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
+    private final MeterRegistry meterRegistry;
 
     @Value("${jwt.secret:5ce98d378ec88ea09ba8bcd511ef23645f04cc8e70b9134b98723a53c275bbc5}")
     private String secretKey;
 
-    @Value("${jwt.expirationMs:10800000}")
-    private long jwtExpiration;  // 3 hours in milliseconds
-
-//    if use refresh expiration token
-//    private long refreshExpiration = 604800000;
+    // Short-lived, clients renew access tokens with their refresh token
+    @Value("${jwt.expirationMs:900000}")
+    private long jwtExpiration;  // 15 minutes in milliseconds
+
+    private Counter issuedTokens;
+    private Timer verificationTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        issuedTokens = Counter.builder("app.jwt.issued")
+                .description("Access tokens issued")
+                .register(meterRegistry);
+        verificationTimer = Timer.builder("app.jwt.verification")
+                .description("Time to verify a token's signature and parse its claims")
+                .register(meterRegistry);
+    }
 
     public String generateToken(String username, String role) {
         var claims = new HashMap<String, Object>();
         claims.put("role", role);
+        issuedTokens.increment();
         return Jwts
                 .builder()
                 .setIssuer("self")
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
@@ -56,6 +77,17 @@ public class JwtService {
         return extractAllClaims(token).get(claim, String.class);
     }
 
+    /**
+     * Returns the token's jti, the key of the revocation denylist.
+     */
+    public String extractTokenId(String token) {
+        return extractClaim(token, Claims::getId);
+    }
+
+    public long getExpirationMs() {
+        return jwtExpiration;
+    }
+
     public String extractSubject(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -69,17 +101,22 @@ public class JwtService {
         return extractExpiration(token).before(new Date());
     }
 
-    private Date extractExpiration(String token) {
+    public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return Jwts
+                    .parserBuilder()
+                    .setSigningKey(getSignInKey())
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        } finally {
+            sample.stop(verificationTimer);
+        }
     }
 
     /**
@@ -0,0 +1,157 @@
+package gr.aueb.cf.grandmasfurnitureapp.security;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppServiceUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs password hashing on a dedicated, bounded thread pool.
+ *
+ * <p>BCrypt is deliberately slow, so a burst of logins on request threads would leave
+ * none for the rest of the API. Here at most {@code app.security.hashing.pool-size}
+ * hashes run at once and at most {@code app.security.hashing.queue-capacity} wait;
+ * anything beyond that is rejected with 503 so clients back off instead of piling up.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class PasswordHashingService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${app.security.hashing.pool-size:0}")
+    private int poolSize;
+
+    @Value("${app.security.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.security.hashing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    // Compared against when the user does not exist, so unknown usernames take as long as wrong passwords
+    private String dummyHash;
+
+    @PostConstruct
+    void startWorkers() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+    }
+
+    @PreDestroy
+    void stopWorkers() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks a password against its stored hash.
+     *
+     * @param rawPassword The password as entered
+     * @param encodedPassword The stored hash, or null if the user does not exist
+     * @return true if the password matches
+     * @throws AppServiceUnavailableException if the hashing pool is saturated
+     */
+    public boolean matches(String rawPassword, String encodedPassword) throws AppServiceUnavailableException {
+        String hash = encodedPassword != null ? encodedPassword : dummyHash;
+        boolean matches = run(() -> passwordEncoder.matches(rawPassword, hash));
+        return matches && encodedPassword != null;
+    }
+
+    /**
+     * Hashes a password with the current cost.
+     *
+     * @param rawPassword The password to hash
+     * @return The hash
+     * @throws AppServiceUnavailableException if the hashing pool is saturated
+     */
+    public String encode(String rawPassword) throws AppServiceUnavailableException {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Tells whether a stored hash was made with a lower cost than the current one.
+     * Only ever upgrades: nodes calibrated to different costs never re-encode
+     * each other's hashes back and forth.
+     *
+     * @param encodedPassword The stored hash
+     * @return true if it should be re-encoded
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return encodedPassword != null && passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Hashes a password in the background, for re-encoding that nobody waits for.
+     * Skipped while the pool is saturated; the next login tries again.
+     *
+     * @param rawPassword The password to hash
+     * @param onEncoded Receives the new hash, on a hashing thread
+     */
+    public void encodeInBackground(String rawPassword, Consumer<String> onEncoded) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onEncoded.accept(passwordEncoder.encode(rawPassword));
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Background password re-encoding failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Password hashing queue is full, skipping re-encoding");
+        }
+    }
+
+    private <T> T run(Callable<T> task) throws AppServiceUnavailableException {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Password hashing queue is full, rejecting request");
+            throw new AppServiceUnavailableException("Authentication", "Too many login attempts, please retry");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            LOGGER.warn("Password hashing timed out after {} ms", timeoutMs);
+            throw new AppServiceUnavailableException("Authentication", "Too many login attempts, please retry");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppServiceUnavailableException("Authentication", "Password check interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
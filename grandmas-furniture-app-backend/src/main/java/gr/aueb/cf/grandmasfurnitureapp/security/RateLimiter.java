@@ -0,0 +1,158 @@
+package gr.aueb.cf.grandmasfurnitureapp.security;
+
+import gr.aueb.cf.grandmasfurnitureapp.config.RateLimitProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process token buckets.
+ *
+ * <p>Bucket state is guarded by a fixed set of locks picked by the key's hash, so the
+ * number of locks does not grow with the number of clients and unrelated keys rarely
+ * contend. A bucket that has refilled completely is indistinguishable from a new one,
+ * so the periodic cleanup drops those and memory stays bounded by the clients that are
+ * actually being throttled.</p>
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RateLimiter.class);
+
+    private final RateLimitProperties properties;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes;
+    private final ReentrantLock cleanupLock = new ReentrantLock();
+
+    public RateLimiter(RateLimitProperties properties) {
+        this.properties = properties;
+        this.stripes = new ReentrantLock[Math.max(1, properties.getStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Takes one token from a bucket.
+     *
+     * @param key Identifies the bucket, e.g. route name and client address
+     * @param limit Size and refill rate of the bucket
+     * @return 0 if the request may proceed, otherwise the seconds until a token is available
+     */
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= properties.getMaxBuckets()) {
+                cleanup();
+                if (buckets.size() >= properties.getMaxBuckets()) {
+                    // Failing open: better than throttling every new client
+                    LOGGER.warn("Rate limiter is tracking {} buckets, not limiting {}", buckets.size(), key);
+                    return 0;
+                }
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new Bucket(limit, now));
+        }
+
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        try {
+            bucket.refill(now);
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return 0;
+            }
+            return bucket.secondsUntilToken();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Tells whether a bucket is exhausted, without taking a token. Used for limits that
+     * only charge failed attempts: check first, {@link #tryAcquire} after a failure.
+     *
+     * @param key Identifies the bucket
+     * @return 0 if a token is available, otherwise the seconds until one is
+     */
+    public long retryAfter(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null) {
+            return 0;
+        }
+
+        ReentrantLock lock = stripeFor(key);
+        lock.lock();
+        try {
+            bucket.refill(System.nanoTime());
+            return bucket.tokens >= 1 ? 0 : bucket.secondsUntilToken();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops buckets that have refilled completely.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.cleanup-interval:PT1M}")
+    public void cleanup() {
+        if (!cleanupLock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            buckets.entrySet().removeIf(entry -> {
+                ReentrantLock lock = stripeFor(entry.getKey());
+                lock.lock();
+                try {
+                    entry.getValue().refill(now);
+                    return entry.getValue().tokens >= entry.getValue().capacity;
+                } finally {
+                    lock.unlock();
+                }
+            });
+        } finally {
+            cleanupLock.unlock();
+        }
+    }
+
+    private ReentrantLock stripeFor(String key) {
+        return stripes[Math.floorMod(key.hashCode(), stripes.length)];
+    }
+
+    /**
+     * State of one bucket, guarded by its stripe's lock.
+     */
+    private static class Bucket {
+        private final double capacity;
+        private final double nanosPerToken;
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(RateLimitProperties.Limit limit, long now) {
+            this.capacity = limit.getCapacity();
+            this.nanosPerToken = (double) limit.getRefillPeriod().toNanos() / Math.max(1, limit.getRefillTokens());
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - refilledAt;
+            if (elapsed > 0) {
+                tokens = Math.min(capacity, tokens + elapsed / nanosPerToken);
+                refilledAt = now;
+            }
+        }
+
+        private long secondsUntilToken() {
+            long waitNanos = (long) Math.ceil((1 - tokens) * nanosPerToken);
+            return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        }
+    }
+}
@@ -1,8 +1,13 @@
 package gr.aueb.cf.grandmasfurnitureapp.security;
 
 import gr.aueb.cf.grandmasfurnitureapp.authentication.JwtAuthenticationFilter;
+import gr.aueb.cf.grandmasfurnitureapp.config.RateLimitProperties;
 import gr.aueb.cf.grandmasfurnitureapp.core.enums.Role;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -27,12 +32,28 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 @RequiredArgsConstructor
 public class SecurityConfiguration {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final UserDetailsService userDetailsService;
 
+    // Fixed BCrypt cost; 0 calibrates it at startup against the target latency
+    @Value("${app.security.password.cost:0}")
+    private int passwordCost;
+
+    // Floor of both the calibrated and a fixed cost, the cost hashes were made with before calibration
+    @Value("${app.security.password.min-cost:12}")
+    private int minPasswordCost;
+
+    @Value("${app.security.password.max-cost:14}")
+    private int maxPasswordCost;
+
+    @Value("${app.security.password.target-ms:250}")
+    private long passwordTargetMs;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -41,11 +62,16 @@ public class SecurityConfiguration {
                 .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(myCustomAuthenticationEntryPoint()))
                 .exceptionHandling(exceptions -> exceptions.accessDeniedHandler(myCustomAccessDeniedHandler()))
                 .authorizeHttpRequests(req -> req
-                        .requestMatchers("/api/auth/login", "/api/auth/register").permitAll()
+                        .requestMatchers("/api/auth/login", "/api/auth/register",
+                                "/api/auth/refresh", "/api/auth/logout").permitAll()
                         .requestMatchers("/uploads/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/swagger-ui.html").permitAll()
                         .requestMatchers("/v3/api-docs/**", "/v3/api-docs").permitAll()
                         .requestMatchers("/swagger-resources/**", "/webjars/**").permitAll()
+                        // Only on the management port, see management.server.port
+                        .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                        .requestMatchers(EndpointRequest.toAnyEndpoint()).hasAuthority(Role.ADMIN.name())
+                        .requestMatchers("/api/admin/**").hasAuthority(Role.ADMIN.name())
                         .requestMatchers("/api/ads/save")
                         .hasAnyAuthority(Role.USER.name(), Role.ADMIN.name())
                         .requestMatchers("/api/ads/**")
@@ -54,11 +80,23 @@ public class SecurityConfiguration {
                 )
                 .sessionManagement((session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS)))
                 .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
 
+    /**
+     * Keeps the rate limit filter out of the servlet filter chain; it only runs inside
+     * the security chain, where the authenticated user is known.
+     */
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter filter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
 
     @Bean
     CorsConfigurationSource corsConfigurationSource() {
@@ -66,6 +104,9 @@ public class SecurityConfiguration {
         corsConfiguration.setAllowedOrigins(List.of("http://localhost:5173"));
         corsConfiguration.setAllowedMethods(List.of("*"));
         corsConfiguration.setAllowedHeaders(List.of("*"));
+        corsConfiguration.setExposedHeaders(List.of(
+                "Location", "Tus-Resumable", "Upload-Offset", "Upload-Length", "Upload-Content-Hash", "X-Request-Id",
+                "Server-Timing", "ETag"));
         corsConfiguration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", corsConfiguration);
@@ -82,7 +123,11 @@ public class SecurityConfiguration {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+        int cost = passwordCost > 0
+                ? Math.max(passwordCost, minPasswordCost)
+                : BCryptCostCalibrator.calibrate(minPasswordCost, Math.max(maxPasswordCost, minPasswordCost),
+                        passwordTargetMs);
+        return new BCryptPasswordEncoder(cost);
     }
 
     @Bean
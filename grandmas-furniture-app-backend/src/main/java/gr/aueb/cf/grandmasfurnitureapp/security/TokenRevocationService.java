@@ -0,0 +1,135 @@
+package gr.aueb.cf.grandmasfurnitureapp.security;
+
+import gr.aueb.cf.grandmasfurnitureapp.model.RevokedToken;
+import gr.aueb.cf.grandmasfurnitureapp.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Denylist of access tokens revoked before they expire.
+ *
+ * <p>The persistent list lives in {@code revoked_tokens}; every node keeps an in-memory
+ * copy as a Bloom filter in front of an exact set. Nearly every request carries a token that
+ * was never revoked, and the filter answers those with a few bit lookups; only a filter hit is
+ * confirmed against the set. The copy is rebuilt from the table at a fixed interval, which also
+ * drops expired entries and picks up revocations made on other nodes.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${app.security.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.security.revocation.min-capacity:1024}")
+    private int minCapacity;
+
+    private volatile Denylist denylist;
+
+    // Revoked on this node since the running rebuild read the table
+    private final Set<String> pendingRevocations = new HashSet<>();
+    private final Object lock = new Object();
+
+    @PostConstruct
+    void init() {
+        denylist = new Denylist(new BloomFilter(minCapacity, falsePositiveRate), ConcurrentHashMap.newKeySet());
+        rebuild();
+    }
+
+    /**
+     * Checks whether a token was revoked. Never touches the database.
+     *
+     * @param jti The token's jti claim, may be null
+     * @return true if the token is on the denylist
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        Denylist current = denylist;
+        return current.filter.mightContain(jti) && current.jtis.contains(jti);
+    }
+
+    /**
+     * Revokes a token until it expires.
+     *
+     * @param jti The token's jti claim
+     * @param expiresAt When the token expires
+     */
+    public void revoke(String jti, LocalDateTime expiresAt) {
+        if (jti == null || !expiresAt.isAfter(LocalDateTime.now())) {
+            return;
+        }
+
+        revokedTokenRepository.save(new RevokedToken(jti, expiresAt));
+        synchronized (lock) {
+            pendingRevocations.add(jti);
+            Denylist current = denylist;
+            current.filter.add(jti);
+            current.jtis.add(jti);
+        }
+        LOGGER.info("Revoked access token {}", jti);
+    }
+
+    /**
+     * Reloads the denylist from the database into a freshly sized filter.
+     */
+    @Scheduled(initialDelayString = "${app.security.revocation.refresh-interval-ms:30000}",
+            fixedDelayString = "${app.security.revocation.refresh-interval-ms:30000}")
+    public void rebuild() {
+        try {
+            synchronized (lock) {
+                pendingRevocations.clear();
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            revokedTokenRepository.deleteExpired(now);
+            List<String> jtis = revokedTokenRepository.findActiveJtis(now);
+
+            synchronized (lock) {
+                // Sized for twice the current entries, so revocations until the next rebuild keep the rate
+                int capacity = Math.max(minCapacity, (jtis.size() + pendingRevocations.size()) * 2);
+                Denylist rebuilt = new Denylist(new BloomFilter(capacity, falsePositiveRate),
+                        ConcurrentHashMap.newKeySet(capacity));
+                for (String jti : jtis) {
+                    rebuilt.filter.add(jti);
+                    rebuilt.jtis.add(jti);
+                }
+                for (String jti : pendingRevocations) {
+                    rebuilt.filter.add(jti);
+                    rebuilt.jtis.add(jti);
+                }
+                denylist = rebuilt;
+            }
+            LOGGER.debug("Rebuilt token denylist with {} entries", jtis.size());
+        } catch (RuntimeException e) {
+            // The previous copy stays in use
+            LOGGER.warn("Could not rebuild the token denylist", e);
+        }
+    }
+
+    /**
+     * In-memory copy of the denylist.
+     */
+    @AllArgsConstructor
+    private static class Denylist {
+        private final BloomFilter filter;
+        private final Set<String> jtis;
+    }
+}
@@ -0,0 +1,297 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.ImportFormat;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotFoundException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppServerException;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdImportErrorDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdImportResultDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdInsertDTO;
+import gr.aueb.cf.grandmasfurnitureapp.mapper.Mapper;
+import gr.aueb.cf.grandmasfurnitureapp.model.Ad;
+import gr.aueb.cf.grandmasfurnitureapp.model.Attachment;
+import gr.aueb.cf.grandmasfurnitureapp.model.User;
+import gr.aueb.cf.grandmasfurnitureapp.model.static_data.Category;
+import gr.aueb.cf.grandmasfurnitureapp.model.static_data.City;
+import gr.aueb.cf.grandmasfurnitureapp.repository.AdRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk import of ads from CSV or NDJSON.
+ *
+ * <p>The input is read one row at a time, so memory does not grow with its size. Each row is
+ * validated like a single ad, and category and city are resolved through {@link StaticDataCache}.
+ * Rows that pass are saved in batches of {@code app.ads.import.batch-size}, one transaction per batch.
+ * Ads and their images take IDs from pooled sequences, so Hibernate sends each batch as a few JDBC
+ * batches. If a batch fails in the database, its rows are retried one by one, so a single bad row
+ * only fails itself. Rejected rows are reported with the reason; the others are imported.
+ * The image references of a batch are taken together, see {@link AttachmentService#acquireAll}.</p>
+ *
+ * <p>Images are referenced by {@code imageHash}, the SHA-256 of an image already uploaded,
+ * e.g. through the resumable upload API.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class AdImportService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdImportService.class);
+
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private final AdRepository adRepository;
+    private final AdService adService;
+    private final AttachmentService attachmentService;
+    private final StaticDataCache staticDataCache;
+    private final Mapper mapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.ads.import.max-rows:1000}")
+    private int maxRows;
+
+    @Value("${app.ads.import.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.ads.import.max-reported-errors:200}")
+    private int maxReportedErrors;
+
+    private Timer importTimer;
+    private Counter importedRows;
+    private Counter failedRows;
+
+    @PostConstruct
+    void registerMeters() {
+        importTimer = Timer.builder("app.ads.import")
+                .description("Time to run a bulk import")
+                .register(meterRegistry);
+        importedRows = Counter.builder("app.ads.import.rows")
+                .description("Rows of bulk imports")
+                .tag("result", "imported")
+                .register(meterRegistry);
+        failedRows = Counter.builder("app.ads.import.rows")
+                .description("Rows of bulk imports")
+                .tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Imports ads for a user.
+     *
+     * @param user The authenticated user, owner of the imported ads
+     * @param input The request body
+     * @param format The body's format
+     * @return Counts, the created IDs and the rejected rows
+     * @throws AppServerException if the body cannot be read; batches saved until then stay
+     */
+    public AdImportResultDTO importAds(User user, InputStream input, ImportFormat format) throws AppServerException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        AdImportResultDTO result = new AdImportResultDTO();
+        List<PendingAd> batch = new ArrayList<>(batchSize);
+
+        try (MappingIterator<AdInsertDTO> rows = readerFor(format).readValues(input)) {
+            long row = 0;
+            while (true) {
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                } catch (JsonMappingException e) {
+                    // A row that could not be tokenized, e.g. a CSV row with too many columns
+                    reject(result, ++row, fieldOf(e), "Malformed row");
+                    continue;
+                } catch (JsonProcessingException e) {
+                    // Broken syntax, nothing after it can be trusted
+                    reject(result, ++row, null, "Malformed input, import stopped: " + e.getOriginalMessage());
+                    break;
+                }
+
+                if (row == maxRows) {
+                    // Not a failed row, the rest of the input was not read
+                    result.getErrors().add(new AdImportErrorDTO(row + 1, null,
+                            "More than " + maxRows + " rows, import stopped"));
+                    break;
+                }
+                row++;
+
+                AdInsertDTO dto;
+                try {
+                    dto = rows.nextValue();
+                } catch (JsonMappingException e) {
+                    reject(result, row, fieldOf(e), "Invalid value");
+                    continue;
+                }
+
+                PendingAd pending = prepare(result, row, dto);
+                if (pending != null) {
+                    batch.add(pending);
+                    if (batch.size() >= batchSize) {
+                        save(user, batch, result);
+                    }
+                }
+            }
+            result.setRows(row);
+        } catch (IOException e) {
+            LOGGER.warn("Import input of user {} could not be read", user.getUsername(), e);
+            throw new AppServerException("Import", "Import input could not be read");
+        }
+        save(user, batch, result);
+
+        LOGGER.info("Imported {} of {} ads for user {}", result.getImported(), result.getRows(), user.getUsername());
+        sample.stop(importTimer);
+        return result;
+    }
+
+    private ObjectReader readerFor(ImportFormat format) {
+        if (format == ImportFormat.CSV) {
+            return CSV_MAPPER.readerFor(AdInsertDTO.class).with(CsvSchema.emptySchema().withHeader());
+        }
+        return objectMapper.readerFor(AdInsertDTO.class);
+    }
+
+    /**
+     * Validates a row and resolves its references.
+     *
+     * @return The row ready to save, or null if it was rejected
+     */
+    private PendingAd prepare(AdImportResultDTO result, long row, AdInsertDTO dto) {
+        if (dto == null) {
+            reject(result, row, null, "Empty row");
+            return null;
+        }
+
+        List<ConstraintViolation<AdInsertDTO>> violations = new ArrayList<>(validator.validate(dto));
+        if (!violations.isEmpty()) {
+            ConstraintViolation<AdInsertDTO> violation = violations.get(0);
+            reject(result, row, violation.getPropertyPath().toString(), violation.getMessage());
+            return null;
+        }
+
+        Category category = staticDataCache.findCategory(dto.getCategoryName()).orElse(null);
+        if (category == null) {
+            reject(result, row, "categoryName", "Category not found: " + dto.getCategoryName());
+            return null;
+        }
+        City city = staticDataCache.findCity(dto.getCityName()).orElse(null);
+        if (city == null) {
+            reject(result, row, "cityName", "City not found: " + dto.getCityName());
+            return null;
+        }
+
+        Attachment image = null;
+        if (dto.getImageHash() != null && !dto.getImageHash().isBlank()) {
+            try {
+                image = attachmentService.findByContentHash(dto.getImageHash());
+            } catch (AppObjectNotFoundException e) {
+                reject(result, row, "imageHash", e.getMessage());
+                return null;
+            }
+        }
+
+        return new PendingAd(row, dto, category, city, image);
+    }
+
+    /**
+     * Saves and empties a batch, retrying row by row if the batch as a whole fails.
+     */
+    private void save(User user, List<PendingAd> batch, AdImportResultDTO result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<Ad> saved = transactionTemplate.execute(status -> saveAll(user, batch));
+            saved.forEach(ad -> result.getCreatedIds().add(ad.getId()));
+            result.setImported(result.getImported() + saved.size());
+            importedRows.increment(saved.size());
+        } catch (RuntimeException batchFailure) {
+            LOGGER.warn("Import batch of {} rows failed, retrying row by row", batch.size(), batchFailure);
+            for (PendingAd pending : batch) {
+                try {
+                    List<Ad> saved = transactionTemplate.execute(status -> saveAll(user, List.of(pending)));
+                    result.getCreatedIds().add(saved.get(0).getId());
+                    result.setImported(result.getImported() + 1);
+                    importedRows.increment();
+                } catch (RuntimeException rowFailure) {
+                    LOGGER.warn("Import row {} could not be saved", pending.row, rowFailure);
+                    reject(result, pending.row, null, "Could not be saved");
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    // Entities are built per attempt, a failed transaction leaves its entities unusable
+    private List<Ad> saveAll(User user, List<PendingAd> batch) {
+        List<Ad> ads = new ArrayList<>(batch.size());
+        List<Attachment> references = new ArrayList<>();
+        for (PendingAd pending : batch) {
+            Ad ad = mapper.mapToAdEntity(pending.dto, pending.category, pending.city);
+            ad.setUser(user);
+            if (pending.image != null) {
+                references.addAll(adService.fillNewGallery(ad, List.of(pending.image)));
+            }
+            ads.add(ad);
+        }
+        // The image references of the whole batch in one statement, usually
+        attachmentService.acquireAll(references);
+        return adRepository.saveAll(ads);
+    }
+
+    private void reject(AdImportResultDTO result, long row, String field, String message) {
+        result.setFailed(result.getFailed() + 1);
+        failedRows.increment();
+        if (result.getErrors().size() < maxReportedErrors) {
+            result.getErrors().add(new AdImportErrorDTO(row, field, message));
+        } else {
+            result.setErrorsTruncated(true);
+        }
+    }
+
+    private static String fieldOf(JsonMappingException e) {
+        List<JsonMappingException.Reference> path = e.getPath();
+        return path.isEmpty() ? null : path.get(path.size() - 1).getFieldName();
+    }
+
+    /**
+     * A validated row waiting for its batch.
+     */
+    @AllArgsConstructor
+    private static class PendingAd {
+        private final long row;
+        private final AdInsertDTO dto;
+        private final Category category;
+        private final City city;
+        private final Attachment image;
+    }
+}
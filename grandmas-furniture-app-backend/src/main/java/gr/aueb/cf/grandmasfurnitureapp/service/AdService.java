@@ -1,35 +1,54 @@
 package gr.aueb.cf.grandmasfurnitureapp.service;
 
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Role;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectInvalidArgumentException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotAuthorizedException;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotFoundException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppPreconditionFailedException;
 import gr.aueb.cf.grandmasfurnitureapp.core.filters.AdFilters;
 import gr.aueb.cf.grandmasfurnitureapp.core.filters.Paginated;
 import gr.aueb.cf.grandmasfurnitureapp.core.specifications.AdSpecification;
+import gr.aueb.cf.grandmasfurnitureapp.core.timing.SlowQueryLog;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdBulkAvailabilityDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdBulkDeleteDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdBulkResultDTO;
 import gr.aueb.cf.grandmasfurnitureapp.dto.AdInsertDTO;
 import gr.aueb.cf.grandmasfurnitureapp.dto.AdReadOnlyDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdUpdateDTO;
 import gr.aueb.cf.grandmasfurnitureapp.mapper.Mapper;
 import gr.aueb.cf.grandmasfurnitureapp.model.Ad;
+import gr.aueb.cf.grandmasfurnitureapp.model.AdImage;
 import gr.aueb.cf.grandmasfurnitureapp.model.Attachment;
 import gr.aueb.cf.grandmasfurnitureapp.model.User;
 import gr.aueb.cf.grandmasfurnitureapp.model.static_data.Category;
 import gr.aueb.cf.grandmasfurnitureapp.model.static_data.City;
 import gr.aueb.cf.grandmasfurnitureapp.repository.AdRepository;
-import gr.aueb.cf.grandmasfurnitureapp.repository.CategoryRepository;
-import gr.aueb.cf.grandmasfurnitureapp.repository.CityRepository;
 import gr.aueb.cf.grandmasfurnitureapp.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -44,100 +63,310 @@ public class AdService {
 
     private final AdRepository adRepository;
     private final UserRepository userRepository;
-    private final CategoryRepository categoryRepository;
-    private final CityRepository cityRepository;
+    private final StaticDataCache staticDataCache;
     private final AttachmentService attachmentService;
     private final Mapper mapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final SlowQueryLog slowQueryLog;
+
+    @Value("${app.images.gallery.max-images:10}")
+    private int maxGalleryImages;
+
+    @Value("${app.images.gallery.max-total-bytes:20971520}")
+    private long maxGalleryBytes;
+
+    @Value("${app.ads.bulk.max-ids:500}")
+    private int maxBulkIds;
+
+    private Timer searchTimer;
+    private Timer pagedSearchTimer;
+    private DistributionSummary searchResults;
+    private Timer createTimer;
+    private Timer updateTimer;
+    private Timer patchTimer;
+    private Timer deleteTimer;
+    private Timer bulkAvailabilityTimer;
+    private Timer bulkDeleteTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        searchTimer = Timer.builder("app.ads.search")
+                .description("Filtered ad searches, query and mapping")
+                .tag("paged", "false")
+                .register(meterRegistry);
+        pagedSearchTimer = Timer.builder("app.ads.search")
+                .description("Filtered ad searches, query and mapping")
+                .tag("paged", "true")
+                .register(meterRegistry);
+        searchResults = DistributionSummary.builder("app.ads.search.results")
+                .description("Ads returned per filtered search")
+                .register(meterRegistry);
+        createTimer = writeTimer("create");
+        updateTimer = writeTimer("update");
+        patchTimer = writeTimer("patch");
+        deleteTimer = writeTimer("delete");
+        bulkAvailabilityTimer = writeTimer("bulk-availability");
+        bulkDeleteTimer = writeTimer("bulk-delete");
+    }
+
+    private Timer writeTimer(String operation) {
+        return Timer.builder("app.ads.writes")
+                .description("Successful ad writes, including image staging")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
 
     /**
-     * Creates a new ad with optional image.
+     * Creates a new ad with an optional image gallery.
+     * Images are staged in parallel before the transaction starts and finalized in the
+     * background, so no database connection is held while files are written to storage.
+     * Instead of uploading, clients may reference already stored content by its hash.
+     *
+     * <p>Category and city come from {@link StaticDataCache} and the ad takes a pre-allocated
+     * ID, so the transaction runs one INSERT for the ad, already pointing at its cover,
+     * one batched INSERT for the gallery and one UPDATE for the reference counts.</p>
      *
      * @param user The authenticated user creating the ad
      * @param dto Ad data
-     * @param image Optional image file
+     * @param image Optional cover image file
+     * @param images Optional further gallery images, in display order
      * @return Created ad as DTO
      */
-    @Transactional
-    public AdReadOnlyDTO createAd(User user, AdInsertDTO dto, MultipartFile image)
+    public AdReadOnlyDTO createAd(User user, AdInsertDTO dto, MultipartFile image, List<MultipartFile> images)
             throws AppObjectNotFoundException, AppObjectInvalidArgumentException {
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         LOGGER.debug("Creating ad '{}' for user: {}", dto.getTitle(), user.getUsername());
 
-        // Validate image if provided
-        validateImageFile(image);
+        // Validate images against the per-file rules and the gallery budget
+        List<MultipartFile> uploads = collectUploads(image, images);
+        validateImageFiles(uploads);
 
-        // Create and save the ad
-        Ad ad = mapper.mapToAdEntity(dto);
+        Category category = dto.getCategoryName() != null ? findCategoryByName(dto.getCategoryName()) : null;
+        City city = dto.getCityName() != null ? findCityByName(dto.getCityName()) : null;
+        Ad ad = mapper.mapToAdEntity(dto, category, city);
         ad.setUser(user);
-        ad = adRepository.save(ad);
 
-        // Handle image attachment if provided
-        handleImageAttachment(ad, image, ad.getId());
-        ad = adRepository.save(ad);
+        // Stage the images before opening the transaction
+        List<Attachment> attachments = resolveImages(uploads, dto.getImageHash());
 
-        LOGGER.debug("Ad created successfully with ID: {}", ad.getId());
-        return mapper.mapToAdReadOnlyDTO(ad);
+        // Save the ad and reference its images atomically
+        Ad savedAd = transactionTemplate.execute(status -> {
+            replaceGallery(ad, attachments);
+            return adRepository.save(ad);
+        });
+
+        LOGGER.debug("Ad created successfully with ID: {}", savedAd.getId());
+        AdReadOnlyDTO created = mapper.mapToAdReadOnlyDTO(savedAd);
+        sample.stop(createTimer);
+        return created;
     }
 
     /**
-     * Updates an existing ad and optionally replaces its image.
+     * Updates an existing ad and optionally replaces its image gallery.
      *
      * @param adId The ad ID to update
      * @param dto Updated ad data
-     * @param newImage Optional new image file
+     * @param newImage Optional new cover image file
+     * @param newImages Optional further gallery images; any new image replaces the whole gallery
+     * @param expectedVersion Version the client last saw, from If-Match; null to skip the check
      * @return Updated ad as DTO
+     * @throws AppPreconditionFailedException if the ad is not at the expected version, or another
+     *         update committed in the meantime
      */
-    @Transactional
-    public AdReadOnlyDTO updateAd(Long adId, AdInsertDTO dto, MultipartFile newImage)
-            throws AppObjectNotFoundException, AppObjectInvalidArgumentException {
+    public AdReadOnlyDTO updateAd(Long adId, AdInsertDTO dto, MultipartFile newImage, List<MultipartFile> newImages,
+                                  Long expectedVersion)
+            throws AppObjectNotFoundException, AppObjectInvalidArgumentException, AppPreconditionFailedException {
 
+        Timer.Sample sample = Timer.start(meterRegistry);
         LOGGER.debug("Updating ad ID: {}", adId);
 
-        Ad ad = adRepository.findById(adId)
-                .orElseThrow(() -> new AppObjectNotFoundException("Ad", "Ad with ID " + adId + " not found"));
+        // Validate new images if provided
+        List<MultipartFile> uploads = collectUploads(newImage, newImages);
+        validateImageFiles(uploads);
+
+        // Resolve lookups and stage the new images before opening the transaction
+        Category category = dto.getCategoryName() != null ? findCategoryByName(dto.getCategoryName()) : null;
+        City city = dto.getCityName() != null ? findCityByName(dto.getCityName()) : null;
+        List<Attachment> newAttachments = resolveImages(uploads, dto.getImageHash());
+
+        // The version check at flush catches updates committed after the read
+        Ad ad;
+        try {
+            ad = transactionTemplate.execute(status -> {
+                Ad existing = adRepository.findWithGalleryById(adId).orElse(null);
+                if (existing != null) {
+                    if (expectedVersion != null && existing.getVersion() != expectedVersion) {
+                        throw new OptimisticLockingFailureException(
+                                "Ad " + adId + " is at version " + existing.getVersion() + ", not " + expectedVersion);
+                    }
+                    updateAdFields(existing, dto, category, city);
+                    replaceGallery(existing, newAttachments);
+                }
+                return existing;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            LOGGER.info("Rejected stale update of ad ID: {}", adId);
+            throw new AppPreconditionFailedException("Ad", "Ad with ID " + adId + " was changed, fetch it again");
+        }
+
+        if (ad == null) {
+            throw new AppObjectNotFoundException("Ad", "Ad with ID " + adId + " not found");
+        }
+
+        LOGGER.debug("Ad updated successfully: {}", adId);
+        AdReadOnlyDTO updated = mapper.mapToAdReadOnlyDTO(ad);
+        sample.stop(updateTimer);
+        return updated;
+    }
 
-        // Validate new image if provided
-        validateImageFile(newImage);
+    /**
+     * Applies a partial update to an ad. Only the fields present in the DTO change, and
+     * the UPDATE statement only sets the changed columns. Images are left as they are.
+     *
+     * @param user The authenticated user, who must own the ad or be an admin
+     * @param adId The ad ID to update
+     * @param dto The fields to change
+     * @param expectedVersion Version the client last saw, from If-Match; null to skip the check
+     * @return Updated ad as DTO, without the gallery
+     * @throws AppObjectNotAuthorizedException if the user neither owns the ad nor is an admin
+     * @throws AppPreconditionFailedException if the ad is not at the expected version, or another
+     *         update committed in the meantime
+     */
+    public AdReadOnlyDTO patchAd(User user, Long adId, AdUpdateDTO dto, Long expectedVersion)
+            throws AppObjectNotFoundException, AppObjectNotAuthorizedException, AppPreconditionFailedException {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LOGGER.debug("Patching ad ID: {}", adId);
+
+        Category category = dto.getCategoryName() != null ? findCategoryByName(dto.getCategoryName()) : null;
+        City city = dto.getCityName() != null ? findCityByName(dto.getCityName()) : null;
+
+        Ad ad;
+        try {
+            ad = transactionTemplate.execute(status -> {
+                Ad existing = adRepository.findById(adId).orElse(null);
+                if (existing != null && mayEdit(user, existing)) {
+                    if (expectedVersion != null && existing.getVersion() != expectedVersion) {
+                        throw new OptimisticLockingFailureException(
+                                "Ad " + adId + " is at version " + existing.getVersion() + ", not " + expectedVersion);
+                    }
+                    patchAdFields(existing, dto, category, city);
+                }
+                return existing;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            LOGGER.info("Rejected stale patch of ad ID: {}", adId);
+            throw new AppPreconditionFailedException("Ad", "Ad with ID " + adId + " was changed, fetch it again");
+        }
 
-        // Update ad fields
-        updateAdFields(ad, dto);
+        if (ad == null) {
+            throw new AppObjectNotFoundException("Ad", "Ad with ID " + adId + " not found");
+        }
 
-        // Handle image update if provided
-        handleImageAttachment(ad, newImage, adId);
+        if (!mayEdit(user, ad)) {
+            LOGGER.warn("User {} is not allowed to patch ad ID: {}", user.getUsername(), adId);
+            throw new AppObjectNotAuthorizedException("Ad", "User not authorized to change ad with ID " + adId);
+        }
 
-        ad = adRepository.save(ad);
-        LOGGER.debug("Ad updated successfully: {}", adId);
-        return mapper.mapToAdReadOnlyDTO(ad);
+        AdReadOnlyDTO patched = mapper.mapToAdReadOnlyDTO(ad);
+        sample.stop(patchTimer);
+        return patched;
     }
 
     /**
-     * Deletes an ad and its associated image.
+     * Deletes an ad and releases its images.
      *
      * @param adId The ad ID to delete
      */
     @Transactional
     public void deleteAd(Long adId) throws AppObjectNotFoundException {
+        Timer.Sample sample = Timer.start(meterRegistry);
         LOGGER.debug("Deleting ad ID: {}", adId);
 
-        Ad ad = adRepository.findById(adId)
+        Ad ad = adRepository.findWithGalleryById(adId)
                 .orElseThrow(() -> new AppObjectNotFoundException("Ad", "Ad with ID " + adId + " not found"));
-
-        // Delete attachment if exists
+        List<Long> references = new ArrayList<>();
         if (ad.getImage() != null) {
-            attachmentService.deleteAdAttachment(ad.getImage(), adId);
+            references.add(ad.getImage().getId());
         }
+        ad.getGallery().forEach(adImage -> references.add(adImage.getAttachment().getId()));
 
-        // Delete the ad
+        // Delete the ad with its gallery, then drop its references to the shared images;
+        // flushed first, legacy attachments are deleted with a statement the ad must not block
         adRepository.delete(ad);
+        adRepository.flush();
+        attachmentService.releaseAll(references);
+        sample.stop(deleteTimer);
         LOGGER.debug("Ad deleted successfully: {}", adId);
     }
 
     /**
-     * Gets a single ad by ID.
+     * Marks several of a user's ads available or unavailable in one statement.
+     *
+     * @param user The authenticated user, owner of the ads
+     * @param dto The ad IDs and their new availability
+     * @return Counts and the IDs that were skipped because they do not exist or belong to another user
+     */
+    public AdBulkResultDTO updateAvailability(User user, AdBulkAvailabilityDTO dto)
+            throws AppObjectInvalidArgumentException {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Set<Long> requested = bulkIds(dto.getIds());
+
+        AdBulkResultDTO result = transactionTemplate.execute(status -> {
+            List<Long> owned = adRepository.findIdsByIdInAndUserId(requested, user.getId());
+            if (!owned.isEmpty()) {
+                adRepository.updateAvailability(owned, dto.getIsAvailable(), LocalDateTime.now());
+            }
+            return bulkResult(requested, owned);
+        });
+
+        LOGGER.info("Set availability {} on {} of {} ads for user {}", dto.getIsAvailable(), result.getAffected(),
+                result.getRequested(), user.getUsername());
+        sample.stop(bulkAvailabilityTimer);
+        return result;
+    }
+
+    /**
+     * Deletes several of a user's ads with their galleries in one transaction.
+     * Image references are dropped with one statement per distinct count; files are
+     * deleted in the background, see {@link AttachmentService#releaseAll}.
+     *
+     * @param user The authenticated user, owner of the ads
+     * @param dto The ad IDs
+     * @return Counts and the IDs that were skipped because they do not exist or belong to another user
+     */
+    public AdBulkResultDTO deleteAds(User user, AdBulkDeleteDTO dto) throws AppObjectInvalidArgumentException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Set<Long> requested = bulkIds(dto.getIds());
+
+        AdBulkResultDTO result = transactionTemplate.execute(status -> {
+            List<Long> owned = adRepository.findIdsByIdInAndUserId(requested, user.getId());
+            if (!owned.isEmpty()) {
+                List<Long> references = new ArrayList<>();
+                adRepository.findImageIdsByIdIn(owned).stream().filter(Objects::nonNull).forEach(references::add);
+                references.addAll(adRepository.findGalleryAttachmentIdsByAdIdIn(owned));
+
+                adRepository.deleteGalleryByAdIdIn(owned);
+                adRepository.deleteByIdIn(owned);
+                attachmentService.releaseAll(references);
+            }
+            return bulkResult(requested, owned);
+        });
+
+        LOGGER.info("Deleted {} of {} ads for user {}", result.getAffected(), result.getRequested(), user.getUsername());
+        sample.stop(bulkDeleteTimer);
+        return result;
+    }
+
+    /**
+     * Gets a single ad by ID, including its gallery.
      */
     @Transactional
     public AdReadOnlyDTO getAdById(Long adId) throws AppObjectNotFoundException {
-        Ad ad = adRepository.findById(adId)
+        Ad ad = adRepository.findWithGalleryById(adId)
                 .orElseThrow(() -> new AppObjectNotFoundException("Ad", "Ad with ID " + adId + " not found"));
         return mapper.mapToAdReadOnlyDTO(ad);
     }
@@ -181,29 +410,45 @@ public class AdService {
 
     @Transactional
     public List<AdReadOnlyDTO> getAdsFiltered(AdFilters filters, Long currentUserId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         LOGGER.debug("Searching ads with filters: {}", filters);
         
         // Create specification and execute query
         AdFilters safeFilters = createSafeFilters(filters);
         Specification<Ad> spec = getSpecsFromFilters(safeFilters, currentUserId);
-        List<Ad> result = adRepository.findAll(spec);
-        
-        LOGGER.debug("Found {} filtered results", result.size());
-        return result.stream().map(mapper::mapToAdReadOnlyDTO).collect(Collectors.toList());
+        List<AdReadOnlyDTO> ads;
+        try (SlowQueryLog.Scope scope = slowQueryLog.open(safeFilters.describeFilters() + ";unpaged")) {
+            List<Ad> result = adRepository.findAll(spec);
+            scope.setRows(result.size(), null);
+
+            LOGGER.debug("Found {} filtered results", result.size());
+            ads = result.stream().map(mapper::mapToAdReadOnlyDTO).collect(Collectors.toList());
+        }
+        searchResults.record(ads.size());
+        sample.stop(searchTimer);
+        return ads;
     }
 
     @Transactional
     public Paginated<AdReadOnlyDTO> getAdsFilteredPaginated(AdFilters filters, Long currentUserId) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         LOGGER.debug("Searching ads with filters: {}", filters);
         
         // Create specification and execute query
         AdFilters safeFilters = createSafeFilters(filters);
         Pageable pageable = safeFilters.getPageable();
         Specification<Ad> spec = getSpecsFromFilters(safeFilters, currentUserId);
-        Page<Ad> result = adRepository.findAll(spec, pageable);
-        
-        LOGGER.debug("Found {} filtered results", result.getTotalElements());
-        return new Paginated<>(result.map(mapper::mapToAdReadOnlyDTO));
+        Paginated<AdReadOnlyDTO> ads;
+        try (SlowQueryLog.Scope scope = slowQueryLog.open(safeFilters.describeShape())) {
+            Page<Ad> result = adRepository.findAll(spec, pageable);
+            scope.setRows(result.getNumberOfElements(), result.getTotalElements());
+
+            LOGGER.debug("Found {} filtered results", result.getTotalElements());
+            ads = new Paginated<>(result.map(mapper::mapToAdReadOnlyDTO));
+        }
+        searchResults.record(ads.getData().size());
+        sample.stop(pagedSearchTimer);
+        return ads;
     }
 
 
@@ -218,6 +463,26 @@ public class AdService {
                 .and(AdSpecification.adIsMyAds(filters.getMyAds(), currentUserId));
     }
 
+    /**
+     * Helper method to deduplicate the IDs of a bulk request and check their number.
+     */
+    private Set<Long> bulkIds(List<Long> ids) throws AppObjectInvalidArgumentException {
+        Set<Long> unique = new LinkedHashSet<>(ids);
+        if (unique.size() > maxBulkIds) {
+            throw new AppObjectInvalidArgumentException("Ad", "At most " + maxBulkIds + " ads per request");
+        }
+        return unique;
+    }
+
+    /**
+     * Helper method to report a bulk request, listing the IDs that were not applied.
+     */
+    private AdBulkResultDTO bulkResult(Set<Long> requested, List<Long> applied) {
+        Set<Long> skipped = new LinkedHashSet<>(requested);
+        applied.forEach(skipped::remove);
+        return new AdBulkResultDTO(requested.size(), applied.size(), new ArrayList<>(skipped));
+    }
+
     /**
      * Helper method to create safe filters with defaults.
      */
@@ -228,7 +493,7 @@ public class AdService {
     /**
      * Helper method to update ad fields from DTO.
      */
-    private void updateAdFields(Ad ad, AdInsertDTO dto) throws AppObjectNotFoundException {
+    private void updateAdFields(Ad ad, AdInsertDTO dto, Category category, City city) {
         ad.setTitle(dto.getTitle());
         ad.setCondition(dto.getCondition());
         ad.setPrice(dto.getPrice());
@@ -236,21 +501,55 @@ public class AdService {
         ad.setDescription(dto.getDescription());
         
         // Update category if provided
-        if (dto.getCategoryName() != null) {
-            ad.setCategory(findCategoryByName(dto.getCategoryName()));
+        if (category != null) {
+            ad.setCategory(category);
         }
         
         // Update city if provided
-        if (dto.getCityName() != null) {
-            ad.setCity(findCityByName(dto.getCityName()));
+        if (city != null) {
+            ad.setCity(city);
         }
     }
     
+    /**
+     * Helper method to check that a user owns an ad or is an admin.
+     */
+    private boolean mayEdit(User user, Ad ad) {
+        return user.getRole() == Role.ADMIN || Objects.equals(ad.getUser().getId(), user.getId());
+    }
+
+    /**
+     * Helper method to copy the fields present in a partial update.
+     */
+    private void patchAdFields(Ad ad, AdUpdateDTO dto, Category category, City city) {
+        if (dto.getTitle() != null) {
+            ad.setTitle(dto.getTitle());
+        }
+        if (category != null) {
+            ad.setCategory(category);
+        }
+        if (city != null) {
+            ad.setCity(city);
+        }
+        if (dto.getCondition() != null) {
+            ad.setCondition(dto.getCondition());
+        }
+        if (dto.getPrice() != null) {
+            ad.setPrice(dto.getPrice());
+        }
+        if (dto.getIsAvailable() != null) {
+            ad.setIsAvailable(dto.getIsAvailable());
+        }
+        if (dto.getDescription() != null) {
+            ad.setDescription(dto.getDescription());
+        }
+    }
+
     /**
      * Helper method to find category by name.
      */
     private Category findCategoryByName(String categoryName) throws AppObjectNotFoundException {
-        return categoryRepository.findByCategory(categoryName)
+        return staticDataCache.findCategory(categoryName)
                 .orElseThrow(() -> new AppObjectNotFoundException("Category", "Category not found: " + categoryName));
     }
     
@@ -258,7 +557,7 @@ public class AdService {
      * Helper method to find city by name.
      */
     private City findCityByName(String cityName) throws AppObjectNotFoundException {
-        return cityRepository.findByCityName(cityName)
+        return staticDataCache.findCity(cityName)
                 .orElseThrow(() -> new AppObjectNotFoundException("City", "City not found: " + cityName));
     }
     
@@ -272,20 +571,111 @@ public class AdService {
     }
     
     /**
-     * Helper method to handle image attachment creation or update.
+     * Helper method to validate the images of a request against the gallery budget.
+     */
+    private void validateImageFiles(List<MultipartFile> uploads) throws AppObjectInvalidArgumentException {
+        if (uploads.size() > maxGalleryImages) {
+            throw new AppObjectInvalidArgumentException("Image", "An ad can have at most " + maxGalleryImages + " images");
+        }
+
+        long totalBytes = 0;
+        for (MultipartFile upload : uploads) {
+            validateImageFile(upload);
+            totalBytes += upload.getSize();
+        }
+        if (totalBytes > maxGalleryBytes) {
+            throw new AppObjectInvalidArgumentException("Image",
+                    "Images exceed the total size limit of " + maxGalleryBytes / (1024 * 1024) + "MB");
+        }
+    }
+
+    /**
+     * Helper method to collect the non-empty uploads of a request, cover image first.
      */
-    private void handleImageAttachment(Ad ad, MultipartFile image, Long adId) {
+    private List<MultipartFile> collectUploads(MultipartFile image, List<MultipartFile> images) {
+        List<MultipartFile> uploads = new ArrayList<>();
         if (image != null && !image.isEmpty()) {
-            if (ad.getImage() != null) {
-                // Update existing attachment
-                Attachment updatedAttachment = attachmentService.updateAdAttachment(
-                        ad.getImage(), image, adId);
-                ad.setImage(updatedAttachment);
-            } else {
-                // Create new attachment
-                Attachment newAttachment = attachmentService.createAdAttachment(image, adId);
-                ad.setImage(newAttachment);
-            }
+            uploads.add(image);
+        }
+        if (images != null) {
+            images.stream().filter(file -> file != null && !file.isEmpty()).forEach(uploads::add);
+        }
+        return uploads;
+    }
+
+    /**
+     * Helper method to resolve the images of a request.
+     * Uploaded files win over a content hash from the upload handshake.
+     */
+    private List<Attachment> resolveImages(List<MultipartFile> uploads, String imageHash)
+            throws AppObjectNotFoundException, AppObjectInvalidArgumentException {
+        if (!uploads.isEmpty()) {
+            return attachmentService.stageAttachments(uploads);
+        }
+        if (imageHash != null && !imageHash.isBlank()) {
+            return List.of(attachmentService.findByContentHash(imageHash));
+        }
+        return List.of();
+    }
+
+    /**
+     * Helper method to replace an ad's gallery, the first image becoming the cover.
+     * New references are taken in one statement before the old ones are dropped.
+     */
+    void replaceGallery(Ad ad, List<Attachment> attachments) {
+        if (attachments.isEmpty()) {
+            return;
+        }
+
+        Attachment oldCover = ad.getImage();
+        Attachment newCover = attachments.get(0);
+        boolean coverChanged = oldCover == null || !oldCover.getId().equals(newCover.getId());
+
+        // The cover holds its own reference besides its gallery entry
+        List<Attachment> acquired = new ArrayList<>(attachments);
+        if (coverChanged) {
+            acquired.add(newCover);
+        }
+        attachmentService.acquireAll(acquired);
+
+        List<AdImage> previous = new ArrayList<>(ad.getGallery());
+        setGallery(ad, attachments);
+
+        if (coverChanged) {
+            attachmentService.release(oldCover);
+        }
+        previous.forEach(adImage -> attachmentService.release(adImage.getAttachment()));
+    }
+
+    /**
+     * Helper method to give a new ad its gallery without taking the references, so the
+     * bulk import can take those of a whole batch with one {@link AttachmentService#acquireAll}.
+     *
+     * @return The references the gallery holds, the cover's included
+     */
+    List<Attachment> fillNewGallery(Ad ad, List<Attachment> attachments) {
+        if (attachments.isEmpty()) {
+            return List.of();
+        }
+
+        setGallery(ad, attachments);
+        List<Attachment> references = new ArrayList<>(attachments);
+        references.add(attachments.get(0));
+        return references;
+    }
+
+    /**
+     * Helper method to set an ad's cover and gallery entries, leaving reference counts alone.
+     */
+    private static void setGallery(Ad ad, List<Attachment> attachments) {
+        ad.setImage(attachments.get(0));
+        ad.getGallery().clear();
+        for (int position = 0; position < attachments.size(); position++) {
+            AdImage adImage = new AdImage();
+            adImage.setAd(ad);
+            adImage.setAttachment(attachments.get(position));
+            adImage.setPosition(position);
+            ad.getGallery().add(adImage);
         }
     }
-}
\ No newline at end of file
+}
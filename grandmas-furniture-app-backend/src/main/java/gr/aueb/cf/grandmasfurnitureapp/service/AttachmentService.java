@@ -1,17 +1,49 @@
 package gr.aueb.cf.grandmasfurnitureapp.service;
 
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.AttachmentStatus;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.ImageFormat;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectInvalidArgumentException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotFoundException;
 import gr.aueb.cf.grandmasfurnitureapp.model.Attachment;
 import gr.aueb.cf.grandmasfurnitureapp.repository.AttachmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
 /**
  * Service for handling file attachments and their metadata.
- * Manages both file storage and attachment entity operations.
+ * Attachments are content-addressable: identical uploads share one blob and one
+ * attachment row, whose reference count tracks how many ads use it.
  */
 @Service
 @RequiredArgsConstructor
@@ -21,103 +53,354 @@ public class AttachmentService {
 
     private final AttachmentRepository attachmentRepository;
     private final FileService fileService;
+    private final ImageProcessingService imageProcessingService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.images.gc-grace-ms:3600000}")
+    private long gcGraceMs;
+
+    @Value("${app.images.upload.parallelism:4}")
+    private int uploadParallelism;
+
+    @Value("${app.images.cleanup.queue-capacity:1000}")
+    private int cleanupQueueCapacity;
+
+    private ThreadPoolExecutor stagingExecutor;
+    private ThreadPoolExecutor cleanupExecutor;
+    private Counter newUploads;
+    private Counter deduplicatedUploads;
+
+    @PostConstruct
+    void startExecutors() {
+        newUploads = Counter.builder("app.attachments.staged")
+                .description("Uploads registered as attachments")
+                .tag("result", "new")
+                .register(meterRegistry);
+        deduplicatedUploads = Counter.builder("app.attachments.staged")
+                .description("Uploads registered as attachments")
+                .tag("result", "deduplicated")
+                .register(meterRegistry);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        // When the queue is full the request thread stages the file itself, which throttles it
+        stagingExecutor = new ThreadPoolExecutor(uploadParallelism, uploadParallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(uploadParallelism * 4),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "upload-stager-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        Gauge.builder("app.attachments.staging.queue", () -> stagingExecutor.getQueue().size())
+                .description("Uploads waiting for a staging thread")
+                .register(meterRegistry);
+
+        // File deletions of committed transactions, one thread is enough for storage deletes
+        cleanupExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(cleanupQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "file-cleanup");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        Gauge.builder("app.attachments.cleanup.queue", () -> cleanupExecutor.getQueue().size())
+                .description("File deletions waiting for the cleanup thread")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stopExecutors() throws InterruptedException {
+        stagingExecutor.shutdown();
+        // Let queued deletions finish, files left behind would only be found by the reconciler
+        cleanupExecutor.shutdown();
+        if (!cleanupExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+            cleanupExecutor.shutdownNow();
+        }
+    }
 
     /**
-     * Creates and stores an attachment for an ad.
+     * Stages an uploaded file and returns the attachment for its content.
+     * If a blob with the same SHA-256 hash already exists it is reused and the
+     * upload is dropped; otherwise a new pending attachment is created and queued
+     * for processing. The returned attachment is not referenced yet, see {@link #acquire}.
+     * Content type and extension come from the sniffed format, not from the client.
      *
      * @param file The uploaded file
-     * @param adId The ad ID to associate with
-     * @return Created attachment entity
+     * @return Attachment holding the file's content
+     * @throws AppObjectInvalidArgumentException if the file is not an acceptable image
      */
-    @Transactional
-    public Attachment createAdAttachment(MultipartFile file, Long adId) {
-        LOGGER.info("Creating attachment for ad ID: {}", adId);
+    public Attachment stageAttachment(MultipartFile file) throws AppObjectInvalidArgumentException {
+        return register(file.getOriginalFilename(), fileService.stageUpload(file));
+    }
 
-        // Store the physical file
-        String imagePath = fileService.storeAdImage(file, adId);
+    /**
+     * Stages a file assembled by a resumable upload, see {@link #stageAttachment}.
+     *
+     * @param file The assembled file, owned by the attachment from here on
+     * @param filename The client's file name
+     * @param expectedHash SHA-256 announced by the client, may be null
+     * @return Attachment holding the file's content
+     * @throws AppObjectInvalidArgumentException if the file is not an acceptable image or its hash differs
+     */
+    public Attachment stageUploadedFile(Path file, String filename, String expectedHash)
+            throws AppObjectInvalidArgumentException {
 
-        // Create attachment metadata
-        Attachment attachment = new Attachment();
-        attachment.setFilename(file.getOriginalFilename());
-        attachment.setSavedName("image." + fileService.getFileExtension(file.getOriginalFilename()));
-        attachment.setFilePath(imagePath);
-        attachment.setContentType(file.getContentType());
-        attachment.setExtension(fileService.getFileExtension(file.getOriginalFilename()));
+        FileService.StagedUpload staged = fileService.stageFile(file);
+        if (expectedHash != null && !expectedHash.equalsIgnoreCase(staged.getContentHash())) {
+            throw new AppObjectInvalidArgumentException("Upload", "Uploaded content does not match its checksum");
+        }
+        return register(filename, staged);
+    }
 
-        // Save to database
-        attachment = attachmentRepository.save(attachment);
+    private Attachment register(String filename, FileService.StagedUpload staged) {
+        Attachment existing = attachmentRepository.findByContentHash(staged.getContentHash()).orElse(null);
+        if (existing != null && existing.getStatus() != AttachmentStatus.FAILED) {
+            if (touch(existing)) {
+                LOGGER.info("Upload '{}' matches existing attachment ID: {}", filename, existing.getId());
+                fileService.deleteStaged(staged.getPath().toString());
+                deduplicatedUploads.increment();
+                return existing;
+            }
+            // Purged since the lookup, the upload stores the content again
+            existing = null;
+        }
+
+        // New content, or a retry of content whose processing failed before
+        Attachment attachment = existing != null ? existing : new Attachment();
+        ImageFormat format = staged.getHeader().getFormat();
+        attachment.setFilename(filename);
+        attachment.setSavedName(staged.getContentHash() + "." + format.getExtension());
+        attachment.setContentType(format.getContentType());
+        attachment.setExtension(format.getExtension());
+        attachment.setWidth(staged.getHeader().getWidth());
+        attachment.setHeight(staged.getHeader().getHeight());
+        attachment.setContentHash(staged.getContentHash());
+        attachment.setStagedPath(staged.getPath().toString());
+        attachment.setStatus(AttachmentStatus.PENDING);
+        attachment.setRetryCount(0);
 
-        LOGGER.info("Attachment created with ID: {}", attachment.getId());
+        try {
+            attachment = attachmentRepository.saveAndFlush(attachment);
+        } catch (DataIntegrityViolationException e) {
+            // Another request stored the same content concurrently
+            fileService.deleteStaged(staged.getPath().toString());
+            deduplicatedUploads.increment();
+            return attachmentRepository.findByContentHash(staged.getContentHash()).orElseThrow(() -> e);
+        }
+
+        newUploads.increment();
+        LOGGER.info("Staged upload '{}' as attachment ID: {}", filename, attachment.getId());
+        imageProcessingService.schedule(attachment);
         return attachment;
     }
 
     /**
-     * Updates an existing attachment with a new file.
+     * Stages several uploaded files in parallel, see {@link #stageAttachment}.
      *
-     * @param existingAttachment The current attachment to replace
-     * @param newFile The new file to upload
-     * @param adId The ad ID
-     * @return Updated attachment entity
+     * @param files The uploaded files
+     * @return Attachments in the order of the files
+     * @throws AppObjectInvalidArgumentException if any file is not an acceptable image
      */
-    @Transactional
-    public Attachment updateAdAttachment(Attachment existingAttachment, MultipartFile newFile, Long adId) {
-        LOGGER.info("Updating attachment ID: {} for ad ID: {}", existingAttachment.getId(), adId);
+    public List<Attachment> stageAttachments(List<MultipartFile> files) throws AppObjectInvalidArgumentException {
+        if (files.size() == 1) {
+            return List.of(stageAttachment(files.get(0)));
+        }
 
-        // Delete old file
-        fileService.deleteAdImage(adId);
+        List<CompletableFuture<Attachment>> staged = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return stageAttachment(file);
+                    } catch (AppObjectInvalidArgumentException e) {
+                        throw new CompletionException(e);
+                    }
+                }, stagingExecutor))
+                .collect(Collectors.toList());
+        try {
+            return staged.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            // Attachments staged before the failure stay unreferenced and are purged later
+            if (e.getCause() instanceof AppObjectInvalidArgumentException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 
-        // Store new file
-        String imagePath = fileService.storeAdImage(newFile, adId);
+    /**
+     * Finds an attachment by the SHA-256 hash of its content.
+     * Used by clients to skip uploading content that is already stored. Restarts the
+     * attachment's grace period, so it stays until the client references it.
+     *
+     * @param contentHash Hex encoded SHA-256 hash
+     * @return The attachment
+     * @throws AppObjectNotFoundException if no attachment has this hash
+     */
+    public Attachment findByContentHash(String contentHash) throws AppObjectNotFoundException {
+        return attachmentRepository.findByContentHash(contentHash.toLowerCase())
+                .filter(attachment -> attachment.getStatus() != AttachmentStatus.FAILED)
+                .filter(this::touch)
+                .orElseThrow(() -> new AppObjectNotFoundException("Attachment",
+                        "Attachment with hash " + contentHash + " not found"));
+    }
 
-        // Update attachment metadata
-        existingAttachment.setFilename(newFile.getOriginalFilename());
-        existingAttachment.setSavedName("image." + fileService.getFileExtension(newFile.getOriginalFilename()));
-        existingAttachment.setFilePath(imagePath);
-        existingAttachment.setContentType(newFile.getContentType());
-        existingAttachment.setExtension(fileService.getFileExtension(newFile.getOriginalFilename()));
+    /**
+     * Restarts the grace period of an attachment found by its hash, so it is not purged
+     * before the caller takes its reference.
+     *
+     * @return false if the attachment was purged since it was read
+     */
+    private boolean touch(Attachment attachment) {
+        return attachmentRepository.touch(attachment.getId(), LocalDateTime.now()) == 1;
+    }
 
-        // Save updated entity
-        existingAttachment = attachmentRepository.save(existingAttachment);
+    /**
+     * Adds a reference from an ad to an attachment.
+     * Must run in the same transaction that stores the ad.
+     *
+     * @param attachment The attachment to reference
+     */
+    @Transactional
+    public void acquire(Attachment attachment) {
+        if (attachmentRepository.incrementReferenceCount(attachment.getId(), LocalDateTime.now()) == 0) {
+            throw new IllegalStateException("Attachment " + attachment.getId() + " no longer exists");
+        }
+    }
+
+    /**
+     * Adds one reference per list entry, so an attachment listed twice gets two.
+     * Runs one statement per distinct count, usually a single one.
+     * Must run in the same transaction that stores the ad.
+     *
+     * @param attachments The attachments to reference
+     */
+    @Transactional
+    public void acquireAll(List<Attachment> attachments) {
+        if (attachments.isEmpty()) {
+            return;
+        }
 
-        LOGGER.info("Attachment updated successfully");
-        return existingAttachment;
+        List<Long> attachmentIds = attachments.stream().map(Attachment::getId).collect(Collectors.toList());
+        LocalDateTime now = LocalDateTime.now();
+        groupByCount(attachmentIds).forEach((count, ids) -> {
+            if (attachmentRepository.incrementReferenceCounts(ids, count, now) != ids.size()) {
+                throw new IllegalStateException("Attachments " + ids + " no longer all exist");
+            }
+        });
     }
 
     /**
-     * Deletes an attachment and its associated file.
+     * Removes a reference from an ad to an attachment.
+     * Unreferenced blobs are deleted by {@link #purgeUnreferencedAttachments()} after a grace period.
      *
-     * @param attachment The attachment to delete
-     * @param adId The ad ID (for file deletion)
+     * @param attachment The attachment to release, may be null
      */
     @Transactional
-    public void deleteAdAttachment(Attachment attachment, Long adId) {
+    public void release(Attachment attachment) {
         if (attachment == null) {
             return;
         }
 
-        LOGGER.info("Deleting attachment ID: {} for ad ID: {}", attachment.getId(), adId);
+        if (attachment.getContentHash() == null) {
+            // Legacy attachment stored before deduplication, owned by a single ad
+            LOGGER.info("Deleting legacy attachment ID: {}", attachment.getId());
+            attachmentRepository.delete(attachment);
+            deleteFilesAfterCommit(Collections.singletonList(attachment.getFilePath()));
+            return;
+        }
+
+        attachmentRepository.decrementReferenceCount(attachment.getId(), LocalDateTime.now());
+    }
+
+    /**
+     * Removes one reference per list entry, like {@link #release} for each but with
+     * one statement per distinct count. Legacy attachments are deleted in one statement
+     * and their files are deleted in the background after commit.
+     * Must run in the same transaction that deletes the ads.
+     *
+     * @param attachmentIds IDs of the released attachments, repeated for each reference
+     */
+    @Transactional
+    public void releaseAll(List<Long> attachmentIds) {
+        if (attachmentIds.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, List<Long>> idsByCount = groupByCount(attachmentIds);
+        List<Attachment> legacy = attachmentRepository.findByIdInAndContentHashIsNull(new HashSet<>(attachmentIds));
+        if (!legacy.isEmpty()) {
+            List<Long> legacyIds = legacy.stream().map(Attachment::getId).collect(Collectors.toList());
+            LOGGER.info("Deleting legacy attachment IDs: {}", legacyIds);
+            attachmentRepository.deleteAllByIdInBatch(legacyIds);
+            deleteFilesAfterCommit(legacy.stream().map(Attachment::getFilePath).collect(Collectors.toList()));
+            idsByCount.values().forEach(ids -> ids.removeAll(legacyIds));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        idsByCount.forEach((count, ids) -> {
+            if (!ids.isEmpty()) {
+                attachmentRepository.decrementReferenceCounts(ids, count, now);
+            }
+        });
+    }
 
-        // Delete physical file
-        fileService.deleteAdImage(adId);
+    /**
+     * Groups attachment IDs by how often they occur in the list.
+     */
+    private static Map<Integer, List<Long>> groupByCount(List<Long> attachmentIds) {
+        Map<Long, Integer> counts = new LinkedHashMap<>();
+        attachmentIds.forEach(id -> counts.merge(id, 1, Integer::sum));
+        return counts.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue, TreeMap::new,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+    }
 
-        // Delete database record
-        attachmentRepository.delete(attachment);
+    /**
+     * Deletes stored files on the cleanup thread once the current transaction commits,
+     * or right away outside a transaction. On rollback the files are kept.
+     */
+    private void deleteFilesAfterCommit(List<String> publicPaths) {
+        Runnable cleanup = () -> publicPaths.forEach(fileService::deleteStoredFile);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cleanupExecutor.execute(cleanup);
+            return;
+        }
 
-        LOGGER.info("Attachment deleted successfully");
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cleanupExecutor.execute(cleanup);
+            }
+        });
     }
 
     /**
-     * Finds attachment by ad ID.
-     *
-     * @param adId The ad ID
-     * @return Attachment if found, null otherwise
+     * Deletes attachments and blobs that no ad has referenced for the grace period.
+     * The grace period covers clients that checked a hash and are about to reuse it.
      */
-    public Attachment findByAdId(Long adId) {
-        return attachmentRepository.findByAdId(adId).orElse(null);
+    @Scheduled(fixedDelayString = "${app.images.gc-interval-ms:600000}")
+    public void purgeUnreferencedAttachments() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(gcGraceMs));
+
+        for (Attachment attachment : attachmentRepository
+                .findTop50ByReferenceCountAndContentHashIsNotNullAndUpdatedAtBeforeOrderByIdAsc(0, cutoff)) {
+            // Skipped if it was touched or referenced since the query
+            if (attachmentRepository.deleteIfUnreferenced(attachment.getId(), cutoff) == 1) {
+                LOGGER.info("Purging unreferenced attachment ID: {}", attachment.getId());
+                fileService.deleteStoredFile(attachment.getFilePath());
+                fileService.deleteStoredFile(attachment.getThumbnailPath());
+                fileService.deleteStaged(attachment.getStagedPath());
+            }
+        }
     }
 
     /**
      * Checks if a file is a valid image for attachment.
+     * A cheap pre-check on the client's claims; the content itself is verified
+     * while it is staged, see {@link FileService#stageUpload}.
      *
      * @param file The file to validate
      * @return true if valid, false otherwise
@@ -137,4 +420,4 @@ public class AttachmentService {
         String extension = fileService.getFileExtension(file.getOriginalFilename());
         return extension.matches("jpg|jpeg|png|gif|webp");
     }
-}
\ No newline at end of file
+}
@@ -1,47 +1,312 @@
 package gr.aueb.cf.grandmasfurnitureapp.service;
 
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.ImageFormat;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectInvalidArgumentException;
+import gr.aueb.cf.grandmasfurnitureapp.core.images.ImageHeader;
+import gr.aueb.cf.grandmasfurnitureapp.core.images.ImageHeaderReader;
+import gr.aueb.cf.grandmasfurnitureapp.core.timing.RequestTimings;
+import gr.aueb.cf.grandmasfurnitureapp.storage.BlobStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 
 /**
  * Simple file service for ad images.
- * Stores images in: src/main/resources/uploads/ads/{adId}/image.{ext}
+ * Uploads are first staged in a temporary directory and later moved by the
+ * image workers to content-addressable blobs in the configured {@link BlobStorage},
+ * served under /uploads/blobs/{sha256}.{ext}.
+ * Images stored before blobs existed stay under src/main/resources/uploads.
  */
 @Service
+@RequiredArgsConstructor
 public class FileService {
 
-    public String storeAdImage(MultipartFile file, Long adId) {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileService.class);
+    private static final String UPLOADS_ROOT = "src/main/resources/uploads";
+    private static final int COPY_BUFFER_SIZE = 8192;
+    public static final String BLOBS_PATH = "/uploads/blobs/";
+
+    private final BlobStorage blobStorage;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.images.staging-dir:uploads-staging}")
+    private String stagingDir;
+
+    @Value("${app.images.max-bytes:10485760}")
+    private long maxImageBytes;
+
+    @Value("${app.images.max-dimension:12000}")
+    private int maxImageDimension;
+
+    @Value("${app.images.max-pixels:25000000}")
+    private long maxImagePixels;
+
+    private DistributionSummary uploadBytes;
+    private Counter rejectedUploads;
+    private Timer stagingTimer;
+    private Timer blobWriteTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        uploadBytes = DistributionSummary.builder("app.uploads.bytes")
+                .description("Size of accepted image uploads")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        rejectedUploads = Counter.builder("app.uploads.rejected")
+                .description("Uploads rejected as unsupported, oversized or malformed images")
+                .register(meterRegistry);
+        stagingTimer = Timer.builder("app.uploads.staging")
+                .description("Time to copy, hash and check an upload")
+                .register(meterRegistry);
+        blobWriteTimer = Timer.builder("app.storage.writes")
+                .description("Time to move a staged file into blob storage")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Copies an uploaded file to the staging area, hashing it on the way.
+     * The format is sniffed from the magic bytes before anything is written, and the
+     * dimensions are read from the image header, so unsupported, oversized and
+     * decompression-bomb images are rejected before any worker decodes them.
+     * Memory use is one fixed copy buffer per upload.
+     *
+     * @param file The uploaded file
+     * @return The staged copy with its SHA-256 hash and image header
+     * @throws AppObjectInvalidArgumentException if the file is not an acceptable image
+     */
+    public StagedUpload stageUpload(MultipartFile file) throws AppObjectInvalidArgumentException {
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            String extension = file.getOriginalFilename().substring(
-                    file.getOriginalFilename().lastIndexOf(".") + 1);
+            StagedUpload upload = copyToStaging(file);
+            uploadBytes.record(upload.getSize());
+            return upload;
+        } catch (AppObjectInvalidArgumentException e) {
+            rejectedUploads.increment();
+            throw e;
+        } finally {
+            sample.stop(stagingTimer);
+        }
+    }
 
-            Path adDir = Paths.get("src/main/resources/uploads/ads/" + adId);
-            Files.createDirectories(adDir);
+    private StagedUpload copyToStaging(MultipartFile file) throws AppObjectInvalidArgumentException {
+        Path staged = null;
+        try {
+            Path dir = getStagingDir(null);
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
 
-            Path targetPath = adDir.resolve("image." + extension);
-            Files.copy(file.getInputStream(), targetPath, StandardCopyOption.REPLACE_EXISTING);
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                byte[] buffer = new byte[COPY_BUFFER_SIZE];
+                int headLength = in.readNBytes(buffer, 0, ImageFormat.SNIFF_LENGTH);
+                ImageFormat format = ImageFormat.sniff(buffer, headLength);
+                if (format == null) {
+                    throw new AppObjectInvalidArgumentException("Image", "Unsupported image format");
+                }
+
+                staged = Files.createTempFile(dir, "upload-", "." + format.getExtension());
+                long size = headLength;
+                try (OutputStream out = Files.newOutputStream(staged)) {
+                    out.write(buffer, 0, headLength);
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        size += read;
+                        if (size > maxImageBytes) {
+                            throw new AppObjectInvalidArgumentException("Image",
+                                    "Image exceeds the size limit of " + maxImageBytes / (1024 * 1024) + "MB");
+                        }
+                        out.write(buffer, 0, read);
+                    }
+                }
+
+                ImageHeader header = ImageHeaderReader.read(staged, format);
+                validateHeader(header);
+
+                StagedUpload upload = new StagedUpload(staged, HexFormat.of().formatHex(digest.digest()), size, header);
+                staged = null; // owned by the caller from here on
+                return upload;
+            }
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("File staging failed", e);
+        } finally {
+            if (staged != null) {
+                deleteQuietly(staged);
+            }
+        }
+    }
 
-            return "/uploads/ads/" + adId + "/image." + extension;
-        } catch (Exception e) {
-            throw new RuntimeException("File upload failed", e);
+    /**
+     * Stages a file that was already assembled in the staging area, e.g. by a resumable upload.
+     * Runs the same checks as {@link #stageUpload(MultipartFile)} without copying the file.
+     * The file is left in place when it is rejected.
+     *
+     * @param file The assembled file inside the staging directory
+     * @return The staged file with its SHA-256 hash and image header
+     * @throws AppObjectInvalidArgumentException if the file is not an acceptable image
+     */
+    public StagedUpload stageFile(Path file) throws AppObjectInvalidArgumentException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            StagedUpload upload = checkStagedFile(file);
+            uploadBytes.record(upload.getSize());
+            return upload;
+        } catch (AppObjectInvalidArgumentException e) {
+            rejectedUploads.increment();
+            throw e;
+        } finally {
+            sample.stop(stagingTimer);
         }
     }
 
-    public void deleteAdImage(Long adId) {
+    private StagedUpload checkStagedFile(Path file) throws AppObjectInvalidArgumentException {
         try {
-            Path adDir = Paths.get("src/main/resources/uploads/ads/" + adId);
-            if (Files.exists(adDir)) {
-                Files.walk(adDir).forEach(path -> {
-                    try { Files.delete(path); } catch (Exception ignored) {}
-                });
+            long size = Files.size(file);
+            if (size > maxImageBytes) {
+                throw new AppObjectInvalidArgumentException("Image",
+                        "Image exceeds the size limit of " + maxImageBytes / (1024 * 1024) + "MB");
+            }
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ImageFormat format;
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                byte[] head = new byte[ImageFormat.SNIFF_LENGTH];
+                format = ImageFormat.sniff(head, in.readNBytes(head, 0, head.length));
+                if (format == null) {
+                    throw new AppObjectInvalidArgumentException("Image", "Unsupported image format");
+                }
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+
+            ImageHeader header = ImageHeaderReader.read(file, format);
+            validateHeader(header);
+            return new StagedUpload(file, HexFormat.of().formatHex(digest.digest()), size, header);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException("File staging failed", e);
+        }
+    }
+
+    /**
+     * Returns the staging directory, created if missing.
+     *
+     * @param subdirectory Optional subdirectory, may be null
+     * @return Absolute path of the directory
+     */
+    public Path getStagingDir(String subdirectory) throws IOException {
+        Path dir = Paths.get(stagingDir).toAbsolutePath();
+        if (subdirectory != null) {
+            dir = dir.resolve(subdirectory);
+        }
+        return Files.createDirectories(dir);
+    }
+
+    private void validateHeader(ImageHeader header) throws AppObjectInvalidArgumentException {
+        if (header == null) {
+            throw new AppObjectInvalidArgumentException("Image", "Image header is corrupt");
+        }
+        if (header.getWidth() > maxImageDimension || header.getHeight() > maxImageDimension
+                || header.getPixels() > maxImagePixels) {
+            throw new AppObjectInvalidArgumentException("Image",
+                    "Image dimensions " + header.getWidth() + "x" + header.getHeight() + " exceed the limit");
+        }
+    }
+
+    /**
+     * Moves a staged file to its content-addressable location.
+     * If a blob with the same hash is already stored, the staged copy is dropped.
+     *
+     * @param staged Path of the staged file
+     * @param contentHash SHA-256 hash of the file
+     * @param extension File extension of the image
+     * @return Public path of the stored image
+     */
+    public String storeBlob(Path staged, String contentHash, String extension) throws IOException {
+        String key = contentHash + "." + extension;
+        if (blobStorage.exists(key)) {
+            Files.deleteIfExists(staged);
+        } else {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long start = RequestTimings.start();
+            try {
+                blobStorage.put(key, staged);
+            } finally {
+                RequestTimings.stop(RequestTimings.Phase.STORAGE, start);
+                sample.stop(blobWriteTimer);
+            }
+        }
+
+        return BLOBS_PATH + key;
+    }
+
+    /**
+     * Checks whether the file behind a public path is still stored.
+     *
+     * @param publicPath Public path as returned by {@link #storeBlob}
+     * @return true if the file exists
+     */
+    public boolean storedFileExists(String publicPath) throws IOException {
+        if (publicPath.startsWith(BLOBS_PATH)) {
+            return blobStorage.exists(publicPath.substring(BLOBS_PATH.length()));
+        }
+        return publicPath.startsWith("/uploads/")
+                && Files.exists(Paths.get(UPLOADS_ROOT, publicPath.substring("/uploads/".length())));
+    }
+
+    /**
+     * Returns the directory that backs legacy images under /uploads/.
+     *
+     * @return Absolute, normalized uploads root
+     */
+    public Path getUploadsRoot() {
+        return Paths.get(UPLOADS_ROOT).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Deletes a stored image by its public path.
+     *
+     * @param publicPath Public path as returned by {@link #storeBlob}, may be null
+     */
+    public void deleteStoredFile(String publicPath) {
+        if (publicPath != null && publicPath.startsWith(BLOBS_PATH)) {
+            String key = publicPath.substring(BLOBS_PATH.length());
+            try {
+                blobStorage.delete(key);
+            } catch (IOException e) {
+                LOGGER.warn("Could not delete blob {}", key, e);
             }
-        } catch (Exception ignored) {}
+        } else if (publicPath != null && publicPath.startsWith("/uploads/")) {
+            deleteQuietly(Paths.get(UPLOADS_ROOT, publicPath.substring("/uploads/".length())));
+        }
+    }
+
+    /**
+     * Removes a staged file that will not be processed.
+     *
+     * @param stagedPath Path of the staged file, may be null
+     */
+    public void deleteStaged(String stagedPath) {
+        if (stagedPath != null) {
+            deleteQuietly(Paths.get(stagedPath));
+        }
     }
 
     /**
@@ -55,4 +320,24 @@ public class FileService {
         }
         return filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
     }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete file {}", path, e);
+        }
+    }
+
+    /**
+     * A file copied to the staging area.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class StagedUpload {
+        private final Path path;
+        private final String contentHash;
+        private final long size;
+        private final ImageHeader header;
+    }
 }
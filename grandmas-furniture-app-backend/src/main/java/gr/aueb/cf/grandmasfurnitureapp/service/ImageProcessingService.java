@@ -0,0 +1,192 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.AttachmentStatus;
+import gr.aueb.cf.grandmasfurnitureapp.model.Attachment;
+import gr.aueb.cf.grandmasfurnitureapp.repository.AttachmentRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Background pipeline that finalizes staged image uploads.
+ *
+ * <p>New uploads are stored as a {@link AttachmentStatus#PENDING} attachment that points at
+ * a staged file. A bounded worker pool renders its variants, moves the file to its blob
+ * location and marks the attachment {@link AttachmentStatus#READY}. Images of one
+ * upload are separate jobs, so a gallery is processed in parallel. Failed jobs are retried by a
+ * periodic sweep until {@code app.images.worker.max-attempts} is reached.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ImageProcessingService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageProcessingService.class);
+
+    private final AttachmentRepository attachmentRepository;
+    private final FileService fileService;
+    private final ImageVariantService imageVariantService;
+
+    @Value("${app.images.worker.pool-size:4}")
+    private int poolSize;
+
+    @Value("${app.images.worker.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${app.images.worker.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.images.worker.retry-delay-ms:30000}")
+    private long retryDelayMs;
+
+    @Value("${app.images.worker.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void startWorkers() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stopWorkers() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Schedules processing of a pending attachment.
+     * Inside a transaction the job is submitted after commit, and the staged
+     * file is discarded on rollback.
+     *
+     * @param attachment The pending attachment, may be null
+     */
+    public void schedule(Attachment attachment) {
+        if (attachment == null || attachment.getStatus() != AttachmentStatus.PENDING) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submit(attachment.getId());
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    submit(attachment.getId());
+                } else {
+                    fileService.deleteStaged(attachment.getStagedPath());
+                }
+            }
+        });
+    }
+
+    /**
+     * Re-queues attachments whose previous attempt failed and recovers jobs
+     * left in {@link AttachmentStatus#PROCESSING} by a crashed worker.
+     */
+    @Scheduled(fixedDelayString = "${app.images.worker.sweep-interval-ms:30000}")
+    public void retryPendingAttachments() {
+        LocalDateTime now = LocalDateTime.now();
+
+        for (Attachment stale : attachmentRepository.findTop50ByStatusAndUpdatedAtBeforeOrderByIdAsc(
+                AttachmentStatus.PROCESSING, now.minus(Duration.ofMillis(staleAfterMs)))) {
+            LOGGER.warn("Recovering stale image job for attachment ID: {}", stale.getId());
+            attachmentRepository.transitionStatus(stale.getId(), AttachmentStatus.PROCESSING, AttachmentStatus.PENDING, now);
+        }
+
+        for (Attachment pending : attachmentRepository.findTop50ByStatusAndUpdatedAtBeforeOrderByIdAsc(
+                AttachmentStatus.PENDING, now.minus(Duration.ofMillis(retryDelayMs)))) {
+            submit(pending.getId());
+        }
+    }
+
+    private void submit(Long attachmentId) {
+        try {
+            executor.execute(() -> process(attachmentId));
+        } catch (RejectedExecutionException e) {
+            // Queue is full: the attachment stays PENDING and the sweep picks it up later
+            LOGGER.warn("Image worker queue is full, deferring attachment ID: {}", attachmentId);
+        }
+    }
+
+    private void process(Long attachmentId) {
+        if (attachmentRepository.transitionStatus(attachmentId, AttachmentStatus.PENDING,
+                AttachmentStatus.PROCESSING, LocalDateTime.now()) == 0) {
+            return; // already claimed, finished or deleted
+        }
+
+        Attachment attachment = attachmentRepository.findById(attachmentId).orElse(null);
+        if (attachment == null) {
+            return;
+        }
+
+        // The row is only written through targeted updates: ads may take references while the job runs
+        try {
+            Path staged = Paths.get(attachment.getStagedPath());
+            ImageVariantService.ImageVariants variants = renderVariants(staged, attachment);
+            String imagePath = fileService.storeBlob(staged, attachment.getContentHash(), attachment.getExtension());
+
+            if (attachmentRepository.markReady(attachmentId, imagePath, variants.getThumbnailPath(),
+                    variants.getPlaceholder(), AttachmentStatus.READY, AttachmentStatus.PROCESSING,
+                    LocalDateTime.now()) == 0) {
+                LOGGER.warn("Image job for attachment ID: {} was taken over before it finished", attachmentId);
+                return;
+            }
+            LOGGER.info("Image ready for attachment ID: {}", attachmentId);
+        } catch (Exception e) {
+            int attempts = attachment.getRetryCount() + 1;
+
+            if (attempts >= maxAttempts) {
+                LOGGER.error("Image processing failed permanently for attachment ID: {}", attachmentId, e);
+                fileService.deleteStaged(attachment.getStagedPath());
+                attachmentRepository.markAttemptFailed(attachmentId, AttachmentStatus.FAILED, null,
+                        AttachmentStatus.PROCESSING, LocalDateTime.now());
+            } else {
+                LOGGER.warn("Image processing attempt {} failed for attachment ID: {}", attempts, attachmentId, e);
+                attachmentRepository.markAttemptFailed(attachmentId, AttachmentStatus.PENDING,
+                        attachment.getStagedPath(), AttachmentStatus.PROCESSING, LocalDateTime.now());
+            }
+        }
+    }
+
+    /**
+     * Missing variants are not worth failing the job over, clients fall back to the original.
+     */
+    private ImageVariantService.ImageVariants renderVariants(Path staged, Attachment attachment) {
+        try {
+            return imageVariantService.createVariants(staged, attachment.getContentHash());
+        } catch (Exception e) {
+            LOGGER.warn("Could not render variants for attachment ID: {}", attachment.getId(), e);
+            return new ImageVariantService.ImageVariants(null, null);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.storage.BlobInfo;
+import gr.aueb.cf.grandmasfurnitureapp.storage.BlobStorage;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Lazily transcodes image blobs to more compact formats for clients that accept them.
+ *
+ * <p>A variant is rendered on the first request that asks for it and kept in a disk
+ * cache keyed by the blob key, which never changes its content. The cache is bounded
+ * by total size and evicts the least recently used variants, using the file's
+ * modification time as the access clock. Variants that are not smaller than the
+ * original are remembered as empty marker files, so the original is served from then on.</p>
+ *
+ * <p>Formats are offered only when an ImageIO writer for them is on the classpath.
+ * Transcoding runs on the request thread with a small concurrency limit; requests that
+ * find no free slot get the original instead of waiting.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ImageTranscodeService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageTranscodeService.class);
+    private static final long TOUCH_INTERVAL_MS = 60 * 60 * 1000L;
+
+    private final BlobStorage blobStorage;
+
+    @Value("${app.images.transcode.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.images.transcode.cache-dir:data/transcode-cache}")
+    private String cacheDirectory;
+
+    @Value("${app.images.transcode.cache-max-bytes:1073741824}")
+    private long cacheMaxBytes;
+
+    @Value("${app.images.transcode.quality:0.8}")
+    private float quality;
+
+    @Value("${app.images.transcode.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private Path cacheDir;
+    private Semaphore transcodeSlots;
+    private final AtomicLong cacheBytes = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    @Getter
+    private volatile List<TargetFormat> availableFormats = List.of();
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        availableFormats = Stream.of(TargetFormat.values())
+                .filter(format -> ImageIO.getImageWritersByMIMEType(format.getContentType()).hasNext())
+                .collect(Collectors.toList());
+        if (availableFormats.isEmpty()) {
+            LOGGER.info("No ImageIO writer for AVIF or WebP found, images are served as uploaded");
+            return;
+        }
+
+        cacheDir = Files.createDirectories(Paths.get(cacheDirectory).toAbsolutePath().normalize());
+        transcodeSlots = new Semaphore(maxConcurrent);
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            cacheBytes.set(files.filter(Files::isRegularFile).mapToLong(this::sizeOf).sum());
+        }
+        LOGGER.info("Transcoding images to {}, cache at {} holds {} bytes", availableFormats, cacheDir, cacheBytes.get());
+    }
+
+    /**
+     * Returns the cached variant of a blob, rendering it first if needed.
+     *
+     * @param blobKey Key of the original blob
+     * @param format The target format, one of {@link #getAvailableFormats()}
+     * @return Path of the variant, or empty if the original should be served
+     */
+    public Optional<Path> getVariant(String blobKey, TargetFormat format) {
+        if (!availableFormats.contains(format) || !BlobStorage.isValidKey(blobKey)) {
+            return Optional.empty();
+        }
+
+        Path variant = variantPath(blobKey, format);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(variant, BasicFileAttributes.class);
+            touch(variant, attributes);
+            return attributes.size() > 0 ? Optional.of(variant) : Optional.empty();
+        } catch (NoSuchFileException e) {
+            // not rendered yet
+        } catch (IOException e) {
+            LOGGER.warn("Could not read image variant {}", variant, e);
+            return Optional.empty();
+        }
+
+        if (!transcodeSlots.tryAcquire()) {
+            return Optional.empty();
+        }
+        try {
+            return transcode(blobKey, format, variant);
+        } finally {
+            transcodeSlots.release();
+        }
+    }
+
+    private Optional<Path> transcode(String blobKey, TargetFormat format, Path variant) {
+        Path temp = null;
+        try {
+            long originalSize = blobStorage.stat(blobKey).map(BlobInfo::getSize).orElse(-1L);
+            if (originalSize < 0) {
+                return Optional.empty();
+            }
+
+            Files.createDirectories(variant.getParent());
+            temp = Files.createTempFile(variant.getParent(), ".transcode-", ".tmp");
+            BufferedImage image = decode(blobKey, originalSize);
+            long size = image != null ? encode(image, format, temp) : 0;
+            if (size >= originalSize) {
+                // Empty marker: not worth it, or not decodable
+                Files.write(temp, new byte[0]);
+                size = 0;
+            }
+
+            Files.move(temp, variant, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            temp = null;
+            if (size > 0) {
+                LOGGER.debug("Transcoded {} to {} ({} -> {} bytes)", blobKey, format, originalSize, size);
+                cacheBytes.addAndGet(size);
+                evictIfNeeded();
+                return Optional.of(variant);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not transcode {} to {}", blobKey, format, e);
+        } catch (LinkageError e) {
+            // Writer plugins may depend on native code that is missing on this platform
+            LOGGER.error("Disabling {} transcoding, its writer cannot run here", format, e);
+            availableFormats = availableFormats.stream().filter(available -> available != format).collect(Collectors.toList());
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    LOGGER.warn("Could not delete file {}", temp, e);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private BufferedImage decode(String blobKey, long size) throws IOException {
+        Optional<Path> local = blobStorage.localPath(blobKey);
+        if (local.isPresent()) {
+            return ImageIO.read(local.get().toFile());
+        }
+        try (InputStream in = blobStorage.open(blobKey, 0, size)) {
+            return ImageIO.read(in);
+        }
+    }
+
+    /**
+     * Writes the image in the target format.
+     *
+     * @return Size of the written file
+     */
+    private long encode(BufferedImage image, TargetFormat format, Path target) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(format.getContentType());
+        if (!writers.hasNext()) {
+            return 0;
+        }
+
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (types != null && types.length > 0) {
+                    // Writers list their lossy mode first
+                    param.setCompressionType(types[0]);
+                }
+                param.setCompressionQuality(quality);
+            }
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return Files.size(target);
+    }
+
+    /**
+     * Marks a variant as recently used. Throttled, so a hot image costs one write per interval.
+     */
+    private void touch(Path variant, BasicFileAttributes attributes) {
+        long now = System.currentTimeMillis();
+        if (now - attributes.lastModifiedTime().toMillis() < TOUCH_INTERVAL_MS) {
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(variant, FileTime.fromMillis(now));
+        } catch (IOException e) {
+            LOGGER.debug("Could not touch image variant {}", variant, e);
+        }
+    }
+
+    /**
+     * Deletes the least recently used variants until the cache is below 90% of its limit.
+     * Only one thread evicts at a time; others go on, the cache may briefly run over.
+     */
+    private void evictIfNeeded() {
+        if (cacheBytes.get() <= cacheMaxBytes || !evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            List<CachedFile> files = new ArrayList<>();
+            try (Stream<Path> paths = Files.walk(cacheDir)) {
+                for (Path path : (Iterable<Path>) paths.filter(Files::isRegularFile)::iterator) {
+                    try {
+                        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                        files.add(new CachedFile(path, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                    } catch (NoSuchFileException e) {
+                        // deleted meanwhile
+                    }
+                }
+            }
+
+            long total = files.stream().mapToLong(file -> file.size).sum();
+            long target = cacheMaxBytes / 10 * 9;
+            files.sort(Comparator.comparingLong(file -> file.lastUsed));
+            int evicted = 0;
+            for (CachedFile file : files) {
+                if (total <= target) {
+                    break;
+                }
+                Files.deleteIfExists(file.path);
+                total -= file.size;
+                evicted++;
+            }
+            cacheBytes.set(total);
+            LOGGER.info("Evicted {} image variants, cache holds {} bytes", evicted, total);
+        } catch (IOException e) {
+            LOGGER.warn("Image variant eviction failed", e);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private Path variantPath(String blobKey, TargetFormat format) {
+        return cacheDir.resolve(blobKey.substring(0, 2)).resolve(blobKey + "." + format.getExtension());
+    }
+
+    private long sizeOf(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @AllArgsConstructor
+    private static class CachedFile {
+        private final Path path;
+        private final long size;
+        private final long lastUsed;
+    }
+
+    /**
+     * Formats images can be transcoded to, in order of preference.
+     */
+    @Getter
+    public enum TargetFormat {
+        AVIF("image/avif", "avif"),
+        WEBP("image/webp", "webp");
+
+        private final String contentType;
+        private final String extension;
+
+        TargetFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.images.BlurHash;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Renders derived versions of uploaded images, run by the image workers.
+ * Variants are stored as blobs next to the original, keyed by the original's hash.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImageVariantService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final int PLACEHOLDER_SAMPLE_SIZE = 32;
+
+    private final FileService fileService;
+
+    @Value("${app.images.thumbnail-size:400}")
+    private int thumbnailSize;
+
+    @Value("${app.images.placeholder.components-x:4}")
+    private int placeholderComponentsX;
+
+    @Value("${app.images.placeholder.components-y:3}")
+    private int placeholderComponentsY;
+
+    /**
+     * Renders all variants of an image from a single decode.
+     *
+     * @param source The original image file
+     * @param contentHash SHA-256 hash of the original
+     * @return The variants, with null fields if the format cannot be decoded
+     */
+    public ImageVariants createVariants(Path source, String contentHash) throws IOException {
+        BufferedImage image = decodeSubsampled(source);
+        if (image == null) {
+            LOGGER.debug("No decoder for {}, skipping variants", source.getFileName());
+            return new ImageVariants(null, null);
+        }
+
+        BufferedImage thumbnail = scale(image, thumbnailSize);
+        // The placeholder is sampled from the thumbnail, a few hundred pixels instead of the original's millions
+        String placeholder = BlurHash.encode(scale(thumbnail, PLACEHOLDER_SAMPLE_SIZE),
+                placeholderComponentsX, placeholderComponentsY);
+        return new ImageVariants(storeThumbnail(source, thumbnail, contentHash), placeholder);
+    }
+
+    /**
+     * Scales an image to fit in a square of the given size, never enlarging it.
+     * JPEG has no alpha channel, so transparent areas are painted white.
+     */
+    private BufferedImage scale(BufferedImage image, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * Stores a JPEG thumbnail that fits in a square of {@code app.images.thumbnail-size} pixels.
+     */
+    private String storeThumbnail(Path source, BufferedImage thumbnail, String contentHash) throws IOException {
+        Path rendered = Files.createTempFile(source.getParent(), "thumb-", ".jpg");
+        try {
+            ImageIO.write(thumbnail, "jpg", rendered.toFile());
+            return fileService.storeBlob(rendered, contentHash + "-thumb", "jpg");
+        } finally {
+            Files.deleteIfExists(rendered);
+        }
+    }
+
+    /**
+     * Decodes an image at no more than about twice the thumbnail size by skipping
+     * source pixels, so decoding memory does not grow with the original's resolution.
+     */
+    private BufferedImage decodeSubsampled(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longestSide / (thumbnailSize * 2));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Derived versions of one image.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ImageVariants {
+        private final String thumbnailPath;
+        private final String placeholder;
+    }
+}
@@ -0,0 +1,264 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectConflictException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectInvalidArgumentException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotFoundException;
+import gr.aueb.cf.grandmasfurnitureapp.dto.UploadSessionReadOnlyDTO;
+import gr.aueb.cf.grandmasfurnitureapp.mapper.Mapper;
+import gr.aueb.cf.grandmasfurnitureapp.model.Attachment;
+import gr.aueb.cf.grandmasfurnitureapp.model.UploadSession;
+import gr.aueb.cf.grandmasfurnitureapp.model.User;
+import gr.aueb.cf.grandmasfurnitureapp.repository.UploadSessionRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Service for resumable image uploads, following the core of the tus protocol.
+ *
+ * <p>A client creates a session with the total length, then sends the bytes in one or
+ * more chunks, each starting at the offset the server reports. Chunks are written to a
+ * temporary file with positional writes, and bytes received before a dropped connection
+ * are kept. Once the file is complete its hash is verified and it is handed to
+ * {@link AttachmentService}; the client then references it through {@code imageHash}.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class ResumableUploadService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumableUploadService.class);
+    private static final String SESSIONS_DIR = "resumable";
+    private static final int CHUNK_BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final AttachmentService attachmentService;
+    private final FileService fileService;
+    private final Mapper mapper;
+
+    @Value("${app.images.max-bytes:10485760}")
+    private long maxUploadBytes;
+
+    @Value("${app.uploads.resumable.ttl-ms:86400000}")
+    private long sessionTtlMs;
+
+    @Value("${app.uploads.resumable.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+
+    /**
+     * Opens a new upload session.
+     *
+     * @param user The authenticated user
+     * @param uploadLength Total size of the file in bytes
+     * @param metadata tus Upload-Metadata header: comma separated "key base64value" pairs, may be null.
+     *                 Known keys are {@code filename} and {@code sha256}.
+     * @return The new session
+     */
+    public UploadSessionReadOnlyDTO createSession(User user, long uploadLength, String metadata)
+            throws AppObjectInvalidArgumentException {
+
+        if (uploadLength <= 0 || uploadLength > maxUploadBytes) {
+            throw new AppObjectInvalidArgumentException("Upload",
+                    "Upload length must be between 1 byte and " + maxUploadBytes / (1024 * 1024) + "MB");
+        }
+        if (uploadSessionRepository.countByUserId(user.getId()) >= maxSessionsPerUser) {
+            throw new AppObjectInvalidArgumentException("Upload", "Too many unfinished uploads");
+        }
+
+        Map<String, String> values = parseMetadata(metadata);
+        String contentHash = values.get("sha256");
+        if (contentHash != null && !contentHash.matches("^[a-fA-F0-9]{64}$")) {
+            throw new AppObjectInvalidArgumentException("Upload", "sha256 must be a SHA-256 hex string");
+        }
+
+        String id = UUID.randomUUID().toString();
+        Path tempFile;
+        try {
+            tempFile = Files.createFile(fileService.getStagingDir(SESSIONS_DIR).resolve(id + ".part"));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create upload file", e);
+        }
+
+        UploadSession session = new UploadSession();
+        session.setId(id);
+        session.setUser(user);
+        session.setFilename(values.get("filename"));
+        session.setUploadLength(uploadLength);
+        session.setUploadOffset(0);
+        session.setContentHash(contentHash != null ? contentHash.toLowerCase() : null);
+        session.setTempPath(tempFile.toString());
+        session.setExpiresAt(LocalDateTime.now().plus(Duration.ofMillis(sessionTtlMs)));
+        uploadSessionRepository.save(session);
+
+        LOGGER.info("Opened upload session {} ({} bytes) for user: {}", id, uploadLength, user.getUsername());
+        return mapper.mapToUploadSessionReadOnlyDTO(session);
+    }
+
+    /**
+     * Returns the current offset of a session.
+     *
+     * @param user The authenticated user
+     * @param sessionId The session ID
+     * @return The session
+     */
+    public UploadSessionReadOnlyDTO getSession(User user, String sessionId) throws AppObjectNotFoundException {
+        return mapper.mapToUploadSessionReadOnlyDTO(findSession(user, sessionId));
+    }
+
+    /**
+     * Appends a chunk at the given offset.
+     * Completes the upload when the last byte arrives.
+     *
+     * @param user The authenticated user
+     * @param sessionId The session ID
+     * @param offset Offset the client starts writing at, must match the session's offset
+     * @param body The chunk
+     * @return The session, with the content hash set if the upload is complete
+     * @throws AppObjectConflictException if the offset does not match
+     * @throws AppObjectInvalidArgumentException if the chunk overflows the upload, or the completed
+     *                                           file is not an acceptable image
+     */
+    public UploadSessionReadOnlyDTO appendChunk(User user, String sessionId, long offset, InputStream body)
+            throws AppObjectNotFoundException, AppObjectConflictException, AppObjectInvalidArgumentException {
+
+        UploadSession session = findSession(user, sessionId);
+        if (offset != session.getUploadOffset()) {
+            throw new AppObjectConflictException("Upload",
+                    "Upload offset is " + session.getUploadOffset() + ", not " + offset);
+        }
+
+        long remaining = session.getUploadLength() - offset;
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(Paths.get(session.getTempPath()), StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BUFFER_SIZE);
+            int read;
+            // Reads one byte past the remaining length to detect chunks that overflow the upload
+            while ((read = body.read(buffer.array(), 0, (int) Math.min(buffer.capacity(), remaining - written + 1))) != -1) {
+                if (written + read > remaining) {
+                    throw new AppObjectInvalidArgumentException("Upload", "Chunk exceeds the upload length");
+                }
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer, offset + written);
+                }
+            }
+        } catch (IOException e) {
+            // Connection dropped: keep what arrived so the client can resume from there
+            LOGGER.debug("Upload session {} interrupted after {} bytes", sessionId, written, e);
+        }
+
+        long newOffset = offset + written;
+        LocalDateTime now = LocalDateTime.now();
+        if (uploadSessionRepository.advanceOffset(sessionId, offset, newOffset,
+                now.plus(Duration.ofMillis(sessionTtlMs)), now) == 0) {
+            throw new AppObjectConflictException("Upload", "Upload was modified concurrently");
+        }
+        session.setUploadOffset(newOffset);
+
+        UploadSessionReadOnlyDTO dto = mapper.mapToUploadSessionReadOnlyDTO(session);
+        if (newOffset == session.getUploadLength()) {
+            dto.setContentHash(complete(session).getContentHash());
+        }
+        return dto;
+    }
+
+    /**
+     * Cancels an upload and discards its bytes.
+     *
+     * @param user The authenticated user
+     * @param sessionId The session ID
+     */
+    public void terminate(User user, String sessionId) throws AppObjectNotFoundException {
+        UploadSession session = findSession(user, sessionId);
+        discard(session);
+        LOGGER.info("Terminated upload session {}", sessionId);
+    }
+
+    /**
+     * Discards sessions that were not completed in time.
+     */
+    @Scheduled(fixedDelayString = "${app.uploads.resumable.cleanup-interval-ms:3600000}")
+    public void purgeExpiredSessions() {
+        for (UploadSession session : uploadSessionRepository.findTop50ByExpiresAtBeforeOrderByExpiresAtAsc(LocalDateTime.now())) {
+            LOGGER.info("Discarding expired upload session {}", session.getId());
+            discard(session);
+        }
+    }
+
+    /**
+     * Discards all sessions of a user, used when the user is purged.
+     *
+     * @param userId The user ID
+     * @return number of discarded sessions
+     */
+    public int discardAllOf(Long userId) {
+        List<UploadSession> sessions = uploadSessionRepository.findByUserId(userId);
+        sessions.forEach(this::discard);
+        return sessions.size();
+    }
+
+    private Attachment complete(UploadSession session) throws AppObjectInvalidArgumentException {
+        // From here the file belongs to the attachment, or is discarded with the session
+        uploadSessionRepository.delete(session);
+        try {
+            Attachment attachment = attachmentService.stageUploadedFile(
+                    Paths.get(session.getTempPath()), session.getFilename(), session.getContentHash());
+            LOGGER.info("Upload session {} completed as attachment ID: {}", session.getId(), attachment.getId());
+            return attachment;
+        } catch (AppObjectInvalidArgumentException | RuntimeException e) {
+            fileService.deleteStaged(session.getTempPath());
+            throw e;
+        }
+    }
+
+    private UploadSession findSession(User user, String sessionId) throws AppObjectNotFoundException {
+        return uploadSessionRepository.findById(sessionId)
+                .filter(session -> session.getUser().getId() == user.getId())
+                .filter(session -> session.getExpiresAt().isAfter(LocalDateTime.now()))
+                .orElseThrow(() -> new AppObjectNotFoundException("Upload", "Upload " + sessionId + " not found"));
+    }
+
+    private void discard(UploadSession session) {
+        uploadSessionRepository.delete(session);
+        fileService.deleteStaged(session.getTempPath());
+    }
+
+    private Map<String, String> parseMetadata(String metadata) throws AppObjectInvalidArgumentException {
+        Map<String, String> values = new HashMap<>();
+        if (metadata == null || metadata.isBlank()) {
+            return values;
+        }
+
+        try {
+            for (String pair : metadata.split(",")) {
+                String[] parts = pair.trim().split(" ", 2);
+                String value = parts.length > 1
+                        ? new String(Base64.getDecoder().decode(parts[1].trim()), StandardCharsets.UTF_8)
+                        : "";
+                values.put(parts[0], value);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new AppObjectInvalidArgumentException("Upload", "Upload-Metadata values must be base64 encoded");
+        }
+        return values;
+    }
+}
@@ -0,0 +1,77 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.model.static_data.Category;
+import gr.aueb.cf.grandmasfurnitureapp.model.static_data.City;
+import gr.aueb.cf.grandmasfurnitureapp.repository.CategoryRepository;
+import gr.aueb.cf.grandmasfurnitureapp.repository.CityRepository;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory copy of the categories and cities, for resolving names without a query per ad.
+ *
+ * <p>Both tables are small and rarely change, so they are loaded whole and reloaded once the
+ * copy is older than {@code app.static-data.cache-ttl-ms}. Names are matched ignoring case,
+ * like the database collation does. The entities are detached and only serve as references.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class StaticDataCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StaticDataCache.class);
+
+    private final CategoryRepository categoryRepository;
+    private final CityRepository cityRepository;
+
+    @Value("${app.static-data.cache-ttl-ms:300000}")
+    private long ttlMs;
+
+    private volatile Snapshot snapshot;
+
+    public Optional<Category> findCategory(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(current().categories.get(key(name)));
+    }
+
+    public Optional<City> findCity(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(current().cities.get(key(name)));
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - current.loadedAt > ttlMs) {
+            // Concurrent reloads are harmless, the last one wins
+            current = load();
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        Map<String, Category> categories = new HashMap<>();
+        categoryRepository.findAll().forEach(category -> categories.put(key(category.getCategory()), category));
+        Map<String, City> cities = new HashMap<>();
+        cityRepository.findAll().forEach(city -> cities.put(key(city.getCityName()), city));
+        LOGGER.debug("Loaded {} categories and {} cities", categories.size(), cities.size());
+        return new Snapshot(categories, cities, System.currentTimeMillis());
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @AllArgsConstructor
+    private static class Snapshot {
+        private final Map<String, Category> categories;
+        private final Map<String, City> cities;
+        private final long loadedAt;
+    }
+}
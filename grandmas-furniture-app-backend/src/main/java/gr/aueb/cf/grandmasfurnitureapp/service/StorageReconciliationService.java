@@ -0,0 +1,192 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.AttachmentStatus;
+import gr.aueb.cf.grandmasfurnitureapp.model.Attachment;
+import gr.aueb.cf.grandmasfurnitureapp.model.MaintenanceCheckpoint;
+import gr.aueb.cf.grandmasfurnitureapp.repository.AttachmentRepository;
+import gr.aueb.cf.grandmasfurnitureapp.repository.MaintenanceCheckpointRepository;
+import gr.aueb.cf.grandmasfurnitureapp.storage.BlobInfo;
+import gr.aueb.cf.grandmasfurnitureapp.storage.BlobStorage;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Background job that finds storage drift between blobs and the attachments table.
+ *
+ * <p>Each run handles one batch of blobs and one batch of attachments, in key and ID
+ * order, and stores its position in a {@link MaintenanceCheckpoint} so a pass spans
+ * many short runs and survives restarts. Nothing is held in a transaction across a batch.</p>
+ *
+ * <ul>
+ *   <li>Blobs that no attachment points at are orphans. They are deleted once older than
+ *   the grace period, which covers workers that stored a blob but have not committed yet.</li>
+ *   <li>Ready attachments whose blob is gone are marked {@link AttachmentStatus#FAILED}, so
+ *   the next upload of the same content stores it again.</li>
+ * </ul>
+ *
+ * <p>With {@code app.storage.reconciler.repair=false} (the default) findings are only logged.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class StorageReconciliationService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StorageReconciliationService.class);
+    private static final String BLOB_CHECKPOINT = "storage-reconciler.blobs";
+    private static final String ATTACHMENT_CHECKPOINT = "storage-reconciler.attachments";
+    private static final int CONTENT_HASH_LENGTH = 64;
+
+    private final BlobStorage blobStorage;
+    private final AttachmentRepository attachmentRepository;
+    private final MaintenanceCheckpointRepository checkpointRepository;
+    private final FileService fileService;
+
+    @Value("${app.storage.reconciler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.storage.reconciler.repair:false}")
+    private boolean repair;
+
+    @Value("${app.storage.reconciler.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.storage.reconciler.max-deletes-per-batch:50}")
+    private int maxDeletesPerBatch;
+
+    @Value("${app.storage.reconciler.grace-ms:86400000}")
+    private long graceMs;
+
+    /**
+     * Processes the next batch of blobs and attachments.
+     * The fixed delay between runs is the rate limit of the job.
+     */
+    @Scheduled(initialDelayString = "${app.storage.reconciler.initial-delay-ms:120000}",
+            fixedDelayString = "${app.storage.reconciler.interval-ms:60000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            reconcileBlobs();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Blob reconciliation batch failed, retrying on the next run", e);
+        }
+
+        try {
+            reconcileAttachments();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Attachment reconciliation batch failed, retrying on the next run", e);
+        }
+    }
+
+    private void reconcileBlobs() throws IOException {
+        String afterKey = loadCheckpoint(BLOB_CHECKPOINT);
+        List<String> keys = blobStorage.list(afterKey, batchSize);
+        if (keys.isEmpty()) {
+            if (afterKey != null) {
+                LOGGER.info("Blob reconciliation pass complete");
+                saveCheckpoint(BLOB_CHECKPOINT, null);
+            }
+            return;
+        }
+
+        // Variants share the hash prefix of their original, so one lookup covers both
+        Set<String> hashes = keys.stream().map(this::contentHashOf).collect(Collectors.toSet());
+        Set<String> referencedKeys = new HashSet<>();
+        for (Attachment attachment : attachmentRepository.findByContentHashIn(hashes)) {
+            addBlobKey(referencedKeys, attachment.getFilePath());
+            addBlobKey(referencedKeys, attachment.getThumbnailPath());
+        }
+
+        long cutoff = System.currentTimeMillis() - graceMs;
+        int deleted = 0;
+        for (String key : keys) {
+            if (referencedKeys.contains(key)) {
+                continue;
+            }
+
+            BlobInfo info = blobStorage.stat(key).orElse(null);
+            if (info == null || info.getLastModified() > cutoff) {
+                continue;
+            }
+
+            if (repair && deleted < maxDeletesPerBatch) {
+                blobStorage.delete(key);
+                deleted++;
+                LOGGER.info("Deleted orphaned blob {} ({} bytes)", key, info.getSize());
+            } else {
+                LOGGER.warn("Found orphaned blob {} ({} bytes)", key, info.getSize());
+            }
+        }
+
+        saveCheckpoint(BLOB_CHECKPOINT, keys.get(keys.size() - 1));
+    }
+
+    private void reconcileAttachments() throws IOException {
+        String checkpoint = loadCheckpoint(ATTACHMENT_CHECKPOINT);
+        long afterId = checkpoint != null ? Long.parseLong(checkpoint) : 0L;
+
+        List<Attachment> attachments = attachmentRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId, PageRequest.of(0, batchSize));
+        if (attachments.isEmpty()) {
+            if (checkpoint != null) {
+                LOGGER.info("Attachment reconciliation pass complete");
+                saveCheckpoint(ATTACHMENT_CHECKPOINT, null);
+            }
+            return;
+        }
+
+        for (Attachment attachment : attachments) {
+            if (attachment.getStatus() != AttachmentStatus.READY || attachment.getFilePath() == null
+                    || fileService.storedFileExists(attachment.getFilePath())) {
+                continue;
+            }
+
+            if (attachment.getContentHash() == null) {
+                LOGGER.warn("Legacy attachment ID: {} points at missing file {}", attachment.getId(), attachment.getFilePath());
+            } else if (repair) {
+                attachmentRepository.transitionStatus(attachment.getId(), AttachmentStatus.READY,
+                        AttachmentStatus.FAILED, LocalDateTime.now());
+                LOGGER.warn("Marked attachment ID: {} as failed, its blob {} is missing",
+                        attachment.getId(), attachment.getFilePath());
+            } else {
+                LOGGER.warn("Attachment ID: {} points at missing blob {}", attachment.getId(), attachment.getFilePath());
+            }
+        }
+
+        saveCheckpoint(ATTACHMENT_CHECKPOINT, String.valueOf(attachments.get(attachments.size() - 1).getId()));
+    }
+
+    private String contentHashOf(String key) {
+        return key.length() > CONTENT_HASH_LENGTH ? key.substring(0, CONTENT_HASH_LENGTH) : key;
+    }
+
+    private void addBlobKey(Set<String> keys, String publicPath) {
+        if (publicPath != null && publicPath.startsWith(FileService.BLOBS_PATH)) {
+            keys.add(publicPath.substring(FileService.BLOBS_PATH.length()));
+        }
+    }
+
+    private String loadCheckpoint(String name) {
+        return checkpointRepository.findById(name).map(MaintenanceCheckpoint::getLastKey).orElse(null);
+    }
+
+    private void saveCheckpoint(String name, String lastKey) {
+        MaintenanceCheckpoint checkpoint = checkpointRepository.findById(name)
+                .orElseGet(() -> new MaintenanceCheckpoint(name, null));
+        checkpoint.setLastKey(lastKey);
+        checkpointRepository.save(checkpoint);
+    }
+}
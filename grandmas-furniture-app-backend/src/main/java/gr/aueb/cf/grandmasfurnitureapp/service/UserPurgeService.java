@@ -0,0 +1,160 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.model.MaintenanceCheckpoint;
+import gr.aueb.cf.grandmasfurnitureapp.repository.AdRepository;
+import gr.aueb.cf.grandmasfurnitureapp.repository.MaintenanceCheckpointRepository;
+import gr.aueb.cf.grandmasfurnitureapp.repository.RefreshTokenRepository;
+import gr.aueb.cf.grandmasfurnitureapp.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Background job that removes deleted users together with their ads and images.
+ *
+ * <p>{@link UserService#deleteUser} only hides a user and their ads. This job then deletes
+ * the ads in batches of {@code app.users.purge.batch-size}, one short transaction each, and
+ * releases their image references like a bulk delete does, so unused files are removed by
+ * the usual cleanup. Once no ads are left, the user's upload sessions, refresh tokens and
+ * the user row itself are deleted.</p>
+ *
+ * <p>Users are purged one at a time, oldest deletion first. The user in progress is stored
+ * in a {@link MaintenanceCheckpoint}, so after a restart the job resumes with the same user.
+ * Each run handles at most {@code app.users.purge.max-batches-per-run} batches; the fixed
+ * delay between runs is the rate limit of the job.</p>
+ */
+@Service
+@RequiredArgsConstructor
+public class UserPurgeService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserPurgeService.class);
+    private static final String CHECKPOINT = "user-purge";
+
+    private final UserRepository userRepository;
+    private final AdRepository adRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final MaintenanceCheckpointRepository checkpointRepository;
+    private final AttachmentService attachmentService;
+    private final ResumableUploadService resumableUploadService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.users.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.users.purge.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.users.purge.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    private Counter purgedAds;
+    private Counter purgedUsers;
+
+    @PostConstruct
+    void registerMeters() {
+        purgedAds = Counter.builder("app.users.purge.ads")
+                .description("Ads of deleted users removed by the purge")
+                .register(meterRegistry);
+        purgedUsers = Counter.builder("app.users.purge.users")
+                .description("Deleted users removed by the purge")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Processes the next batches of the user in progress, then of the next deleted users.
+     */
+    @Scheduled(initialDelayString = "${app.users.purge.initial-delay-ms:60000}",
+            fixedDelayString = "${app.users.purge.interval-ms:60000}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            purgeBatches();
+        } catch (RuntimeException e) {
+            LOGGER.warn("User purge batch failed, retrying on the next run", e);
+        }
+    }
+
+    private void purgeBatches() {
+        String checkpoint = loadCheckpoint();
+        Long userId = checkpoint != null ? Long.valueOf(checkpoint) : userRepository.findNextDeletedId().orElse(null);
+
+        int batches = 0;
+        while (userId != null && batches < maxBatchesPerRun) {
+            Long purgingUserId = userId;
+            Integer deleted = transactionTemplate.execute(status -> purgeAdBatch(purgingUserId));
+            batches++;
+
+            if (deleted > 0) {
+                purgedAds.increment(deleted);
+                continue;
+            }
+
+            purgeUser(userId);
+            userId = userRepository.findNextDeletedId().orElse(null);
+        }
+    }
+
+    /**
+     * Deletes the next batch of a user's ads and releases their image references.
+     * The checkpoint is saved in the same transaction.
+     *
+     * @return number of deleted ads, 0 if the user has none left
+     */
+    private int purgeAdBatch(Long userId) {
+        List<Long> adIds = adRepository.findPurgeBatch(userId, batchSize);
+        if (adIds.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> references = new ArrayList<>(adRepository.findPurgeImageIds(adIds));
+        references.addAll(adRepository.findPurgeGalleryAttachmentIds(adIds));
+
+        adRepository.purgeGallery(adIds);
+        int deleted = adRepository.purgeByIdIn(adIds);
+        attachmentService.releaseAll(references);
+        saveCheckpoint(String.valueOf(userId));
+        return deleted;
+    }
+
+    /**
+     * Deletes what is left of a user once the ads are gone.
+     */
+    private void purgeUser(Long userId) {
+        int sessions = resumableUploadService.discardAllOf(userId);
+        Integer purged = transactionTemplate.execute(status -> {
+            refreshTokenRepository.deleteAllOfUser(userId);
+            saveCheckpoint(null);
+            return userRepository.purgeDeleted(userId);
+        });
+
+        if (purged > 0) {
+            purgedUsers.increment();
+            LOGGER.info("Purged deleted user ID: {}, discarded {} upload sessions", userId, sessions);
+        }
+    }
+
+    private String loadCheckpoint() {
+        return checkpointRepository.findById(CHECKPOINT).map(MaintenanceCheckpoint::getLastKey).orElse(null);
+    }
+
+    private void saveCheckpoint(String lastKey) {
+        MaintenanceCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT)
+                .orElseGet(() -> new MaintenanceCheckpoint(CHECKPOINT, null));
+        checkpoint.setLastKey(lastKey);
+        checkpointRepository.save(checkpoint);
+    }
+}
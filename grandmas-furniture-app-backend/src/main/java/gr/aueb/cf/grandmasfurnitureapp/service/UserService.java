@@ -2,15 +2,25 @@ package gr.aueb.cf.grandmasfurnitureapp.service;
 
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectAlreadyExists;
 import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectNotFoundException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppPreconditionFailedException;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppServiceUnavailableException;
 import gr.aueb.cf.grandmasfurnitureapp.core.filters.Paginated;
 import gr.aueb.cf.grandmasfurnitureapp.core.filters.UserFilters;
 import gr.aueb.cf.grandmasfurnitureapp.dto.UserInsertDTO;
 import gr.aueb.cf.grandmasfurnitureapp.dto.UserReadOnlyDTO;
 import gr.aueb.cf.grandmasfurnitureapp.mapper.Mapper;
 import gr.aueb.cf.grandmasfurnitureapp.model.User;
+import gr.aueb.cf.grandmasfurnitureapp.repository.AdRepository;
+import gr.aueb.cf.grandmasfurnitureapp.repository.RefreshTokenRepository;
 import gr.aueb.cf.grandmasfurnitureapp.repository.UserRepository;
+import gr.aueb.cf.grandmasfurnitureapp.security.PasswordHashingService;
 import gr.aueb.cf.grandmasfurnitureapp.core.specifications.UserSpecification;
+import gr.aueb.cf.grandmasfurnitureapp.core.timing.SlowQueryLog;
 import gr.aueb.cf.grandmasfurnitureapp.core.enums.Role;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -23,8 +33,10 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.BindingResult;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -38,39 +50,73 @@ public class UserService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
+    private final AdRepository adRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
     private final Mapper mapper;
+    private final PasswordHashingService passwordHashingService;
+    private final MeterRegistry meterRegistry;
+    private final SlowQueryLog slowQueryLog;
+    private final TransactionTemplate transactionTemplate;
+
+    private Timer registrationTimer;
+    private Counter rejectedRegistrations;
+    private Timer searchTimer;
+
+    @PostConstruct
+    void registerMeters() {
+        registrationTimer = Timer.builder("app.users.registration")
+                .description("Successful registrations, including password hashing")
+                .register(meterRegistry);
+        rejectedRegistrations = Counter.builder("app.users.registration.rejected")
+                .description("Registrations rejected for a taken username or email")
+                .register(meterRegistry);
+        searchTimer = Timer.builder("app.users.search")
+                .description("Filtered user searches, query and mapping")
+                .register(meterRegistry);
+    }
 
-    @Transactional
-    public UserReadOnlyDTO registerUser(UserInsertDTO userInsertDTO) throws AppObjectAlreadyExists {
-
-        // Check for duplicate username
-        if (userRepository.findByUsername(userInsertDTO.getUsername()).isPresent()) {
-            throw new AppObjectAlreadyExists("User", "User with username " + userInsertDTO.getUsername()
-                    + " already exists");
-        }
-
-        // Check for duplicate email
-        if (userRepository.findByEmail(userInsertDTO.getEmail()).isPresent()) {
-            LOGGER.error("User with email {} already exists", userInsertDTO.getEmail());
-            throw new AppObjectAlreadyExists("User", "User with email " + userInsertDTO.getEmail()
-                    + " already exists");
-        }
+    /**
+     * Registers a new user. Usernames and emails of deleted users stay taken until the
+     * purge removes those users, see {@link UserPurgeService}.
+     * The password is hashed before the transaction starts, so no connection is held during
+     * the deliberately slow hashing.
+     */
+    public UserReadOnlyDTO registerUser(UserInsertDTO userInsertDTO)
+            throws AppObjectAlreadyExists, AppServiceUnavailableException {
 
+        Timer.Sample sample = Timer.start(meterRegistry);
 
-        // Map DTO to entity and save
-        LOGGER.info("Mapping DTO to entity: {}", userInsertDTO);
-        User user = mapper.mapToUserEntity(userInsertDTO);
+        // Map DTO to entity, hashing outside any transaction
+        User user = mapper.mapToUserEntity(userInsertDTO, passwordHashingService.encode(userInsertDTO.getPassword()));
 
+        User savedUser;
         try {
-            // Persist the new user entity to the database
-            User savedUser = userRepository.save(user);
-
-            // Return the saved user as a read-only DTO
-            return mapper.mapToUserReadOnlyDTO(savedUser);
+            savedUser = transactionTemplate.execute(status -> {
+                // Check for duplicate username and email, deleted users included
+                if (userRepository.countByUsernameIncludingDeleted(user.getUsername()) > 0) {
+                    throw new DuplicateUserException("User with username " + user.getUsername() + " already exists");
+                }
+                if (userRepository.countByEmailIncludingDeleted(user.getEmail()) > 0) {
+                    throw new DuplicateUserException("User with email " + user.getEmail() + " already exists");
+                }
+
+                // Persist the new user entity now, so a concurrent duplicate fails here and not at commit
+                return userRepository.saveAndFlush(user);
+            });
+        } catch (DuplicateUserException e) {
+            LOGGER.error(e.getMessage());
+            rejectedRegistrations.increment();
+            throw new AppObjectAlreadyExists("User", e.getMessage());
         } catch (DataIntegrityViolationException e) {
-            LOGGER.error("Data integrity violation while user registration : {}", user, e);
+            LOGGER.error("Data integrity violation while registering user: {}", user.getUsername(), e);
+            rejectedRegistrations.increment();
             throw new AppObjectAlreadyExists("User", "Duplicate user data found");
         }
+
+        // Return the saved user as a read-only DTO
+        UserReadOnlyDTO registered = mapper.mapToUserReadOnlyDTO(savedUser);
+        sample.stop(registrationTimer);
+        return registered;
     }
 
 
@@ -92,24 +138,27 @@ public class UserService {
 
 
     /**
-     * Delete user by username
+     * Delete user by username.
+     * The user and their ads are hidden at once and the user's refresh tokens are revoked;
+     * the rows, images and files are removed in the background by {@link UserPurgeService}.
      *
      * @param username
      * @throws AppObjectNotFoundException
      */
     @Transactional
     public void deleteUser(String username) throws AppObjectNotFoundException {
-        User user = userRepository.findByUsername(username)
+        Long userId = userRepository.findByUsername(username).map(User::getId)
                 .orElseThrow(() -> new AppObjectNotFoundException("User", "User with username: " + username + " not found"));
 
-        try {
-            // Perform user deletion
-            userRepository.delete(user);
-            LOGGER.info("User with username {} successfully deleted", username);
-        } catch (DataIntegrityViolationException e) {
-            LOGGER.warn("Cannot delete user {} - has active ads", username);
-            throw new DataIntegrityViolationException("Cannot delete user who has active ads. Please delete their ads first.");
+        // The bulk updates clear the persistence context, only the ID is used from here on
+        LocalDateTime now = LocalDateTime.now();
+        if (userRepository.markDeleted(userId, now) == 0) {
+            // Deleted by a concurrent request
+            throw new AppObjectNotFoundException("User", "User with username: " + username + " not found");
         }
+        int hiddenAds = adRepository.markDeletedByUserId(userId, now);
+        refreshTokenRepository.revokeAllOfUser(userId, now);
+        LOGGER.info("User with username {} deleted, {} ads hidden and queued for purge", username, hiddenAds);
     }
 
     /**
@@ -154,8 +203,15 @@ public class UserService {
      */
     @Transactional
     public List<UserReadOnlyDTO> getUsersFiltered(UserFilters filters) {
-        var filtered = userRepository.findAll(getSpecsFromFilters(filters), filters.getPageable());
-        return new Paginated<>(filtered.map(mapper::mapToUserReadOnlyDTO)).getData();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        List<UserReadOnlyDTO> users;
+        try (SlowQueryLog.Scope scope = slowQueryLog.open(filters.describeShape())) {
+            var filtered = userRepository.findAll(getSpecsFromFilters(filters), filters.getPageable());
+            scope.setRows(filtered.getNumberOfElements(), filtered.getTotalElements());
+            users = new Paginated<>(filtered.map(mapper::mapToUserReadOnlyDTO)).getData();
+        }
+        sample.stop(searchTimer);
+        return users;
     }
 
 
@@ -176,10 +232,14 @@ public class UserService {
      *
      * @param userId user ID
      * @param newRole new role to assign
+     * @param expectedVersion version the client last saw, from If-Match; null to skip the check
+     * @return the user's new version
      * @throws AppObjectNotFoundException if user not found
+     * @throws AppPreconditionFailedException if the user is not at the expected version
      */
     @Transactional
-    public void updateUserRole(Long userId, Role newRole) throws AppObjectNotFoundException {
+    public long updateUserRole(Long userId, Role newRole, Long expectedVersion)
+            throws AppObjectNotFoundException, AppPreconditionFailedException {
         LOGGER.info("Updating user role - userId: {}, newRole: {}", userId, newRole);
         
         User user = userRepository.findById(userId)
@@ -188,17 +248,25 @@ public class UserService {
                     return new AppObjectNotFoundException("User", "User with id " + userId + " not found");
                 });
 
+        if (expectedVersion != null && user.getVersion() != expectedVersion) {
+            throw new AppPreconditionFailedException("User", "User with id " + userId + " was changed, fetch it again");
+        }
+
         user.setRole(newRole);
-        userRepository.save(user);
+        // Flushed here so the returned version is the new one; a concurrent update fails with 412
+        userRepository.saveAndFlush(user);
         
         LOGGER.info("User with ID {} role successfully updated to {}", userId, newRole);
+        return user.getVersion();
     }
-}
-
-
-
-
-
-
 
+    /**
+     * Rolls back a registration whose username or email is taken.
+     */
+    private static class DuplicateUserException extends RuntimeException {
 
+        DuplicateUserException(String message) {
+            super(message);
+        }
+    }
+}
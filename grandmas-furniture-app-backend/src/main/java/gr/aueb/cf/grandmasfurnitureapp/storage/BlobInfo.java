@@ -0,0 +1,14 @@
+package gr.aueb.cf.grandmasfurnitureapp.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Size and modification time of a stored blob.
+ */
+@Getter
+@AllArgsConstructor
+public class BlobInfo {
+    private final long size;
+    private final long lastModified;
+}
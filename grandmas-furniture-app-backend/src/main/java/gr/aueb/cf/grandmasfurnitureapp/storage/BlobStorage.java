@@ -0,0 +1,86 @@
+package gr.aueb.cf.grandmasfurnitureapp.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Storage backend for image blobs.
+ * Keys are flat file names such as {@code {sha256}.{ext}}; backends decide how they
+ * are laid out. The active backend is selected with {@code app.storage.type}
+ * (local, memory or s3).
+ */
+public interface BlobStorage {
+
+    Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]*(\\.[A-Za-z0-9]+)?");
+
+    /**
+     * Stores a file under a key. The source file is consumed.
+     *
+     * @param key Blob key
+     * @param source File to store
+     */
+    void put(String key, Path source) throws IOException;
+
+    /**
+     * Looks up a blob's size and modification time.
+     *
+     * @param key Blob key
+     * @return Blob info, or empty if the blob does not exist
+     */
+    Optional<BlobInfo> stat(String key) throws IOException;
+
+    /**
+     * Opens a byte range of a blob for reading.
+     *
+     * @param key Blob key
+     * @param offset First byte to read
+     * @param length Number of bytes to read
+     * @return Stream over the requested range, closed by the caller
+     */
+    InputStream open(String key, long offset, long length) throws IOException;
+
+    /**
+     * Deletes a blob. Deleting a missing blob is not an error.
+     *
+     * @param key Blob key
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Lists stored keys in ascending order, for incremental scans.
+     *
+     * @param afterKey Only keys greater than this are returned, null to start from the beginning
+     * @param limit Maximum number of keys to return
+     * @return Up to {@code limit} keys, empty when the end is reached
+     */
+    List<String> list(String afterKey, int limit) throws IOException;
+
+    default boolean exists(String key) throws IOException {
+        return stat(key).isPresent();
+    }
+
+    /**
+     * Returns the file backing a blob, for backends that keep blobs on a local disk.
+     * Lets the image handler serve it with sendfile instead of streaming.
+     *
+     * @param key Blob key
+     * @return Local path, or empty if the backend is not file based
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    static boolean isValidKey(String key) {
+        return key != null && KEY_PATTERN.matcher(key).matches();
+    }
+
+    static void requireValidKey(String key) {
+        if (!isValidKey(key)) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package gr.aueb.cf.grandmasfurnitureapp.storage;
+
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps blobs on the heap. Meant for tests and local experiments only,
+ * contents are lost on restart and not shared between nodes.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "memory")
+public class InMemoryBlobStorage implements BlobStorage {
+
+    private final Map<String, StoredBlob> blobs = new ConcurrentHashMap<>();
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        BlobStorage.requireValidKey(key);
+        blobs.put(key, new StoredBlob(Files.readAllBytes(source), System.currentTimeMillis()));
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) {
+        StoredBlob blob = blobs.get(key);
+        return blob == null
+                ? Optional.empty()
+                : Optional.of(new BlobInfo(blob.content.length, blob.lastModified));
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        StoredBlob blob = blobs.get(key);
+        if (blob == null) {
+            throw new NoSuchFileException(key);
+        }
+        int from = (int) Math.min(offset, blob.content.length);
+        int count = (int) Math.min(length, blob.content.length - from);
+        return new ByteArrayInputStream(blob.content, from, count);
+    }
+
+    @Override
+    public List<String> list(String afterKey, int limit) {
+        return blobs.keySet().stream()
+                .filter(key -> afterKey == null || key.compareTo(afterKey) > 0)
+                .sorted()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void delete(String key) {
+        blobs.remove(key);
+    }
+
+    @AllArgsConstructor
+    private static class StoredBlob {
+        private final byte[] content;
+        private final long lastModified;
+    }
+}
@@ -0,0 +1,147 @@
+package gr.aueb.cf.grandmasfurnitureapp.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores blobs on a local or shared file system.
+ * Blobs are sharded by the first four characters of their key, e.g.
+ * {@code {root}/ab/cd/abcd<rest of hash>.jpg}, so no directory grows past 256 entries per level.
+ * Keys are content hashes, which keeps the shards evenly filled.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalBlobStorage implements BlobStorage {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LocalBlobStorage.class);
+
+    private final Path root;
+
+    public LocalBlobStorage(@Value("${app.storage.local.root:data/blobs}") String root) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        LOGGER.info("Storing image blobs under {}", this.root);
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Staging area is on another file system: copy next to the target, then publish atomically
+            Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+            try {
+                Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(key), BasicFileAttributes.class);
+            return Optional.of(new BlobInfo(attributes.size(), attributes.lastModifiedTime().toMillis()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(offset);
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    /**
+     * Keys sort in shard order, so shards before the one of {@code afterKey} are skipped
+     * without being listed.
+     */
+    @Override
+    public List<String> list(String afterKey, int limit) throws IOException {
+        List<String> keys = new ArrayList<>();
+        String afterShard = afterKey != null ? shardOf(afterKey) : "";
+
+        for (String first : listSorted(root, true)) {
+            if (first.compareTo(afterShard.substring(0, Math.min(2, afterShard.length()))) < 0) {
+                continue;
+            }
+            for (String second : listSorted(root.resolve(first), true)) {
+                if ((first + second).compareTo(afterShard) < 0) {
+                    continue;
+                }
+                for (String key : listSorted(root.resolve(first).resolve(second), false)) {
+                    // Skips keys already seen and temp files of uploads in progress
+                    if ((afterKey != null && key.compareTo(afterKey) <= 0) || !BlobStorage.isValidKey(key)) {
+                        continue;
+                    }
+                    keys.add(key);
+                    if (keys.size() >= limit) {
+                        return keys;
+                    }
+                }
+            }
+        }
+        return keys;
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        return Optional.of(resolve(key));
+    }
+
+    private Path resolve(String key) {
+        BlobStorage.requireValidKey(key);
+        String shard = shardOf(key);
+        return root.resolve(shard.substring(0, 2)).resolve(shard.substring(2, 4)).resolve(key);
+    }
+
+    private static String shardOf(String key) {
+        return (key + "____").substring(0, 4);
+    }
+
+    private static List<String> listSorted(Path dir, boolean directories) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> children = Files.list(dir)) {
+            return children
+                    .filter(child -> Files.isDirectory(child) == directories)
+                    .map(child -> child.getFileName().toString())
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package gr.aueb.cf.grandmasfurnitureapp.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Stores blobs in an S3 compatible object store, shared by all application nodes.
+ * Setting {@code app.storage.s3.endpoint} and {@code app.storage.s3.path-style=true}
+ * points it at a local stand-in such as MinIO.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3")
+public class S3BlobStorage implements BlobStorage {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(S3BlobStorage.class);
+
+    private final S3Client s3;
+    private final String bucket;
+    private final String prefix;
+
+    @Autowired
+    public S3BlobStorage(@Value("${app.storage.s3.bucket}") String bucket,
+                         @Value("${app.storage.s3.prefix:blobs/}") String prefix,
+                         @Value("${app.storage.s3.region:eu-central-1}") String region,
+                         @Value("${app.storage.s3.endpoint:}") String endpoint,
+                         @Value("${app.storage.s3.path-style:false}") boolean pathStyle,
+                         @Value("${app.storage.s3.access-key:}") String accessKey,
+                         @Value("${app.storage.s3.secret-key:}") String secretKey) {
+
+        this(buildClient(region, endpoint, pathStyle, accessKey, secretKey), bucket, prefix);
+        LOGGER.info("Storing image blobs in bucket '{}'{}", bucket, endpoint.isBlank() ? "" : " at " + endpoint);
+    }
+
+    /**
+     * Uses a client configured elsewhere, e.g. a stand-in in tests.
+     */
+    public S3BlobStorage(S3Client s3, String bucket, String prefix) {
+        this.s3 = s3;
+        this.bucket = bucket;
+        this.prefix = prefix;
+    }
+
+    private static S3Client buildClient(String region, String endpoint, boolean pathStyle,
+                                        String accessKey, String secretKey) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .forcePathStyle(pathStyle);
+        if (!endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        // Without explicit keys the default AWS credentials chain is used
+        if (!accessKey.isBlank()) {
+            builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)));
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        BlobStorage.requireValidKey(key);
+        try {
+            s3.putObject(PutObjectRequest.builder()
+                            .bucket(bucket)
+                            .key(prefix + key)
+                            .contentType(MediaTypeFactory.getMediaType(key)
+                                    .orElse(MediaType.APPLICATION_OCTET_STREAM).toString())
+                            .build(),
+                    RequestBody.fromFile(source));
+        } catch (SdkException e) {
+            throw new IOException("Could not upload blob " + key, e);
+        }
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public Optional<BlobInfo> stat(String key) throws IOException {
+        try {
+            HeadObjectResponse head = s3.headObject(HeadObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(prefix + key)
+                    .build());
+            return Optional.of(new BlobInfo(head.contentLength(), head.lastModified().toEpochMilli()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("Could not read blob " + key, e);
+        } catch (SdkException e) {
+            throw new IOException("Could not read blob " + key, e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key, long offset, long length) throws IOException {
+        try {
+            return s3.getObject(GetObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(prefix + key)
+                    .range("bytes=" + offset + "-" + (offset + length - 1))
+                    .build());
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(key);
+        } catch (SdkException e) {
+            throw new IOException("Could not read blob " + key, e);
+        }
+    }
+
+    @Override
+    public List<String> list(String afterKey, int limit) throws IOException {
+        ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(prefix)
+                .maxKeys(limit);
+        if (afterKey != null) {
+            request.startAfter(prefix + afterKey);
+        }
+
+        try {
+            ListObjectsV2Response response = s3.listObjectsV2(request.build());
+            return response.contents().stream()
+                    .map(S3Object::key)
+                    .map(key -> key.substring(prefix.length()))
+                    .collect(Collectors.toList());
+        } catch (SdkException e) {
+            throw new IOException("Could not list blobs", e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3.deleteObject(DeleteObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(prefix + key)
+                    .build());
+        } catch (SdkException e) {
+            throw new IOException("Could not delete blob " + key, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        s3.close();
+    }
+}
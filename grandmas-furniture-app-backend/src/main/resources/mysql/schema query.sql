@@ -36,6 +36,8 @@ CREATE TABLE users (
     phone VARCHAR(255) NOT NULL,
     role ENUM('USER', 'ADMIN') DEFAULT 'USER',
     is_active BOOLEAN DEFAULT TRUE,
+    version BIGINT NOT NULL DEFAULT 0,
+    deleted_at DATETIME,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 ) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci;
@@ -48,6 +50,15 @@ CREATE TABLE attachments (
     file_path VARCHAR(500),
     content_type VARCHAR(100),
     extension VARCHAR(10),
+    status ENUM('PENDING', 'PROCESSING', 'READY', 'FAILED'),
+    width INT,
+    height INT,
+    thumbnail_path VARCHAR(500),
+    placeholder VARCHAR(64),
+    staged_path VARCHAR(500),
+    retry_count INT NOT NULL DEFAULT 0,
+    content_hash CHAR(64) UNIQUE,
+    reference_count INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 ) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci;
@@ -63,7 +74,9 @@ CREATE TABLE ads (
     price DECIMAL(10,2),
     is_available BOOLEAN DEFAULT TRUE,
     description TEXT,
-    attachment_id BIGINT UNIQUE,
+    attachment_id BIGINT,
+    version BIGINT NOT NULL DEFAULT 0,
+    deleted_at DATETIME,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     
@@ -73,6 +86,80 @@ CREATE TABLE ads (
     CONSTRAINT fk_ads_attachment FOREIGN KEY (attachment_id) REFERENCES attachments(id)
 ) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci;
 
+-- Ad gallery images, each row holds one reference on its attachment
+CREATE TABLE ad_images (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    ad_id BIGINT NOT NULL,
+    attachment_id BIGINT NOT NULL,
+    position INT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    CONSTRAINT fk_ad_images_ad FOREIGN KEY (ad_id) REFERENCES ads(id),
+    CONSTRAINT fk_ad_images_attachment FOREIGN KEY (attachment_id) REFERENCES attachments(id)
+) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci;
+
+-- ID sequences of ads, attachments and gallery images, handed out in blocks of 50 so inserts can be
+-- batched. Moved past existing rows on application startup.
+CREATE TABLE ads_seq (next_val BIGINT);
+INSERT INTO ads_seq VALUES (1);
+CREATE TABLE attachments_seq (next_val BIGINT);
+INSERT INTO attachments_seq VALUES (1);
+CREATE TABLE ad_images_seq (next_val BIGINT);
+INSERT INTO ad_images_seq VALUES (1);
+
+-- Progress of batched background maintenance jobs
+CREATE TABLE maintenance_checkpoints (
+    name VARCHAR(100) NOT NULL PRIMARY KEY,
+    last_key VARCHAR(255),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci;
+
+-- Unfinished resumable uploads; the bytes live in the staging directory
+CREATE TABLE upload_sessions (
+    id VARCHAR(36) NOT NULL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    filename VARCHAR(255),
+    upload_length BIGINT NOT NULL,
+    upload_offset BIGINT NOT NULL DEFAULT 0,
+    content_hash VARCHAR(64),
+    temp_path VARCHAR(500) NOT NULL,
+    expires_at DATETIME NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    INDEX idx_upload_sessions_expires_at (expires_at),
+    CONSTRAINT fk_upload_sessions_user FOREIGN KEY (user_id) REFERENCES users(id)
+) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci;
+
+-- Refresh tokens, stored as SHA-256 hashes and rotated on every use
+CREATE TABLE refresh_tokens (
+    id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    family_id VARCHAR(36) NOT NULL,
+    expires_at DATETIME NOT NULL,
+    used_at DATETIME,
+    revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    INDEX idx_refresh_tokens_family (family_id),
+    INDEX idx_refresh_tokens_expires_at (expires_at),
+    CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users(id)
+) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci;
+
+-- Access tokens revoked before their expiry, by jti
+CREATE TABLE revoked_tokens (
+    jti VARCHAR(36) NOT NULL PRIMARY KEY,
+    expires_at DATETIME NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+
+    INDEX idx_revoked_tokens_expires_at (expires_at)
+) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_ai_ci;
+
 -- Insert sample categories
 INSERT INTO categories (category) VALUES 
 ('Chairs'),
@@ -148,7 +235,11 @@ CREATE INDEX idx_ads_user ON ads(user_id);
 CREATE INDEX idx_ads_available ON ads(is_available);
 CREATE INDEX idx_ads_attachment ON ads(attachment_id);
 CREATE INDEX idx_users_username ON users(username);
+CREATE INDEX idx_users_deleted_at ON users(deleted_at);
 CREATE INDEX idx_users_email ON users(email);
+CREATE INDEX idx_attachments_status ON attachments(status, updated_at);
+CREATE INDEX idx_attachments_references ON attachments(reference_count, updated_at);
+CREATE INDEX idx_ad_images_ad ON ad_images(ad_id, position);
 
 -- Insert 20 users (2 admin, 18 regular users)
 -- Password: hashed version of Cosmote1@
@@ -283,4 +374,8 @@ INSERT INTO ads (title, category_id, city_id, user_id, `condition`, price, descr
 ('Loft Bed', 7, 3, 15, 'GOOD', 220.00, 'High loft bed with desk space below'),
 ('Hutch Sideboard', 8, 4, 16, 'EXCELLENT', 240.00, 'Sideboard with top hutch display'),
 ('Modular Wardrobe', 9, 5, 17, 'GOOD', 320.00, 'Expandable modular wardrobe system'),
-('Wall Bookcase', 10, 6, 18, 'EXCELLENT', 140.00, 'Wall-mounted floating bookcase');
\ No newline at end of file
+('Wall Bookcase', 10, 6, 18, 'EXCELLENT', 140.00, 'Wall-mounted floating bookcase');
+
+-- Upgrading an existing database to shared (content-addressable) attachments:
+-- images may now be referenced by several ads, so drop the one-to-one constraint.
+-- ALTER TABLE ads DROP INDEX attachment_id;
@@ -0,0 +1,159 @@
+package gr.aueb.cf.grandmasfurnitureapp;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Condition;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Role;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdInsertDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AuthenticationRequestDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.UserInsertDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Base of the end-to-end tests: the whole application on the embedded database of the
+ * {@code test} profile, called through MockMvc.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public abstract class AbstractIntegrationTest {
+
+    protected static final String PASSWORD = "Grandma1@";
+    protected static final String CATEGORY = "Furniture";
+    protected static final String CITY = "Athens";
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected ObjectMapper objectMapper;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    protected void register(String username) throws Exception {
+        register(username, Role.USER);
+    }
+
+    protected void register(String username, Role role) throws Exception {
+        UserInsertDTO dto = new UserInsertDTO(username, PASSWORD, "Test", "User",
+                username + "@example.com", "6900000000", role);
+        postJson("/api/auth/register", dto).andExpect(status().isCreated());
+    }
+
+    protected ResultActions login(String username) throws Exception {
+        return postJson("/api/auth/login", new AuthenticationRequestDTO(username, PASSWORD));
+    }
+
+    /**
+     * Logs in and returns the response body, failing unless the login succeeds.
+     */
+    protected JsonNode loginOk(String username) throws Exception {
+        return body(login(username).andExpect(status().isOk()));
+    }
+
+    /**
+     * Creates an ad without images as the user of the access token and returns it.
+     */
+    protected JsonNode createAd(String token, String title) throws Exception {
+        return createAd(token, title, null);
+    }
+
+    /**
+     * Creates an ad as the user of the access token, with the stored image of the hash if given.
+     */
+    protected JsonNode createAd(String token, String title, String imageHash) throws Exception {
+        return body(mockMvc.perform(multipart("/api/ads/save").file(adPart(title, imageHash))
+                        .header(HttpHeaders.AUTHORIZATION, bearer(token)))
+                .andExpect(status().isCreated()));
+    }
+
+    /**
+     * Creates an ad with an uploaded image as the user of the access token and returns its ID.
+     */
+    protected long createAdWithImage(String token, String title, byte[] image) throws Exception {
+        MockMultipartFile file = new MockMultipartFile("image", "image.png", MediaType.IMAGE_PNG_VALUE, image);
+        return body(mockMvc.perform(multipart("/api/ads/save").file(adPart(title, null)).file(file)
+                        .header(HttpHeaders.AUTHORIZATION, bearer(token)))
+                .andExpect(status().isCreated()))
+                .get("id").asLong();
+    }
+
+    /**
+     * The JSON part of an ad creation, in the seeded category and city.
+     */
+    protected MockMultipartFile adPart(String title, String imageHash) throws Exception {
+        seedStaticData();
+        AdInsertDTO dto = new AdInsertDTO(title, CATEGORY, CITY, Condition.GOOD, new BigDecimal("50.00"),
+                true, "Solid oak", imageHash);
+        return new MockMultipartFile("ad", "", MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsBytes(dto));
+    }
+
+    /**
+     * A small PNG of a random color, so its content hash is not shared with other tests.
+     */
+    protected static byte[] png() throws IOException {
+        BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(ThreadLocalRandom.current().nextInt(0x1000000)));
+        graphics.fillRect(0, 0, 64, 48);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    protected static String bearer(String token) {
+        return "Bearer " + token;
+    }
+
+    protected ResultActions postJson(String path, Object body) throws Exception {
+        return mockMvc.perform(post(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(body)));
+    }
+
+    protected JsonNode body(ResultActions result) throws Exception {
+        return objectMapper.readTree(result.andReturn().getResponse().getContentAsByteArray());
+    }
+
+    /**
+     * Inserts the category and city the test ads use, unless present.
+     */
+    protected void seedStaticData() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM categories WHERE category = ?", Integer.class,
+                CATEGORY) == 0) {
+            jdbcTemplate.update("INSERT INTO categories (category, created_at, updated_at) VALUES (?, ?, ?)",
+                    CATEGORY, now, now);
+        }
+        if (jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cities WHERE city_name = ?", Integer.class,
+                CITY) == 0) {
+            jdbcTemplate.update("INSERT INTO cities (city_name, created_at, updated_at) VALUES (?, ?, ?)",
+                    CITY, now, now);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package gr.aueb.cf.grandmasfurnitureapp.core;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppPreconditionFailedException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VersionETagsTest {
+
+    @Test
+    void tagChangesWithTheRepresentationAtTheSameVersion() {
+        String pending = VersionETags.of(3, "{\"imageStatus\":\"PENDING\"}".getBytes(StandardCharsets.UTF_8));
+        String ready = VersionETags.of(3, "{\"imageStatus\":\"READY\"}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(pending).startsWith("\"3-").endsWith("\"").isNotEqualTo(ready);
+    }
+
+    @Test
+    void ifMatchExpectsTheVersionOfEitherTagForm() throws Exception {
+        String tag = VersionETags.of(7, new byte[]{1, 2, 3});
+
+        assertThat(VersionETags.expectedVersion(tag, "Ad")).isEqualTo(7L);
+        assertThat(VersionETags.expectedVersion(VersionETags.of(7), "Ad")).isEqualTo(7L);
+        assertThat(VersionETags.expectedVersion("*", "Ad")).isNull();
+        assertThat(VersionETags.expectedVersion(null, "Ad")).isNull();
+    }
+
+    @Test
+    void ifMatchRejectsForeignTags() {
+        assertThatThrownBy(() -> VersionETags.expectedVersion("W/\"7\"", "Ad"))
+                .isInstanceOf(AppPreconditionFailedException.class);
+        assertThatThrownBy(() -> VersionETags.expectedVersion("\"abc\"", "Ad"))
+                .isInstanceOf(AppPreconditionFailedException.class);
+    }
+}
@@ -0,0 +1,204 @@
+package gr.aueb.cf.grandmasfurnitureapp.core.images;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.ImageFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Header parsing of every supported format, on crafted and on encoder-written files.
+ */
+class ImageHeaderReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsPngHeader() throws Exception {
+        assertHeader(ImageFormat.PNG, png(640, 480), 640, 480);
+    }
+
+    @Test
+    void rejectsBrokenPngHeaders() throws Exception {
+        byte[] png = png(640, 480);
+        assertThat(read(ImageFormat.PNG, Arrays.copyOf(png, 20))).isNull();
+
+        byte[] wrongChunk = png.clone();
+        wrongChunk[15] = 'X'; // "IHDX"
+        assertThat(read(ImageFormat.PNG, wrongChunk)).isNull();
+
+        assertThat(read(ImageFormat.PNG, png(0, 480))).isNull();
+        assertThat(read(ImageFormat.PNG, png(-1, 480))).isNull();
+    }
+
+    @Test
+    void readsGifHeader() throws Exception {
+        assertHeader(ImageFormat.GIF, gif(65535, 2), 65535, 2);
+    }
+
+    @Test
+    void rejectsBrokenGifHeaders() throws Exception {
+        assertThat(read(ImageFormat.GIF, Arrays.copyOf(gif(10, 10), 8))).isNull();
+        assertThat(read(ImageFormat.GIF, gif(10, 0))).isNull();
+    }
+
+    @Test
+    void readsWebpHeaders() throws Exception {
+        assertHeader(ImageFormat.WEBP, webpLossy(800, 600), 800, 600);
+        assertHeader(ImageFormat.WEBP, webpLossless(16383, 1), 16383, 1);
+        assertHeader(ImageFormat.WEBP, webpExtended(20000, 30000), 20000, 30000);
+    }
+
+    @Test
+    void rejectsBrokenWebpHeaders() throws Exception {
+        assertThat(read(ImageFormat.WEBP, Arrays.copyOf(webpLossy(800, 600), 25))).isNull();
+
+        byte[] unknownChunk = webpLossy(800, 600);
+        unknownChunk[12] = 'A';
+        assertThat(read(ImageFormat.WEBP, unknownChunk)).isNull();
+
+        assertThat(read(ImageFormat.WEBP, webpLossy(0, 600))).isNull();
+    }
+
+    @Test
+    void readsJpegHeaderBehindOtherSegments() throws Exception {
+        ByteBuffer jpeg = buffer(2 + 4 + 60000 + 2 + 19);
+        jpeg.putShort((short) 0xFFD8);
+        // Large APP1 segment, skipped by seeking
+        jpeg.putShort((short) 0xFFE1).putShort((short) 60002).put(new byte[60000]);
+        jpeg.put((byte) 0xFF); // fill byte
+        jpeg.put((byte) 0xFF);
+        jpeg.put(sof(0xC2, 1200, 1600));
+        assertHeader(ImageFormat.JPEG, Arrays.copyOf(jpeg.array(), jpeg.position()), 1600, 1200);
+    }
+
+    @Test
+    void rejectsBrokenJpegHeaders() throws Exception {
+        byte[] jpeg = jpeg(sof(0xC0, 480, 640));
+        assertThat(read(ImageFormat.JPEG, Arrays.copyOf(jpeg, 26))).isNull();
+        assertThat(read(ImageFormat.JPEG, Arrays.copyOf(jpeg, 5))).isNull();
+
+        // Not a marker where a segment should start
+        assertThat(read(ImageFormat.JPEG, new byte[]{(byte) 0xFF, (byte) 0xD8, 0x12, 0x34, 0, 0})).isNull();
+        // Scan data before any frame header
+        assertThat(read(ImageFormat.JPEG, jpeg(new byte[]{(byte) 0xFF, (byte) 0xDA, 0, 2}))).isNull();
+        // Segment length below its own two bytes
+        assertThat(read(ImageFormat.JPEG, jpeg(new byte[]{(byte) 0xFF, (byte) 0xE0, 0, 1}))).isNull();
+        // DHT shares the SOF range but is not a frame header
+        assertThat(read(ImageFormat.JPEG, jpeg(sof(0xC4, 480, 640)))).isNull();
+    }
+
+    @Test
+    void givesUpOnEndlessJpegSegments() throws Exception {
+        ByteBuffer jpeg = buffer(2 + 2000 * 4);
+        jpeg.putShort((short) 0xFFD8);
+        for (int i = 0; i < 2000; i++) {
+            jpeg.putShort((short) 0xFFE0).putShort((short) 2);
+        }
+        assertThat(read(ImageFormat.JPEG, jpeg.array())).isNull();
+    }
+
+    @Test
+    void agreesWithEncoderWrittenFiles() throws Exception {
+        for (String type : new String[]{"png", "jpg", "gif"}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(new BufferedImage(37, 21, BufferedImage.TYPE_INT_RGB), type, out);
+            byte[] bytes = out.toByteArray();
+
+            ImageFormat format = ImageFormat.sniff(bytes, bytes.length);
+            assertThat(format).isNotNull();
+            assertHeader(format, bytes, 37, 21);
+        }
+    }
+
+    private void assertHeader(ImageFormat format, byte[] content, int width, int height) throws Exception {
+        ImageHeader header = read(format, content);
+        assertThat(header).isNotNull();
+        assertThat(header.getFormat()).isEqualTo(format);
+        assertThat(header.getWidth()).isEqualTo(width);
+        assertThat(header.getHeight()).isEqualTo(height);
+    }
+
+    private ImageHeader read(ImageFormat format, byte[] content) throws Exception {
+        Path file = Files.createTempFile(tempDir, "header", "." + format.getExtension());
+        Files.write(file, content);
+        return ImageHeaderReader.read(file, format);
+    }
+
+    static byte[] png(int width, int height) {
+        ByteBuffer png = buffer(33);
+        png.put(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A});
+        png.putInt(13).put("IHDR".getBytes(StandardCharsets.US_ASCII)).putInt(width).putInt(height);
+        png.put(new byte[]{8, 2, 0, 0, 0}).putInt(0);
+        return png.array();
+    }
+
+    static byte[] gif(int width, int height) {
+        ByteBuffer gif = buffer(13).order(ByteOrder.LITTLE_ENDIAN);
+        gif.put("GIF89a".getBytes(StandardCharsets.US_ASCII)).putShort((short) width).putShort((short) height);
+        return gif.array();
+    }
+
+    private static byte[] webpLossy(int width, int height) {
+        ByteBuffer chunk = buffer(10).order(ByteOrder.LITTLE_ENDIAN);
+        chunk.put(new byte[]{0, 0, 0, (byte) 0x9D, 0x01, 0x2A}).putShort((short) width).putShort((short) height);
+        return webp("VP8 ", chunk.array());
+    }
+
+    private static byte[] webpLossless(int width, int height) {
+        ByteBuffer chunk = buffer(10).order(ByteOrder.LITTLE_ENDIAN);
+        chunk.put((byte) 0x2F).putInt((width - 1) | (height - 1) << 14);
+        return webp("VP8L", chunk.array());
+    }
+
+    private static byte[] webpExtended(int width, int height) {
+        ByteBuffer chunk = buffer(10).order(ByteOrder.LITTLE_ENDIAN);
+        chunk.putInt(0);
+        chunk.put(uint24(width - 1)).put(uint24(height - 1));
+        return webp("VP8X", chunk.array());
+    }
+
+    private static byte[] webp(String chunkType, byte[] data) {
+        ByteBuffer webp = buffer(20 + data.length).order(ByteOrder.LITTLE_ENDIAN);
+        webp.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(12 + data.length)
+                .put("WEBP".getBytes(StandardCharsets.US_ASCII))
+                .put(chunkType.getBytes(StandardCharsets.US_ASCII)).putInt(data.length).put(data);
+        return webp.array();
+    }
+
+    private static byte[] uint24(int value) {
+        return new byte[]{(byte) value, (byte) (value >> 8), (byte) (value >> 16)};
+    }
+
+    static byte[] jpeg(byte[] segments) {
+        ByteBuffer jpeg = buffer(2 + 18 + segments.length);
+        jpeg.putShort((short) 0xFFD8);
+        // JFIF APP0 segment in front, as written by most encoders
+        jpeg.putShort((short) 0xFFE0).putShort((short) 16).put("JFIF".getBytes(StandardCharsets.US_ASCII))
+                .put(new byte[10]);
+        jpeg.put(segments);
+        return jpeg.array();
+    }
+
+    static byte[] sof(int type, int height, int width) {
+        ByteBuffer sof = buffer(19);
+        sof.put((byte) 0xFF).put((byte) type).putShort((short) 17).put((byte) 8)
+                .putShort((short) height).putShort((short) width).put((byte) 3).put(new byte[9]);
+        return sof.array();
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size);
+    }
+}
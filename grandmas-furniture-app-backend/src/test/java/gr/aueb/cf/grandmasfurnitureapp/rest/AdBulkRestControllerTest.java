@@ -0,0 +1,106 @@
+package gr.aueb.cf.grandmasfurnitureapp.rest;
+
+import gr.aueb.cf.grandmasfurnitureapp.AbstractIntegrationTest;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdBulkAvailabilityDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdBulkDeleteDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bulk availability changes and deletes through /api/ads/bulk.
+ */
+class AdBulkRestControllerTest extends AbstractIntegrationTest {
+
+    private static final long MISSING_AD_ID = 999_999L;
+
+    @Test
+    void availabilityIsOnlyChangedOnOwnAds() throws Exception {
+        register("bulk-seller");
+        register("bulk-neighbour");
+        String token = loginOk("bulk-seller").get("token").asText();
+        String otherToken = loginOk("bulk-neighbour").get("token").asText();
+        long first = createAd(token, "Oak bench").get("id").asLong();
+        long second = createAd(token, "Oak stool").get("id").asLong();
+        long foreign = createAd(otherToken, "Beech stool").get("id").asLong();
+
+        bulk(token, "/api/ads/bulk/availability",
+                new AdBulkAvailabilityDTO(List.of(first, second, foreign, MISSING_AD_ID, first), false))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(4))
+                .andExpect(jsonPath("$.affected").value(2))
+                .andExpect(jsonPath("$.skippedIds.length()").value(2))
+                .andExpect(jsonPath("$.skippedIds[?(@ == %d)]", foreign).exists())
+                .andExpect(jsonPath("$.skippedIds[?(@ == %d)]", MISSING_AD_ID).exists());
+
+        assertThat(isAvailable(first)).isFalse();
+        assertThat(isAvailable(second)).isFalse();
+        assertThat(isAvailable(foreign)).isTrue();
+    }
+
+    @Test
+    void deleteReleasesTheImageReferencesOfOwnAds() throws Exception {
+        register("bulk-mover");
+        register("bulk-keeper");
+        String token = loginOk("bulk-mover").get("token").asText();
+        String otherToken = loginOk("bulk-keeper").get("token").asText();
+
+        // The same image on an own and a foreign ad is one attachment
+        byte[] shared = png();
+        long withShared = createAdWithImage(token, "Pine shelf", shared);
+        long withOwn = createAdWithImage(token, "Pine desk", png());
+        long foreign = createAdWithImage(otherToken, "Pine wardrobe", shared);
+        long sharedImage = attachmentOf(withShared);
+        long ownImage = attachmentOf(withOwn);
+        assertThat(attachmentOf(foreign)).isEqualTo(sharedImage);
+        // Cover and gallery entry of each ad
+        assertThat(referenceCount(sharedImage)).isEqualTo(4);
+        assertThat(referenceCount(ownImage)).isEqualTo(2);
+
+        bulk(token, "/api/ads/bulk/delete", new AdBulkDeleteDTO(List.of(withShared, withOwn, foreign)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.requested").value(3))
+                .andExpect(jsonPath("$.affected").value(2))
+                .andExpect(jsonPath("$.skippedIds[0]").value(foreign));
+
+        assertThat(adExists(withShared)).isFalse();
+        assertThat(adExists(withOwn)).isFalse();
+        assertThat(adExists(foreign)).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ad_images WHERE ad_id IN (?, ?)",
+                Integer.class, withShared, withOwn)).isZero();
+        assertThat(referenceCount(sharedImage)).isEqualTo(2);
+        assertThat(referenceCount(ownImage)).isZero();
+    }
+
+    private ResultActions bulk(String token, String path, Object dto) throws Exception {
+        return mockMvc.perform(post(path)
+                .header(HttpHeaders.AUTHORIZATION, bearer(token))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(dto)));
+    }
+
+    private boolean isAvailable(long adId) {
+        return jdbcTemplate.queryForObject("SELECT is_available FROM ads WHERE id = ?", Boolean.class, adId);
+    }
+
+    private boolean adExists(long adId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ads WHERE id = ?", Integer.class, adId) > 0;
+    }
+
+    private long attachmentOf(long adId) {
+        return jdbcTemplate.queryForObject("SELECT attachment_id FROM ads WHERE id = ?", Long.class, adId);
+    }
+
+    private int referenceCount(long attachmentId) {
+        return jdbcTemplate.queryForObject("SELECT reference_count FROM attachments WHERE id = ?", Integer.class,
+                attachmentId);
+    }
+}
@@ -0,0 +1,62 @@
+package gr.aueb.cf.grandmasfurnitureapp.rest;
+
+import gr.aueb.cf.grandmasfurnitureapp.AbstractIntegrationTest;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Partial updates through /api/ads/{id}.
+ */
+class AdRestControllerTest extends AbstractIntegrationTest {
+
+    private static final String PRICE_PATCH = "{\"price\": 80.00}";
+
+    @Test
+    void ownerCanPatchTheirAd() throws Exception {
+        register("patch-owner");
+        String token = loginOk("patch-owner").get("token").asText();
+        long adId = createAd(token, "Oak dresser").get("id").asLong();
+
+        patchAd(token, adId).andExpect(status().isOk()).andExpect(jsonPath("$.price").value(80.00));
+    }
+
+    @Test
+    void otherUserCannotPatchTheAd() throws Exception {
+        register("patch-victim");
+        register("patch-intruder");
+        String ownerToken = loginOk("patch-victim").get("token").asText();
+        String intruderToken = loginOk("patch-intruder").get("token").asText();
+        long adId = createAd(ownerToken, "Pine table").get("id").asLong();
+
+        patchAd(intruderToken, adId).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/ads/{id}", adId).header(HttpHeaders.AUTHORIZATION, bearer(ownerToken)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price").value(50.00));
+    }
+
+    @Test
+    void adminCanPatchAnyAd() throws Exception {
+        register("patch-seller");
+        register("patch-admin", Role.ADMIN);
+        String ownerToken = loginOk("patch-seller").get("token").asText();
+        String adminToken = loginOk("patch-admin").get("token").asText();
+        long adId = createAd(ownerToken, "Walnut chair").get("id").asLong();
+
+        patchAd(adminToken, adId).andExpect(status().isOk());
+    }
+
+    private ResultActions patchAd(String token, long adId) throws Exception {
+        return mockMvc.perform(patch("/api/ads/{id}", adId)
+                .header(HttpHeaders.AUTHORIZATION, bearer(token))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(PRICE_PATCH));
+    }
+}
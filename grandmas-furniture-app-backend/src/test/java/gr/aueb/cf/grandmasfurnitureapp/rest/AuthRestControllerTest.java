@@ -0,0 +1,100 @@
+package gr.aueb.cf.grandmasfurnitureapp.rest;
+
+import gr.aueb.cf.grandmasfurnitureapp.AbstractIntegrationTest;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.Role;
+import gr.aueb.cf.grandmasfurnitureapp.dto.RefreshTokenRequestDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.UserInsertDTO;
+import gr.aueb.cf.grandmasfurnitureapp.security.TokenRevocationService;
+import gr.aueb.cf.grandmasfurnitureapp.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Registration, login and refresh through /api/auth.
+ */
+class AuthRestControllerTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Test
+    void namesOfDeletedUsersStayTakenUntilPurged() throws Exception {
+        register("deleted-user");
+        userService.deleteUser("deleted-user");
+
+        UserInsertDTO sameUsername = new UserInsertDTO("deleted-user", PASSWORD, "Test", "User",
+                "other@example.com", "6900000000", Role.USER);
+        postJson("/api/auth/register", sameUsername).andExpect(status().isConflict());
+
+        UserInsertDTO sameEmail = new UserInsertDTO("other-user", PASSWORD, "Test", "User",
+                "deleted-user@example.com", "6900000000", Role.USER);
+        postJson("/api/auth/register", sameEmail).andExpect(status().isConflict());
+    }
+
+    @Test
+    void refreshIssuesNewTokensForTheUser() throws Exception {
+        register("refresh-user");
+        String refreshToken = loginOk("refresh-user").get("refreshToken").asText();
+
+        String next = body(postJson("/api/auth/refresh", new RefreshTokenRequestDTO(refreshToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty())
+                .andExpect(jsonPath("$.role").value("USER"))
+                .andExpect(jsonPath("$.firstname").value("Test")))
+                .get("refreshToken").asText();
+
+        assertThat(next).isNotBlank().isNotEqualTo(refreshToken);
+        postJson("/api/auth/refresh", new RefreshTokenRequestDTO(next)).andExpect(status().isOk());
+    }
+
+    @Test
+    void reusedRefreshTokenRevokesItsFamily() throws Exception {
+        register("reuse-user");
+        String refreshToken = loginOk("reuse-user").get("refreshToken").asText();
+        String next = body(postJson("/api/auth/refresh", new RefreshTokenRequestDTO(refreshToken))
+                .andExpect(status().isOk()))
+                .get("refreshToken").asText();
+
+        postJson("/api/auth/refresh", new RefreshTokenRequestDTO(refreshToken)).andExpect(status().isUnauthorized());
+        postJson("/api/auth/refresh", new RefreshTokenRequestDTO(next)).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void loggedOutAccessTokenIsRejected() throws Exception {
+        register("logout-user");
+        String token = loginOk("logout-user").get("token").asText();
+        String otherSession = loginOk("logout-user").get("token").asText();
+        String refreshToken = loginOk("logout-user").get("refreshToken").asText();
+        myAds(token).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(token))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(new RefreshTokenRequestDTO(refreshToken))))
+                .andExpect(status().isNoContent());
+
+        myAds(token).andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.code").value("revoked token"));
+        myAds(otherSession).andExpect(status().isOk());
+
+        // Still revoked once the denylist is reloaded from the table
+        tokenRevocationService.rebuild();
+        myAds(token).andExpect(status().isUnauthorized());
+    }
+
+    private ResultActions myAds(String token) throws Exception {
+        return mockMvc.perform(get("/api/ads/my-ads").header(HttpHeaders.AUTHORIZATION, bearer(token)));
+    }
+}
@@ -0,0 +1,143 @@
+package gr.aueb.cf.grandmasfurnitureapp.rest;
+
+import gr.aueb.cf.grandmasfurnitureapp.service.FileService;
+import gr.aueb.cf.grandmasfurnitureapp.service.ImageTranscodeService;
+import gr.aueb.cf.grandmasfurnitureapp.storage.BlobStorage;
+import gr.aueb.cf.grandmasfurnitureapp.storage.InMemoryBlobStorage;
+import gr.aueb.cf.grandmasfurnitureapp.storage.S3BlobStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Serving blobs from backends without a local file: the in-memory backend and S3,
+ * the latter against a mocked client.
+ */
+class ImageServingHandlerTest {
+
+    private static final String KEY = String.format("%064x", 7) + ".jpg";
+    private static final byte[] CONTENT = new byte[1024];
+
+    static {
+        for (int i = 0; i < CONTENT.length; i++) {
+            CONTENT[i] = (byte) i;
+        }
+    }
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void servesBlobFromMemoryBackend() throws Exception {
+        ImageServingHandler handler = handlerFor(memoryStorage());
+
+        MockHttpServletResponse response = get(handler, null);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).isEqualTo("image/jpeg");
+        assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).contains("immutable");
+        assertThat(response.getContentAsByteArray()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void servesRangeFromMemoryBackend() throws Exception {
+        ImageServingHandler handler = handlerFor(memoryStorage());
+
+        MockHttpServletResponse response = get(handler, "bytes=100-199");
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/1024");
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(CONTENT, 100, 200));
+    }
+
+    @Test
+    void answersNotFoundForMissingBlob() throws Exception {
+        ImageServingHandler handler = handlerFor(new InMemoryBlobStorage());
+
+        assertThat(get(handler, null).getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void servesBlobFromS3Backend() throws Exception {
+        S3Client s3 = mock(S3Client.class);
+        when(s3.headObject(any(HeadObjectRequest.class))).thenReturn(HeadObjectResponse.builder()
+                .contentLength((long) CONTENT.length)
+                .lastModified(Instant.parse("2025-01-01T00:00:00Z"))
+                .build());
+        when(s3.getObject(any(GetObjectRequest.class))).thenAnswer(invocation -> {
+            GetObjectRequest request = invocation.getArgument(0);
+            String[] range = request.range().substring("bytes=".length()).split("-");
+            byte[] body = Arrays.copyOfRange(CONTENT, Integer.parseInt(range[0]), Integer.parseInt(range[1]) + 1);
+            return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                    AbortableInputStream.create(new ByteArrayInputStream(body)));
+        });
+        ImageServingHandler handler = handlerFor(new S3BlobStorage(s3, "images", "blobs/"));
+
+        MockHttpServletResponse full = get(handler, null);
+        MockHttpServletResponse partial = get(handler, "bytes=0-9");
+
+        assertThat(full.getStatus()).isEqualTo(200);
+        assertThat(full.getContentType()).isEqualTo("image/jpeg");
+        assertThat(full.getContentAsByteArray()).isEqualTo(CONTENT);
+        assertThat(partial.getStatus()).isEqualTo(206);
+        assertThat(partial.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(CONTENT, 0, 10));
+
+        ArgumentCaptor<GetObjectRequest> requests = ArgumentCaptor.forClass(GetObjectRequest.class);
+        verify(s3, times(2)).getObject(requests.capture());
+        assertThat(requests.getAllValues()).extracting(GetObjectRequest::key).containsOnly("blobs/" + KEY);
+        assertThat(requests.getAllValues().get(1).range()).isEqualTo("bytes=0-9");
+    }
+
+    private BlobStorage memoryStorage() throws Exception {
+        InMemoryBlobStorage storage = new InMemoryBlobStorage();
+        Path source = Files.write(tempDir.resolve("upload.jpg"), CONTENT);
+        storage.put(KEY, source);
+        return storage;
+    }
+
+    private static ImageServingHandler handlerFor(BlobStorage storage) {
+        ImageServingHandler handler = new ImageServingHandler(
+                new FileService(storage, new SimpleMeterRegistry()), storage, new ImageTranscodeService(storage));
+        ReflectionTestUtils.setField(handler, "metadataTtlMs", 10_000L);
+        ReflectionTestUtils.setField(handler, "metadataCacheSize", 100);
+        ReflectionTestUtils.setField(handler, "sendfileThreshold", 49_152L);
+        return handler;
+    }
+
+    private static MockHttpServletResponse get(ImageServingHandler handler, String range) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/uploads/blobs/" + KEY);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "blobs/" + KEY);
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        handler.handleRequest(request, response);
+        return response;
+    }
+}
@@ -0,0 +1,83 @@
+package gr.aueb.cf.grandmasfurnitureapp.rest;
+
+import gr.aueb.cf.grandmasfurnitureapp.AbstractIntegrationTest;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AuthenticationRequestDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Rate limits as clients see them. Each test logs in from its own address, so the
+ * buckets of the shared limiter don't carry over between tests.
+ */
+@TestPropertySource(properties = {
+        "app.rate-limit.enabled=true",
+        "app.rate-limit.routes[0].name=login",
+        "app.rate-limit.routes[0].method=POST",
+        "app.rate-limit.routes[0].path=/api/auth/login",
+        "app.rate-limit.routes[0].key=IP",
+        "app.rate-limit.routes[0].capacity=6",
+        "app.rate-limit.routes[0].refill-tokens=6",
+        "app.rate-limit.routes[0].refill-period=PT1H",
+        "app.rate-limit.login-username.capacity=2",
+        "app.rate-limit.login-username.refill-tokens=2",
+        "app.rate-limit.login-username.refill-period=PT1H"
+})
+class RateLimitTest extends AbstractIntegrationTest {
+
+    @Test
+    void loginFloodGets429WithRetryAfter() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            login("nobody-" + i, "wrong", "10.0.1.1").andExpect(status().isUnauthorized());
+        }
+
+        // Six per hour: one token every 10 minutes
+        login("nobody-6", "wrong", "10.0.1.1")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "600"));
+    }
+
+    @Test
+    void onlyFailedLoginsAreCharged() throws Exception {
+        register("limited-user");
+
+        // Successful logins leave the failure bucket alone
+        for (int i = 0; i < 3; i++) {
+            login("limited-user", PASSWORD, "10.0.2.1").andExpect(status().isOk());
+        }
+        login("limited-user", "wrong", "10.0.2.1").andExpect(status().isUnauthorized());
+        login("limited-user", PASSWORD, "10.0.2.1").andExpect(status().isOk());
+    }
+
+    @Test
+    void failedLoginsLockTheUsernameForThatAddressOnly() throws Exception {
+        register("guessed-user");
+
+        login("guessed-user", "wrong", "10.0.3.1").andExpect(status().isUnauthorized());
+        login("Guessed-User", "wrong", "10.0.3.1").andExpect(status().isUnauthorized());
+
+        // Even the right password waits; two per hour is one token every 30 minutes
+        login("guessed-user", PASSWORD, "10.0.3.1")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1800"));
+
+        // The owner, from their own address, is not locked out
+        login("guessed-user", PASSWORD, "10.0.3.2").andExpect(status().isOk());
+    }
+
+    private ResultActions login(String username, String password, String remoteAddr) throws Exception {
+        return mockMvc.perform(post("/api/auth/login")
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddr);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsBytes(new AuthenticationRequestDTO(username, password))));
+    }
+}
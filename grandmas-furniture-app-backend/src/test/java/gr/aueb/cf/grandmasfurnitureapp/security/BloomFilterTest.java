@@ -0,0 +1,58 @@
+package gr.aueb.cf.grandmasfurnitureapp.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exact negatives and the false positive rate of the Bloom filter.
+ */
+class BloomFilterTest {
+
+    private static final int CAPACITY = 20_000;
+    private static final int PROBES = 200_000;
+
+    @Test
+    void addedKeysAreNeverReportedAbsent() {
+        BloomFilter filter = new BloomFilter(CAPACITY, 0.01);
+        String[] keys = new String[CAPACITY];
+        for (int i = 0; i < CAPACITY; i++) {
+            keys[i] = UUID.randomUUID().toString();
+            filter.add(keys[i]);
+        }
+
+        for (String key : keys) {
+            assertThat(filter.mightContain(key)).isTrue();
+        }
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(0, 0.01);
+        assertThat(filter.mightContain("")).isFalse();
+        assertThat(filter.mightContain(UUID.randomUUID().toString())).isFalse();
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredRateAtCapacity() {
+        assertThat(falsePositiveRate(0.01)).isBetween(0.005, 0.015);
+        assertThat(falsePositiveRate(0.001)).isBetween(0.0003, 0.002);
+    }
+
+    private static double falsePositiveRate(double configured) {
+        BloomFilter filter = new BloomFilter(CAPACITY, configured);
+        for (int i = 0; i < CAPACITY; i++) {
+            filter.add(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        return (double) falsePositives / PROBES;
+    }
+}
@@ -0,0 +1,130 @@
+package gr.aueb.cf.grandmasfurnitureapp.security;
+
+import gr.aueb.cf.grandmasfurnitureapp.config.RateLimitProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Route matching and the 429 response of the rate limit filter.
+ */
+class RateLimitFilterTest {
+
+    private RateLimitProperties properties;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setRoutes(List.of(
+                route("login", "POST", "/api/auth/login", RateLimitProperties.KeyType.IP),
+                route("uploads", null, "/api/uploads/**", RateLimitProperties.KeyType.USER)));
+        filter = new RateLimitFilter(properties, new RateLimiter(properties));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void rejectsRequestsOverTheLimitWithRetryAfter() throws Exception {
+        assertPassed(call("POST", "/api/auth/login", "10.0.0.1"));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("POST", "/api/auth/login", "10.0.0.1"), response, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(429);
+        // One token per hour
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("3600");
+        assertThat(response.getContentAsString()).contains("tooManyRequests");
+
+        // Another client has its own bucket
+        assertPassed(call("POST", "/api/auth/login", "10.0.0.2"));
+    }
+
+    @Test
+    void matchesRoutesByMethodAndPath() throws Exception {
+        call("POST", "/api/auth/login", "10.0.0.1");
+
+        // Other method, other path: not limited
+        for (int i = 0; i < 3; i++) {
+            assertPassed(call("GET", "/api/auth/login", "10.0.0.1"));
+            assertPassed(call("POST", "/api/auth/login/other", "10.0.0.1"));
+            assertPassed(call("POST", "/api/auth/register", "10.0.0.1"));
+        }
+
+        // A route without a method limits any method, its pattern any path below it
+        assertPassed(call("PUT", "/api/uploads/abc/chunks/0", "10.0.0.1"));
+        assertThat(call("GET", "/api/uploads/def", "10.0.0.1").getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void keysUserRoutesByUsername() throws Exception {
+        authenticate("alice");
+        assertPassed(call("PUT", "/api/uploads/abc", "10.0.0.1"));
+        // Same user from another address shares the bucket
+        assertThat(call("PUT", "/api/uploads/abc", "10.0.0.2").getStatus()).isEqualTo(429);
+
+        authenticate("bob");
+        assertPassed(call("PUT", "/api/uploads/abc", "10.0.0.1"));
+    }
+
+    @Test
+    void passesEverythingWhenDisabled() throws Exception {
+        properties.setEnabled(false);
+        for (int i = 0; i < 3; i++) {
+            assertPassed(call("POST", "/api/auth/login", "10.0.0.1"));
+        }
+    }
+
+    private MockHttpServletResponse call(String method, String path, String remoteAddr) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, path, remoteAddr), response, new MockFilterChain());
+        return response;
+    }
+
+    private static void assertPassed(MockHttpServletResponse response) {
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isNull();
+    }
+
+    private static MockHttpServletRequest request(String method, String path, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                username, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+
+    private static RateLimitProperties.Route route(String name, String method, String path,
+                                                   RateLimitProperties.KeyType key) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setName(name);
+        route.setMethod(method);
+        route.setPath(path);
+        route.setKey(key);
+        route.setCapacity(1);
+        route.setRefillTokens(1);
+        route.setRefillPeriod(Duration.ofHours(1));
+        return route;
+    }
+}
@@ -0,0 +1,116 @@
+package gr.aueb.cf.grandmasfurnitureapp.security;
+
+import gr.aueb.cf.grandmasfurnitureapp.config.RateLimitProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token buckets of the rate limiter, on real time with short refill periods.
+ */
+class RateLimiterTest {
+
+    private static final RateLimitProperties.Limit HOURLY = limit(2, 2, Duration.ofHours(1));
+
+    private RateLimitProperties properties;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setStripes(4);
+        rateLimiter = new RateLimiter(properties);
+    }
+
+    @Test
+    void allowsTheCapacityThenRejects() {
+        assertThat(rateLimiter.tryAcquire("key", HOURLY)).isZero();
+        assertThat(rateLimiter.tryAcquire("key", HOURLY)).isZero();
+        assertThat(rateLimiter.tryAcquire("key", HOURLY)).isPositive();
+
+        // Buckets are per key
+        assertThat(rateLimiter.tryAcquire("other", HOURLY)).isZero();
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        // One token every 50ms
+        RateLimitProperties.Limit fast = limit(2, 2, Duration.ofMillis(100));
+        rateLimiter.tryAcquire("key", fast);
+        rateLimiter.tryAcquire("key", fast);
+        assertThat(rateLimiter.tryAcquire("key", fast)).isPositive();
+
+        Thread.sleep(80);
+
+        assertThat(rateLimiter.tryAcquire("key", fast)).isZero();
+    }
+
+    @Test
+    void retryAfterIsTheWaitForTheNextToken() {
+        // One token every 30 minutes
+        rateLimiter.tryAcquire("hourly", HOURLY);
+        rateLimiter.tryAcquire("hourly", HOURLY);
+        assertThat(rateLimiter.tryAcquire("hourly", HOURLY)).isEqualTo(1800);
+        assertThat(rateLimiter.retryAfter("hourly")).isEqualTo(1800);
+
+        // Less than a second away still asks for one
+        RateLimitProperties.Limit fast = limit(1, 1, Duration.ofMillis(200));
+        rateLimiter.tryAcquire("fast", fast);
+        assertThat(rateLimiter.tryAcquire("fast", fast)).isEqualTo(1);
+    }
+
+    @Test
+    void retryAfterDoesNotTakeAToken() {
+        assertThat(rateLimiter.retryAfter("key")).isZero();
+
+        rateLimiter.tryAcquire("key", HOURLY);
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.retryAfter("key")).isZero();
+        }
+
+        assertThat(rateLimiter.tryAcquire("key", HOURLY)).isZero();
+        assertThat(rateLimiter.retryAfter("key")).isPositive();
+    }
+
+    @Test
+    void cleanupDropsOnlyFullBuckets() throws InterruptedException {
+        properties.setMaxBuckets(2);
+        RateLimitProperties.Limit fast = limit(1, 1, Duration.ofMillis(20));
+        rateLimiter.tryAcquire("fast", fast);
+        rateLimiter.tryAcquire("hourly", HOURLY);
+        rateLimiter.tryAcquire("hourly", HOURLY);
+
+        Thread.sleep(60);
+        rateLimiter.cleanup();
+
+        // The exhausted bucket is kept, the refilled one made room for a new key
+        assertThat(rateLimiter.retryAfter("hourly")).isPositive();
+        assertThat(rateLimiter.tryAcquire("new", limit(1, 1, Duration.ofHours(1)))).isZero();
+        assertThat(rateLimiter.tryAcquire("new", limit(1, 1, Duration.ofHours(1)))).isPositive();
+    }
+
+    @Test
+    void failsOpenOnceMaxBucketsIsReached() {
+        properties.setMaxBuckets(2);
+        for (String key : new String[]{"first", "second"}) {
+            rateLimiter.tryAcquire(key, HOURLY);
+            rateLimiter.tryAcquire(key, HOURLY);
+        }
+
+        // Nothing to clean up, so the new key is not tracked and never limited
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.tryAcquire("third", HOURLY)).isZero();
+        }
+        assertThat(rateLimiter.retryAfter("third")).isZero();
+
+        // Tracked keys are still limited
+        assertThat(rateLimiter.tryAcquire("first", HOURLY)).isPositive();
+    }
+
+    static RateLimitProperties.Limit limit(int capacity, int refillTokens, Duration refillPeriod) {
+        return new RateLimitProperties.Limit(capacity, refillTokens, refillPeriod);
+    }
+}
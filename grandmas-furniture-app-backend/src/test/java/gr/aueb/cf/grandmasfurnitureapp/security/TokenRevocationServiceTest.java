@@ -0,0 +1,110 @@
+package gr.aueb.cf.grandmasfurnitureapp.security;
+
+import gr.aueb.cf.grandmasfurnitureapp.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The in-memory denylist and its rebuild from the table.
+ */
+class TokenRevocationServiceTest {
+
+    private RevokedTokenRepository revokedTokenRepository;
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        revokedTokenRepository = mock(RevokedTokenRepository.class);
+        when(revokedTokenRepository.findActiveJtis(any())).thenReturn(List.of());
+        tokenRevocationService = new TokenRevocationService(revokedTokenRepository);
+        ReflectionTestUtils.setField(tokenRevocationService, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(tokenRevocationService, "minCapacity", 16);
+        tokenRevocationService.init();
+    }
+
+    @Test
+    void revokedTokenIsReported() {
+        tokenRevocationService.revoke("revoked", inAnHour());
+
+        assertThat(tokenRevocationService.isRevoked("revoked")).isTrue();
+        assertThat(tokenRevocationService.isRevoked("other")).isFalse();
+        assertThat(tokenRevocationService.isRevoked(null)).isFalse();
+    }
+
+    @Test
+    void expiredTokenIsNotStored() {
+        tokenRevocationService.revoke("expired", LocalDateTime.now().minusSeconds(1));
+
+        assertThat(tokenRevocationService.isRevoked("expired")).isFalse();
+        verify(revokedTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rebuildLoadsTheActiveEntries() {
+        tokenRevocationService.revoke("gone-from-table", inAnHour());
+        when(revokedTokenRepository.findActiveJtis(any())).thenReturn(List.of("first", "second"));
+
+        tokenRevocationService.rebuild();
+
+        assertThat(tokenRevocationService.isRevoked("first")).isTrue();
+        assertThat(tokenRevocationService.isRevoked("second")).isTrue();
+        // Revoked before the rebuild read the table, so the table decides
+        assertThat(tokenRevocationService.isRevoked("gone-from-table")).isFalse();
+    }
+
+    @Test
+    void revocationDuringRebuildSurvivesTheSwap() {
+        when(revokedTokenRepository.findActiveJtis(any())).thenAnswer(invocation -> {
+            // Revoked after the table was read, before the new copy replaces the old one
+            tokenRevocationService.revoke("during-rebuild", inAnHour());
+            return List.of("before-rebuild");
+        });
+
+        tokenRevocationService.rebuild();
+
+        assertThat(tokenRevocationService.isRevoked("during-rebuild")).isTrue();
+        assertThat(tokenRevocationService.isRevoked("before-rebuild")).isTrue();
+    }
+
+    @Test
+    void failedRebuildKeepsThePreviousCopy() {
+        tokenRevocationService.revoke("revoked", inAnHour());
+        when(revokedTokenRepository.findActiveJtis(any())).thenThrow(new IllegalStateException("database down"));
+
+        tokenRevocationService.rebuild();
+
+        assertThat(tokenRevocationService.isRevoked("revoked")).isTrue();
+    }
+
+    @Test
+    void rebuildGrowsTheFilterBeyondTheMinimumCapacity() {
+        List<String> jtis = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            jtis.add("jti-" + i);
+        }
+        when(revokedTokenRepository.findActiveJtis(any())).thenReturn(jtis);
+
+        tokenRevocationService.rebuild();
+
+        for (String jti : jtis) {
+            assertThat(tokenRevocationService.isRevoked(jti)).isTrue();
+        }
+        assertThat(tokenRevocationService.isRevoked("jti-1000")).isFalse();
+    }
+
+    private static LocalDateTime inAnHour() {
+        return LocalDateTime.now().plusHours(1);
+    }
+}
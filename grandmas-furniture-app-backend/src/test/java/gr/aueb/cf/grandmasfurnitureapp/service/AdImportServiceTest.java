@@ -0,0 +1,195 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.AbstractIntegrationTest;
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.ImportFormat;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdImportErrorDTO;
+import gr.aueb.cf.grandmasfurnitureapp.dto.AdImportResultDTO;
+import gr.aueb.cf.grandmasfurnitureapp.model.User;
+import gr.aueb.cf.grandmasfurnitureapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Bulk import of ads from CSV and NDJSON.
+ */
+class AdImportServiceTest extends AbstractIntegrationTest {
+
+    private static final String CSV_HEADER = "title,categoryName,cityName,condition,price,isAvailable,description,imageHash\n";
+
+    // Passes validation, but does not fit the price column
+    private static final String PRICE_TOO_LARGE = "1" + "0".repeat(40);
+
+    @MockitoSpyBean
+    private AttachmentService attachmentService;
+
+    @Autowired
+    private AdImportService adImportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void importsCsvRows() throws Exception {
+        register("csv-importer");
+        String token = loginOk("csv-importer").get("token").asText();
+        seedStaticData();
+
+        mockMvc.perform(post("/api/ads/import")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(token))
+                        .contentType("text/csv")
+                        .content(CSV_HEADER
+                                + csvRow("Oak chest", "120.00", "")
+                                + csvRow("Elm chest", "95.50", "")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(2))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.createdIds.length()").value(2));
+
+        assertThat(jdbcTemplate.queryForList("SELECT a.title FROM ads a JOIN users u ON u.id = a.user_id "
+                + "WHERE u.username = ? ORDER BY a.id", String.class, "csv-importer"))
+                .containsExactly("Oak chest", "Elm chest");
+    }
+
+    @Test
+    void importsNdjsonRows() throws Exception {
+        User user = registerUser("ndjson-importer");
+        seedStaticData();
+
+        AdImportResultDTO result = importAds(user, ImportFormat.NDJSON, jsonRow("Ash table", "200.00") + "\n"
+                + "\n"
+                + jsonRow("Ash chair", "40.00") + "\n");
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isZero();
+        assertThat(titles(result.getCreatedIds())).containsExactly("Ash table", "Ash chair");
+    }
+
+    @Test
+    void rejectedRowsAreReportedAndTheRestImported() throws Exception {
+        User user = registerUser("sloppy-importer");
+        seedStaticData();
+
+        AdImportResultDTO result = importAds(user, ImportFormat.CSV, CSV_HEADER
+                + csvRow("Fir cabinet", "70.00", "")
+                + csvRow("F", "70.00", "")
+                + "Fir bed,Unknown,Athens,GOOD,70.00,true,Solid fir,\n"
+                + csvRow("Fir desk", "cheap", "")
+                + csvRow("Fir shelf", "70.00", "0".repeat(64))
+                + csvRow("Fir stool", "70.00", ""));
+
+        assertThat(result.getRows()).isEqualTo(6);
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getErrors().stream().map(AdImportErrorDTO::getRow).toList())
+                .containsExactly(2L, 3L, 4L, 5L);
+        assertThat(result.getErrors().stream().map(AdImportErrorDTO::getField).toList())
+                .containsExactly("title", "categoryName", "price", "imageHash");
+        assertThat(titles(result.getCreatedIds())).containsExactly("Fir cabinet", "Fir stool");
+    }
+
+    @Test
+    void imageReferencesOfABatchAreTakenInOneCall() throws Exception {
+        register("image-importer");
+        String token = loginOk("image-importer").get("token").asText();
+        long attachmentId = attachmentOf(createAdWithImage(token, "Original", png()));
+        String hash = contentHash(attachmentId);
+        User user = userRepository.findByUsername("image-importer").orElseThrow();
+        clearInvocations(attachmentService);
+
+        AdImportResultDTO result = importAds(user, ImportFormat.CSV, CSV_HEADER
+                + csvRow("Copy one", "10.00", hash)
+                + csvRow("Copy two", "10.00", hash)
+                + csvRow("Copy three", "10.00", hash));
+
+        assertThat(result.getImported()).isEqualTo(3);
+        verify(attachmentService, times(1)).acquireAll(any());
+        verify(attachmentService, never()).acquire(any());
+        // Cover and gallery entry of the original and of each copy
+        assertThat(referenceCount(attachmentId)).isEqualTo(8);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ad_images WHERE attachment_id = ?",
+                Integer.class, attachmentId)).isEqualTo(4);
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRow() throws Exception {
+        register("unlucky-importer");
+        String token = loginOk("unlucky-importer").get("token").asText();
+        long attachmentId = attachmentOf(createAdWithImage(token, "Original", png()));
+        String hash = contentHash(attachmentId);
+        User user = userRepository.findByUsername("unlucky-importer").orElseThrow();
+        clearInvocations(attachmentService);
+
+        AdImportResultDTO result = importAds(user, ImportFormat.CSV, CSV_HEADER
+                + csvRow("Good one", "10.00", hash)
+                + csvRow("Bad one", PRICE_TOO_LARGE, hash)
+                + csvRow("Good two", "10.00", hash));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getErrors()).hasSize(1);
+        assertThat(result.getErrors().get(0).getRow()).isEqualTo(2L);
+        assertThat(result.getErrors().get(0).getMessage()).isEqualTo("Could not be saved");
+        assertThat(titles(result.getCreatedIds())).containsExactly("Good one", "Good two");
+
+        // The batch, then each row on its own
+        verify(attachmentService, times(4)).acquireAll(any());
+        // References taken by the rolled back attempts are gone with them
+        assertThat(referenceCount(attachmentId)).isEqualTo(6);
+    }
+
+    private AdImportResultDTO importAds(User user, ImportFormat format, String body) throws Exception {
+        return adImportService.importAds(user, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private User registerUser(String username) throws Exception {
+        register(username);
+        return userRepository.findByUsername(username).orElseThrow();
+    }
+
+    private static String csvRow(String title, String price, String imageHash) {
+        return String.join(",", title, CATEGORY, CITY, "GOOD", price, "true", "Solid wood", imageHash) + "\n";
+    }
+
+    private static String jsonRow(String title, String price) {
+        return "{\"title\": \"" + title + "\", \"categoryName\": \"" + CATEGORY + "\", \"cityName\": \"" + CITY
+                + "\", \"condition\": \"GOOD\", \"price\": " + price + ", \"isAvailable\": true, "
+                + "\"description\": \"Solid wood\"}";
+    }
+
+    private List<String> titles(List<Long> adIds) {
+        return adIds.stream()
+                .map(id -> jdbcTemplate.queryForObject("SELECT title FROM ads WHERE id = ?", String.class, id))
+                .toList();
+    }
+
+    private long attachmentOf(long adId) {
+        return jdbcTemplate.queryForObject("SELECT attachment_id FROM ads WHERE id = ?", Long.class, adId);
+    }
+
+    private String contentHash(long attachmentId) {
+        return jdbcTemplate.queryForObject("SELECT content_hash FROM attachments WHERE id = ?", String.class,
+                attachmentId);
+    }
+
+    private int referenceCount(long attachmentId) {
+        return jdbcTemplate.queryForObject("SELECT reference_count FROM attachments WHERE id = ?", Integer.class,
+                attachmentId);
+    }
+}
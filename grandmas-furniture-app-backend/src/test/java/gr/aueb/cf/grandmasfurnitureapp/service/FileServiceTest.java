@@ -0,0 +1,146 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.core.enums.ImageFormat;
+import gr.aueb.cf.grandmasfurnitureapp.core.exceptions.AppObjectInvalidArgumentException;
+import gr.aueb.cf.grandmasfurnitureapp.storage.InMemoryBlobStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks applied to uploads before they are staged: format sniffing and the header limits
+ * that keep decompression bombs away from the image workers.
+ */
+class FileServiceTest {
+
+    private static final int MAX_DIMENSION = 12000;
+    private static final long MAX_PIXELS = 25_000_000L;
+
+    @TempDir
+    Path stagingDir;
+
+    private FileService fileService;
+
+    @BeforeEach
+    void setUp() {
+        fileService = new FileService(new InMemoryBlobStorage(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(fileService, "stagingDir", stagingDir.toString());
+        ReflectionTestUtils.setField(fileService, "maxImageBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(fileService, "maxImageDimension", MAX_DIMENSION);
+        ReflectionTestUtils.setField(fileService, "maxImagePixels", MAX_PIXELS);
+        fileService.registerMeters();
+    }
+
+    @Test
+    void acceptsImageAtTheLimits() throws Exception {
+        FileService.StagedUpload upload = fileService.stageUpload(upload("limit.png", png(5000, 5000)));
+
+        assertThat(upload.getHeader().getWidth()).isEqualTo(5000);
+        assertThat(upload.getHeader().getPixels()).isEqualTo(MAX_PIXELS);
+        assertThat(Files.exists(upload.getPath())).isTrue();
+    }
+
+    @Test
+    void rejectsImageWiderOrTallerThanTheLimit() {
+        assertRejected(png(MAX_DIMENSION + 1, 1), "exceed the limit");
+        assertRejected(png(1, MAX_DIMENSION + 1), "exceed the limit");
+        assertRejected(gif(65535, 1), "exceed the limit");
+    }
+
+    @Test
+    void rejectsImageWithTooManyPixels() {
+        // Both sides within the limit, the area is not: a typical decompression bomb
+        assertRejected(png(6000, 6000), "exceed the limit");
+        assertRejected(webpExtended(MAX_DIMENSION, MAX_DIMENSION), "exceed the limit");
+    }
+
+    @Test
+    void rejectsTruncatedAndCorruptHeaders() {
+        assertRejected(Arrays.copyOf(png(100, 100), 20), "corrupt");
+        assertRejected(Arrays.copyOf(gif(100, 100), 8), "corrupt");
+        assertRejected(Arrays.copyOf(webpExtended(100, 100), 20), "corrupt");
+        assertRejected(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xDA, 0, 2}, "corrupt");
+
+        byte[] wrongChunk = png(100, 100);
+        wrongChunk[12] = 'X';
+        assertRejected(wrongChunk, "corrupt");
+    }
+
+    @Test
+    void rejectsContentThatIsNoSupportedImage() {
+        assertRejected("<svg xmlns=\"http://www.w3.org/2000/svg\"/>".getBytes(StandardCharsets.US_ASCII),
+                "Unsupported");
+        assertRejected(new byte[]{'B', 'M', 0, 0}, "Unsupported");
+    }
+
+    @Test
+    void takesTheFormatFromTheContentNotTheFileName() throws Exception {
+        FileService.StagedUpload upload = fileService.stageUpload(upload("photo.jpg", png(300, 200)));
+
+        assertThat(upload.getHeader().getFormat()).isEqualTo(ImageFormat.PNG);
+        assertThat(upload.getPath().toString()).endsWith(".png");
+
+        assertThatThrownBy(() -> fileService.stageUpload(upload("photo.png", "not an image".getBytes())))
+                .isInstanceOf(AppObjectInvalidArgumentException.class)
+                .hasMessageContaining("Unsupported");
+    }
+
+    @Test
+    void checksAssembledFilesTheSameWay() throws Exception {
+        Path bomb = Files.write(stagingDir.resolve("assembled"), png(6000, 6000));
+        assertThatThrownBy(() -> fileService.stageFile(bomb))
+                .isInstanceOf(AppObjectInvalidArgumentException.class)
+                .hasMessageContaining("exceed the limit");
+
+        Path image = Files.write(stagingDir.resolve("assembled-ok"), gif(640, 480));
+        assertThat(fileService.stageFile(image).getHeader().getFormat()).isEqualTo(ImageFormat.GIF);
+    }
+
+    private void assertRejected(byte[] content, String reason) {
+        assertThatThrownBy(() -> fileService.stageUpload(upload("image", content)))
+                .isInstanceOf(AppObjectInvalidArgumentException.class)
+                .hasMessageContaining(reason);
+    }
+
+    private static MockMultipartFile upload(String filename, byte[] content) {
+        return new MockMultipartFile("image", filename, "application/octet-stream", content);
+    }
+
+    private static byte[] png(int width, int height) {
+        ByteBuffer png = ByteBuffer.allocate(33);
+        png.put(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A});
+        png.putInt(13).put("IHDR".getBytes(StandardCharsets.US_ASCII)).putInt(width).putInt(height);
+        png.put(new byte[]{8, 2, 0, 0, 0}).putInt(0);
+        return png.array();
+    }
+
+    private static byte[] gif(int width, int height) {
+        ByteBuffer gif = ByteBuffer.allocate(13).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        gif.put("GIF89a".getBytes(StandardCharsets.US_ASCII)).putShort((short) width).putShort((short) height);
+        return gif.array();
+    }
+
+    private static byte[] webpExtended(int width, int height) {
+        ByteBuffer webp = ByteBuffer.allocate(30).order(java.nio.ByteOrder.LITTLE_ENDIAN);
+        webp.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(22).put("WEBP".getBytes(StandardCharsets.US_ASCII))
+                .put("VP8X".getBytes(StandardCharsets.US_ASCII)).putInt(10).putInt(0)
+                .put(uint24(width - 1)).put(uint24(height - 1));
+        return webp.array();
+    }
+
+    private static byte[] uint24(int value) {
+        return new byte[]{(byte) value, (byte) (value >> 8), (byte) (value >> 16)};
+    }
+}
@@ -0,0 +1,166 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.AbstractIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Image jobs of the background workers, from the claim to the stored result.
+ */
+class ImageProcessingServiceTest extends AbstractIntegrationTest {
+
+    private static final long FIRST_SEEDED_ID = 910_001L;
+    private static final int MAX_ATTEMPTS = 3;
+
+    @MockitoSpyBean
+    private ImageVariantService imageVariantService;
+
+    @Autowired
+    private ImageProcessingService imageProcessingService;
+
+    @Test
+    void pendingJobIsClaimedAndStored() throws Exception {
+        Path staged = Files.createTempFile("image-job", ".png");
+        Files.write(staged, png());
+        long attachmentId = seedJob(FIRST_SEEDED_ID, "PENDING", staged.toString(), 0);
+
+        imageProcessingService.retryPendingAttachments();
+        awaitStatus(attachmentId, "READY");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT file_path FROM attachments WHERE id = ?", String.class,
+                attachmentId)).isNotNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT staged_path FROM attachments WHERE id = ?", String.class,
+                attachmentId)).isNull();
+        assertThat(retryCount(attachmentId)).isZero();
+    }
+
+    @Test
+    void failedJobIsRetriedUntilTheAttemptsAreUsedUp() throws Exception {
+        // Nothing to store, every attempt fails
+        String missing = Files.createTempDirectory("image-job").resolve("missing.png").toString();
+        long attachmentId = seedJob(FIRST_SEEDED_ID + 1, "PENDING", missing, 0);
+
+        for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+            sweepAndAwaitAttempt(attachmentId, attempt);
+            assertThat(attachmentStatus(attachmentId)).isEqualTo("PENDING");
+        }
+        sweepAndAwaitAttempt(attachmentId, MAX_ATTEMPTS);
+
+        assertThat(attachmentStatus(attachmentId)).isEqualTo("FAILED");
+        assertThat(jdbcTemplate.queryForObject("SELECT staged_path FROM attachments WHERE id = ?", String.class,
+                attachmentId)).isNull();
+    }
+
+    @Test
+    void staleProcessingJobIsReturnedToPending() throws Exception {
+        long attachmentId = seedJob(FIRST_SEEDED_ID + 2, "PROCESSING", "unused.png", 1);
+
+        imageProcessingService.retryPendingAttachments();
+
+        assertThat(attachmentStatus(attachmentId)).isEqualTo("PENDING");
+        assertThat(retryCount(attachmentId)).isEqualTo(1);
+    }
+
+    @Test
+    void recentProcessingJobIsLeftToItsWorker() throws Exception {
+        long attachmentId = seedJob(FIRST_SEEDED_ID + 3, "PROCESSING", "unused.png", 0);
+        jdbcTemplate.update("UPDATE attachments SET updated_at = ? WHERE id = ?", Timestamp.valueOf(LocalDateTime.now()),
+                attachmentId);
+
+        imageProcessingService.retryPendingAttachments();
+
+        assertThat(attachmentStatus(attachmentId)).isEqualTo("PROCESSING");
+    }
+
+    @Test
+    void referencesTakenWhileTheJobRunsAreKept() throws Exception {
+        CountDownLatch rendering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            rendering.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(imageVariantService).createVariants(any(), any());
+
+        register("inflight-seller");
+        String token = loginOk("inflight-seller").get("token").asText();
+        long adId = createAdWithImage(token, "Teak sideboard", png());
+        assertThat(rendering.await(10, TimeUnit.SECONDS)).isTrue();
+
+        long attachmentId = jdbcTemplate.queryForObject("SELECT attachment_id FROM ads WHERE id = ?", Long.class, adId);
+        assertThat(attachmentStatus(attachmentId)).isEqualTo("PROCESSING");
+        // The cover and its gallery entry
+        assertThat(referenceCount(attachmentId)).isEqualTo(2);
+
+        release.countDown();
+        awaitStatus(attachmentId, "READY");
+
+        assertThat(referenceCount(attachmentId)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT staged_path FROM attachments WHERE id = ?", String.class,
+                attachmentId)).isNull();
+    }
+
+    /**
+     * Moves the job out of the retry delay, runs the sweep and waits for the attempt to be counted.
+     */
+    private void sweepAndAwaitAttempt(long attachmentId, int attempt) throws InterruptedException {
+        jdbcTemplate.update("UPDATE attachments SET updated_at = ? WHERE id = ?", longAgo(), attachmentId);
+        imageProcessingService.retryPendingAttachments();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (retryCount(attachmentId) < attempt && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(retryCount(attachmentId)).isEqualTo(attempt);
+    }
+
+    /**
+     * Inserts an attachment with an image job, last updated long enough ago to be swept.
+     */
+    private long seedJob(long id, String status, String stagedPath, int retryCount) {
+        String hash = String.format("%064x", id);
+        jdbcTemplate.update("INSERT INTO attachments (id, filename, saved_name, content_type, extension, status, "
+                        + "staged_path, retry_count, content_hash, reference_count, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                id, "job.png", hash + ".png", "image/png", "png", status, stagedPath, retryCount, hash, 0,
+                longAgo(), longAgo());
+        return id;
+    }
+
+    private static Timestamp longAgo() {
+        return Timestamp.valueOf(LocalDateTime.now().minusHours(1));
+    }
+
+    private String attachmentStatus(long attachmentId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM attachments WHERE id = ?", String.class, attachmentId);
+    }
+
+    private int retryCount(long attachmentId) {
+        return jdbcTemplate.queryForObject("SELECT retry_count FROM attachments WHERE id = ?", Integer.class,
+                attachmentId);
+    }
+
+    private int referenceCount(long attachmentId) {
+        return jdbcTemplate.queryForObject("SELECT reference_count FROM attachments WHERE id = ?", Integer.class,
+                attachmentId);
+    }
+
+    private void awaitStatus(long attachmentId, String expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!expected.equals(attachmentStatus(attachmentId)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(attachmentStatus(attachmentId)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,94 @@
+package gr.aueb.cf.grandmasfurnitureapp.service;
+
+import gr.aueb.cf.grandmasfurnitureapp.AbstractIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Deleting a user with ads, from hiding them to the purge of the rows.
+ */
+class UserPurgeServiceTest extends AbstractIntegrationTest {
+
+    private static final long ATTACHMENT_ID = 900_001L;
+    private static final String CONTENT_HASH = "ab".repeat(32);
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserPurgeService userPurgeService;
+
+    @Test
+    void deletedUserIsHiddenAtOnceAndPurgedInTheBackground() throws Exception {
+        seedAttachment();
+        register("leaving-seller");
+        register("buyer");
+        String sellerToken = loginOk("leaving-seller").get("token").asText();
+        String buyerToken = loginOk("buyer").get("token").asText();
+        long firstAdId = createAd(sellerToken, "Leaving dresser", CONTENT_HASH).get("id").asLong();
+        long secondAdId = createAd(sellerToken, "Leaving table", CONTENT_HASH).get("id").asLong();
+        long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class,
+                "leaving-seller");
+        assertThat(referenceCount()).isEqualTo(4);
+        searchLeavingAds(buyerToken).andExpect(jsonPath("$.totalElements").value(2));
+
+        userService.deleteUser("leaving-seller");
+
+        searchLeavingAds(buyerToken).andExpect(jsonPath("$.totalElements").value(0));
+        mockMvc.perform(get("/api/ads/{id}", firstAdId).header(HttpHeaders.AUTHORIZATION, bearer(buyerToken)))
+                .andExpect(status().isNotFound());
+        login("leaving-seller").andExpect(status().isUnauthorized());
+        assertThat(count("SELECT COUNT(*) FROM ads WHERE user_id = ?", userId)).isEqualTo(2);
+
+        purge();
+
+        assertThat(count("SELECT COUNT(*) FROM ads WHERE user_id = ?", userId)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM ad_images WHERE ad_id IN (?, ?)", firstAdId, secondAdId)).isZero();
+        assertThat(count("SELECT COUNT(*) FROM users WHERE id = ?", userId)).isZero();
+        assertThat(referenceCount()).isZero();
+    }
+
+    private ResultActions searchLeavingAds(String token) throws Exception {
+        return mockMvc.perform(get("/api/ads/search/paginated")
+                        .param("title", "Leaving")
+                        .header(HttpHeaders.AUTHORIZATION, bearer(token)))
+                .andExpect(status().isOk());
+    }
+
+    private void purge() {
+        ReflectionTestUtils.setField(userPurgeService, "enabled", true);
+        try {
+            userPurgeService.purge();
+        } finally {
+            ReflectionTestUtils.setField(userPurgeService, "enabled", false);
+        }
+    }
+
+    private int referenceCount() {
+        return count("SELECT reference_count FROM attachments WHERE id = ?", ATTACHMENT_ID);
+    }
+
+    private int count(String sql, Object... args) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, args);
+    }
+
+    private void seedAttachment() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        // Far above the IDs handed out by the sequence
+        jdbcTemplate.update("INSERT INTO attachments (id, filename, saved_name, content_type, extension, status, "
+                        + "retry_count, content_hash, reference_count, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                ATTACHMENT_ID, "dresser.jpg", CONTENT_HASH + ".jpg", "image/jpeg", "jpg", "READY", 0,
+                CONTENT_HASH, 0, now, now);
+    }
+}